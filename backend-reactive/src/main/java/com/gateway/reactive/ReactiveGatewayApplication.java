@@ -0,0 +1,20 @@
+package com.gateway.reactive;
+
+import com.gateway.config.IdGeneratorConfig;
+import com.gateway.services.ValidationService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// WebFlux + R2DBC variant of the order and payment APIs. It serves the same contracts as the servlet
+// backend against the same tables, so either can be deployed (or both, sharing one database).
+@SpringBootApplication
+@Import({ValidationService.class, IdGeneratorConfig.class})
+// Runs the BIN table reload check in ValidationService
+@EnableScheduling
+public class ReactiveGatewayApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveGatewayApplication.class, args);
+    }
+}
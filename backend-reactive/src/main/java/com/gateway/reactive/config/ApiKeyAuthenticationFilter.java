@@ -0,0 +1,91 @@
+package com.gateway.reactive.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.reactive.services.AuthenticationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Authenticates X-Api-Key / X-Api-Secret on the merchant endpoints, before the request body is read,
+// and exposes the resolved merchant id to controllers as a request attribute. Public checkout
+// endpoints are left open, matching the servlet backend.
+@Component
+public class ApiKeyAuthenticationFilter implements WebFilter {
+
+    public static final String MERCHANT_ID_ATTRIBUTE = "merchantId";
+
+    private static final List<PathPattern> PROTECTED_PATHS = parse(
+        "/api/v1/orders", "/api/v1/orders/**", "/api/v1/payments", "/api/v1/payments/**");
+
+    private static final List<PathPattern> PUBLIC_PATHS = parse(
+        "/api/v1/orders/*/public", "/api/v1/payments/public", "/api/v1/payments/*/public");
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        if (!matches(PROTECTED_PATHS, path) || matches(PUBLIC_PATHS, path)) {
+            return chain.filter(exchange);
+        }
+
+        // Only authentication failures are answered with 401; errors further down the chain propagate
+        return authenticationService.authenticate(
+                exchange.getRequest().getHeaders().getFirst("X-Api-Key"),
+                exchange.getRequest().getHeaders().getFirst("X-Api-Secret"))
+            .map(Optional::of)
+            .onErrorResume(RuntimeException.class, e -> Mono.just(Optional.empty()))
+            .flatMap(merchantId -> {
+                if (!merchantId.isPresent()) {
+                    return unauthorized(exchange.getResponse());
+                }
+                exchange.getAttributes().put(MERCHANT_ID_ATTRIBUTE, merchantId.get());
+                return chain.filter(exchange);
+            });
+    }
+
+    private Mono<Void> unauthorized(ServerHttpResponse response) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(
+                new ErrorResponse("AUTHENTICATION_ERROR", AuthenticationService.INVALID_CREDENTIALS_MESSAGE));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathPattern> parse(String... patterns) {
+        return Stream.of(patterns).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.gateway.reactive.controllers;
+
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.dto.ListFilter;
+import com.gateway.reactive.config.ApiKeyAuthenticationFilter;
+import com.gateway.reactive.services.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class OrderController {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private OrderService orderService;
+
+    @PostMapping("/orders")
+    public Mono<ResponseEntity<?>> createOrder(
+            @RequestAttribute(ApiKeyAuthenticationFilter.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestBody CreateOrderRequest request) {
+
+        return orderService.createOrder(merchantId, request)
+            .<ResponseEntity<?>>map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+            .onErrorResume(RuntimeException.class, e -> {
+                // Handle validation and other errors
+                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+            });
+    }
+
+    @GetMapping("/orders")
+    public Mono<ResponseEntity<?>> getAllOrders(
+            @RequestAttribute(ApiKeyAuthenticationFilter.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+
+        return Mono.fromCallable(() -> ListFilter.fromParams(limit, cursor, status, null, from, to))
+            .flatMap(filter -> orderService.getAllOrders(merchantId, filter))
+            .<ResponseEntity<?>>map(page -> {
+                // The body stays a plain array; the cursor for the next page travels in a header
+                ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                if (page.getNextCursor() != null) {
+                    builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return builder.body(page.getItems());
+            })
+            .onErrorResume(RuntimeException.class, e -> {
+                // Handle other errors
+                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+            });
+    }
+
+    @GetMapping("/orders/{orderId}")
+    public Mono<ResponseEntity<?>> getOrder(
+            @RequestAttribute(ApiKeyAuthenticationFilter.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @PathVariable("orderId") String orderId) {
+
+        return orderService.getOrder(merchantId, orderId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> {
+                // Handle not found errors
+                if ("Order not found".equals(e.getMessage())) {
+                    ErrorResponse errorResponse = new ErrorResponse("NOT_FOUND_ERROR", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse));
+                }
+                // Handle other errors
+                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+            });
+    }
+}
@@ -0,0 +1,113 @@
+package com.gateway.reactive.controllers;
+
+import com.gateway.dto.CreatePaymentRequest;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.dto.ListFilter;
+import com.gateway.reactive.config.ApiKeyAuthenticationFilter;
+import com.gateway.reactive.services.PaymentProcessor;
+import com.gateway.reactive.services.PaymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class PaymentController {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @PostMapping("/payments")
+    public Mono<ResponseEntity<?>> createPayment(
+            @RequestAttribute(ApiKeyAuthenticationFilter.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestBody CreatePaymentRequest request) {
+
+        return paymentService.createPayment(merchantId, request)
+            .<ResponseEntity<?>>map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+            .onErrorResume(RuntimeException.class, e -> Mono.just(createPaymentError(e)));
+    }
+
+    // Same error mapping as the servlet backend's PaymentController
+    private static ResponseEntity<ErrorResponse> createPaymentError(RuntimeException e) {
+        String message = e.getMessage() != null ? e.getMessage() : "";
+        // Handle validation errors
+        if (message.contains("VPA is required") ||
+            message.contains("Invalid VPA format")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("INVALID_VPA", message));
+        }
+        else if (message.contains("Card details are required") ||
+                 message.contains("Card number is required") ||
+                 message.contains("Invalid card number") ||
+                 message.contains("Invalid expiry date")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("INVALID_CARD", message));
+        }
+        // Handle orders that are already paid or have a payment in flight
+        else if (message.equals(PaymentService.ORDER_PAID_MESSAGE) ||
+                 message.equals(PaymentService.PAYMENT_IN_PROGRESS_MESSAGE)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("CONFLICT_ERROR", message));
+        }
+        // Handle back-pressure from the payment processor
+        else if (message.equals(PaymentProcessor.QUEUE_FULL_MESSAGE)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(new ErrorResponse("TOO_MANY_REQUESTS_ERROR", message));
+        }
+        // Handle not found errors
+        else if (message.equals("Order not found")) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("NOT_FOUND_ERROR", message));
+        }
+        // Handle other errors
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("BAD_REQUEST_ERROR", message));
+    }
+
+    @GetMapping("/payments")
+    public Mono<ResponseEntity<?>> getAllPayments(
+            @RequestAttribute(ApiKeyAuthenticationFilter.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+
+        return Mono.fromCallable(() -> ListFilter.fromParams(limit, cursor, status, method, from, to))
+            .flatMap(filter -> paymentService.getAllPayments(merchantId, filter))
+            .<ResponseEntity<?>>map(page -> {
+                // The body stays a plain array; the cursor for the next page travels in a header
+                ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                if (page.getNextCursor() != null) {
+                    builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return builder.body(page.getItems());
+            })
+            .onErrorResume(RuntimeException.class, e -> {
+                // Handle other errors
+                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+            });
+    }
+
+    @GetMapping("/payments/{paymentId}")
+    public Mono<ResponseEntity<?>> getPayment(
+            @RequestAttribute(ApiKeyAuthenticationFilter.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @PathVariable("paymentId") String paymentId) {
+
+        return paymentService.getPayment(merchantId, paymentId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> {
+                // Handle not found errors
+                if ("Payment not found".equals(e.getMessage())) {
+                    ErrorResponse errorResponse = new ErrorResponse("NOT_FOUND_ERROR", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse));
+                }
+                // Handle other errors
+                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+            });
+    }
+}
@@ -0,0 +1,101 @@
+package com.gateway.reactive.controllers;
+
+import com.gateway.dto.CreatePaymentRequest;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.reactive.repositories.OrderRepository;
+import com.gateway.reactive.repositories.PaymentRepository;
+import com.gateway.reactive.services.PaymentProcessor;
+import com.gateway.reactive.services.PaymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1")
+public class PublicApiController {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @GetMapping("/orders/{orderId}/public")
+    public Mono<ResponseEntity<?>> getPublicOrder(@PathVariable("orderId") String orderId) {
+        return orderRepository.findPublicById(orderId)
+            .<ResponseEntity<?>>map(order -> {
+                // Create public response with only basic info
+                Map<String, Object> response = new HashMap<>();
+                response.put("id", order.getId());
+                response.put("amount", order.getAmount());
+                response.put("currency", order.getCurrency());
+                response.put("status", order.getStatus());
+                response.put("created_at", order.getCreatedAt().format(TIMESTAMP_FORMAT));
+                return ResponseEntity.ok(response);
+            })
+            .defaultIfEmpty(notFound("Order not found"));
+    }
+
+    @PostMapping("/payments/public")
+    public Mono<ResponseEntity<?>> createPublicPayment(@RequestBody CreatePaymentRequest request) {
+        if (request.getOrderId() == null) {
+            return Mono.just(notFound("Order not found"));
+        }
+
+        // The order's merchant stands in for the API credentials checkout pages do not have
+        return orderRepository.findPublicById(request.getOrderId())
+            .flatMap(order -> paymentService.createPayment(order.getMerchantId(), request)
+                .<ResponseEntity<?>>map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+                .onErrorResume(RuntimeException.class, e -> {
+                    if (PaymentService.ORDER_PAID_MESSAGE.equals(e.getMessage()) ||
+                        PaymentService.PAYMENT_IN_PROGRESS_MESSAGE.equals(e.getMessage())) {
+                        return Mono.just(error(HttpStatus.CONFLICT, "CONFLICT_ERROR", e.getMessage()));
+                    }
+                    if (PaymentProcessor.QUEUE_FULL_MESSAGE.equals(e.getMessage())) {
+                        return Mono.just(error(HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_REQUESTS_ERROR", e.getMessage()));
+                    }
+                    return Mono.just(error(HttpStatus.BAD_REQUEST, "BAD_REQUEST_ERROR", e.getMessage()));
+                }))
+            .defaultIfEmpty(notFound("Order not found"));
+    }
+
+    @GetMapping("/payments/{paymentId}/public")
+    public Mono<ResponseEntity<?>> getPublicPayment(@PathVariable("paymentId") String paymentId) {
+        return paymentRepository.findPublicById(paymentId)
+            .<ResponseEntity<?>>map(payment -> {
+                // Create public response with only basic info
+                Map<String, Object> response = new HashMap<>();
+                response.put("id", payment.getId());
+                response.put("order_id", payment.getOrderId());
+                response.put("amount", payment.getAmount());
+                response.put("currency", payment.getCurrency());
+                response.put("method", payment.getMethod());
+                response.put("status", payment.getStatus());
+                response.put("error_code", payment.getErrorCode());
+                response.put("error_description", payment.getErrorDescription());
+                response.put("created_at", payment.getCreatedAt().format(TIMESTAMP_FORMAT));
+                response.put("updated_at", payment.getUpdatedAt().format(TIMESTAMP_FORMAT));
+                return ResponseEntity.ok(response);
+            })
+            .defaultIfEmpty(notFound("Payment not found"));
+    }
+
+    private static ResponseEntity<?> notFound(String description) {
+        return error(HttpStatus.NOT_FOUND, "NOT_FOUND_ERROR", description);
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String code, String description) {
+        return ResponseEntity.status(status).body(new ErrorResponse(code, description));
+    }
+}
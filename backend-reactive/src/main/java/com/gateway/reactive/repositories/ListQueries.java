@@ -0,0 +1,58 @@
+package com.gateway.reactive.repositories;
+
+import com.gateway.dto.ListFilter;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Builds the keyset-paginated list query shared by orders and payments, newest first on
+// (created_at, id), so a page is a bounded range scan of the (merchant_id, created_at, id) indexes
+class ListQueries {
+
+    static DatabaseClient.GenericExecuteSpec findPage(DatabaseClient databaseClient, String select,
+                                                      UUID merchantId, ListFilter filter, int maxResults) {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE merchant_id = :merchantId");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("merchantId", merchantId);
+
+        if (filter.getStatus() != null) {
+            sql.append(" AND status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getMethod() != null) {
+            sql.append(" AND method = :method");
+            params.put("method", filter.getMethod());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND created_at >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND created_at < :to");
+            params.put("to", filter.getTo());
+        }
+        if (filter.getCursor() != null) {
+            sql.append(" AND (created_at < :cursorCreatedAt" +
+                " OR (created_at = :cursorCreatedAtEq AND id < :cursorId))");
+            params.put("cursorCreatedAt", filter.getCursor().getCreatedAt());
+            params.put("cursorCreatedAtEq", filter.getCursor().getCreatedAt());
+            params.put("cursorId", filter.getCursor().getId());
+        }
+
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        params.put("limit", maxResults);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec;
+    }
+
+    static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+}
@@ -0,0 +1,50 @@
+package com.gateway.reactive.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Repository
+public class MerchantRepository {
+
+    private static final String FIND_CREDENTIAL_SQL =
+        "SELECT id, api_secret, is_active FROM merchants WHERE api_key = :apiKey";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<MerchantCredential> findByApiKey(String apiKey) {
+        return databaseClient.sql(FIND_CREDENTIAL_SQL)
+            .bind("apiKey", apiKey)
+            .map(row -> new MerchantCredential(row.get("id", UUID.class), row.get("api_secret", String.class),
+                !Boolean.FALSE.equals(row.get("is_active", Boolean.class))))
+            .one();
+    }
+
+    public static class MerchantCredential {
+        private final UUID id;
+        private final String apiSecret;
+        private final boolean active;
+
+        public MerchantCredential(UUID id, String apiSecret, boolean active) {
+            this.id = id;
+            this.apiSecret = apiSecret;
+            this.active = active;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getApiSecret() {
+            return apiSecret;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
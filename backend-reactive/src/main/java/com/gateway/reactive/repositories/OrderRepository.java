@@ -0,0 +1,104 @@
+package com.gateway.reactive.repositories;
+
+import com.gateway.dto.ListFilter;
+import com.gateway.reactive.models.Order;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public class OrderRepository {
+
+    private static final String SELECT_ORDER =
+        "SELECT id, merchant_id, amount, currency, receipt, CAST(notes AS TEXT) AS notes, status, " +
+        "created_at, updated_at FROM orders";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO orders (id, merchant_id, amount, currency, receipt, notes, status, created_at, updated_at) " +
+        "VALUES (:id, :merchantId, :amount, :currency, :receipt, CAST(:notes AS JSONB), :status, " +
+        ":createdAt, :updatedAt)";
+
+    // Public lookups only return orders whose merchant still exists
+    private static final String FIND_PUBLIC_SQL =
+        "SELECT o.id, o.merchant_id, o.amount, o.currency, o.receipt, CAST(o.notes AS TEXT) AS notes, o.status, " +
+        "o.created_at, o.updated_at FROM orders o JOIN merchants m ON m.id = o.merchant_id WHERE o.id = :id";
+
+    // Compare-and-set on the order status; updates nothing when the order is no longer in the expected state
+    private static final String TRANSITION_STATUS_SQL =
+        "UPDATE orders SET status = :toStatus, updated_at = :now WHERE id = :id AND status = :fromStatus";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Order> insert(Order order) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_SQL)
+            .bind("id", order.getId())
+            .bind("merchantId", order.getMerchantId())
+            .bind("amount", order.getAmount())
+            .bind("currency", order.getCurrency())
+            .bind("status", order.getStatus())
+            .bind("createdAt", order.getCreatedAt())
+            .bind("updatedAt", order.getUpdatedAt());
+        spec = ListQueries.bindNullable(spec, "receipt", order.getReceipt(), String.class);
+        spec = ListQueries.bindNullable(spec, "notes", order.getNotes(), String.class);
+        return spec.fetch().rowsUpdated().thenReturn(order);
+    }
+
+    public Mono<Order> findById(String id) {
+        return databaseClient.sql(SELECT_ORDER + " WHERE id = :id")
+            .bind("id", id)
+            .map(OrderRepository::mapOrder)
+            .one();
+    }
+
+    public Mono<Order> findByIdAndMerchantId(String id, UUID merchantId) {
+        return databaseClient.sql(SELECT_ORDER + " WHERE id = :id AND merchant_id = :merchantId")
+            .bind("id", id)
+            .bind("merchantId", merchantId)
+            .map(OrderRepository::mapOrder)
+            .one();
+    }
+
+    public Mono<Order> findPublicById(String id) {
+        return databaseClient.sql(FIND_PUBLIC_SQL)
+            .bind("id", id)
+            .map(OrderRepository::mapOrder)
+            .one();
+    }
+
+    public Flux<Order> findPage(UUID merchantId, ListFilter filter, int maxResults) {
+        return ListQueries.findPage(databaseClient, SELECT_ORDER, merchantId, filter, maxResults)
+            .map(OrderRepository::mapOrder)
+            .all();
+    }
+
+    public Mono<Long> transitionStatus(String id, String fromStatus, String toStatus, LocalDateTime now) {
+        return databaseClient.sql(TRANSITION_STATUS_SQL)
+            .bind("toStatus", toStatus)
+            .bind("now", now)
+            .bind("id", id)
+            .bind("fromStatus", fromStatus)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    private static Order mapOrder(Readable row) {
+        Order order = new Order();
+        order.setId(row.get("id", String.class));
+        order.setMerchantId(row.get("merchant_id", UUID.class));
+        order.setAmount(row.get("amount", Integer.class));
+        order.setCurrency(row.get("currency", String.class));
+        order.setReceipt(row.get("receipt", String.class));
+        order.setNotes(row.get("notes", String.class));
+        order.setStatus(row.get("status", String.class));
+        order.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        order.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return order;
+    }
+}
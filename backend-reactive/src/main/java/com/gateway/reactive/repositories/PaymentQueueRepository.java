@@ -0,0 +1,157 @@
+package com.gateway.reactive.repositories;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Work queue over the payments table, using the same leases as the servlet backend so instances of
+// both stacks can drain one queue. Claims also return the method, which is all finalization needs.
+@Repository
+public class PaymentQueueRepository {
+
+    private static final String CLAIM_DUE_SQL =
+        "UPDATE payments SET lease_owner = :owner, lease_expires_at = :leaseExpiresAt, attempts = attempts + 1 " +
+        "WHERE id IN (" +
+        "  SELECT id FROM payments" +
+        "  WHERE status = 'processing' AND process_after <= :now" +
+        "    AND (lease_expires_at IS NULL OR lease_expires_at < :leaseNow)" +
+        "  ORDER BY process_after" +
+        "  LIMIT :limit" +
+        "  FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, attempts, method";
+
+    private static final String CLAIM_ONE_SQL =
+        "UPDATE payments SET lease_owner = :owner, lease_expires_at = :leaseExpiresAt, attempts = attempts + 1 " +
+        "WHERE id = (" +
+        "  SELECT id FROM payments" +
+        "  WHERE id = :id AND status = 'processing'" +
+        "    AND (lease_expires_at IS NULL OR lease_expires_at < :now)" +
+        "  FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, attempts, method";
+
+    // Finalizes the payment, settles its order, folds it into the payment_stats and payment_totals rollups
+    // and queues the merchant's webhook event in one statement, the same as the servlet backend's
+    // completion. The servlet API's dispatcher delivers the event.
+    private static final String COMPLETE_SQL =
+        "WITH completed AS (" +
+        "  UPDATE payments SET status = :status, error_code = :errorCode, error_description = :errorDescription," +
+        "    lease_owner = NULL, lease_expires_at = NULL, updated_at = :now" +
+        "  WHERE id = :id AND status = 'processing' AND lease_owner = :owner" +
+        "  RETURNING id, order_id, merchant_id, amount, currency, method, vpa, card_network, card_last4, status," +
+        "    error_code, error_description, created_at, updated_at, CAST(created_at AS DATE) AS day), " +
+        "settled AS (" +
+        "  UPDATE orders o SET status = CASE WHEN c.status = 'success' THEN 'paid' ELSE 'created' END," +
+        "    updated_at = c.updated_at" +
+        "  FROM completed c WHERE o.id = c.order_id AND o.status = 'attempted'), " +
+        "queued AS (" +
+        "  INSERT INTO webhook_events (id, merchant_id, payment_id, event, payload, next_attempt_at, created_at)" +
+        "  SELECT e.id, c.merchant_id, c.id, e.event," +
+        "    CAST(json_build_object('id', e.id, 'event', e.event, 'created_at', e.created_at," +
+        "      'data', json_build_object('payment', json_build_object(" +
+        "        'id', c.id, 'order_id', c.order_id, 'amount', c.amount, 'currency', c.currency," +
+        "        'method', c.method, 'vpa', c.vpa, 'card_network', c.card_network, 'card_last4', c.card_last4," +
+        "        'status', c.status, 'error_code', c.error_code, 'error_description', c.error_description," +
+        "        'created_at', to_char(c.created_at, 'YYYY-MM-DD\"T\"HH24:MI:SS'), 'updated_at', e.created_at)))" +
+        "      AS TEXT)," +
+        "    c.updated_at, c.updated_at" +
+        "  FROM completed c JOIN merchants m ON m.id = c.merchant_id" +
+        "  CROSS JOIN LATERAL (SELECT 'evt_' || replace(CAST(uuid_generate_v4() AS TEXT), '-', '') AS id," +
+        "    'payment.' || c.status AS event, to_char(c.updated_at, 'YYYY-MM-DD\"T\"HH24:MI:SS') AS created_at) e" +
+        "  WHERE m.webhook_url IS NOT NULL AND m.webhook_url <> ''), " +
+        "totals AS (" +
+        "  INSERT INTO payment_totals AS t" +
+        "    (merchant_id, method, total_count, success_count, failed_count, success_amount)" +
+        "  SELECT merchant_id, method, 1," +
+        "    CASE WHEN status = 'success' THEN 1 ELSE 0 END," +
+        "    CASE WHEN status = 'failed' THEN 1 ELSE 0 END," +
+        "    CASE WHEN status = 'success' THEN amount ELSE 0 END" +
+        "  FROM completed" +
+        "  ON CONFLICT (merchant_id, method) DO UPDATE SET" +
+        "    total_count = t.total_count + EXCLUDED.total_count," +
+        "    success_count = t.success_count + EXCLUDED.success_count," +
+        "    failed_count = t.failed_count + EXCLUDED.failed_count," +
+        "    success_amount = t.success_amount + EXCLUDED.success_amount) " +
+        "INSERT INTO payment_stats AS s " +
+        "  (merchant_id, day, method, total_count, success_count, failed_count, success_amount) " +
+        "SELECT merchant_id, day, method, 1," +
+        "  CASE WHEN status = 'success' THEN 1 ELSE 0 END," +
+        "  CASE WHEN status = 'failed' THEN 1 ELSE 0 END," +
+        "  CASE WHEN status = 'success' THEN amount ELSE 0 END " +
+        "FROM completed " +
+        "ON CONFLICT (merchant_id, day, method) DO UPDATE SET" +
+        "  total_count = s.total_count + EXCLUDED.total_count," +
+        "  success_count = s.success_count + EXCLUDED.success_count," +
+        "  failed_count = s.failed_count + EXCLUDED.failed_count," +
+        "  success_amount = s.success_amount + EXCLUDED.success_amount";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Flux<ClaimedPayment> claimDue(String owner, LocalDateTime now, LocalDateTime leaseExpiresAt, int limit) {
+        return databaseClient.sql(CLAIM_DUE_SQL)
+            .bind("owner", owner)
+            .bind("leaseExpiresAt", leaseExpiresAt)
+            .bind("now", now)
+            .bind("leaseNow", now)
+            .bind("limit", limit)
+            .map(PaymentQueueRepository::mapClaimedPayment)
+            .all();
+    }
+
+    public Mono<ClaimedPayment> claim(String paymentId, String owner, LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        return databaseClient.sql(CLAIM_ONE_SQL)
+            .bind("owner", owner)
+            .bind("leaseExpiresAt", leaseExpiresAt)
+            .bind("id", paymentId)
+            .bind("now", now)
+            .map(PaymentQueueRepository::mapClaimedPayment)
+            .one();
+    }
+
+    // Emits false when the lease was lost to another worker and the result must be discarded
+    public Mono<Boolean> complete(String paymentId, String owner, String status, String errorCode,
+                                  String errorDescription, LocalDateTime now) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(COMPLETE_SQL)
+            .bind("status", status)
+            .bind("now", now)
+            .bind("id", paymentId)
+            .bind("owner", owner);
+        spec = ListQueries.bindNullable(spec, "errorCode", errorCode, String.class);
+        spec = ListQueries.bindNullable(spec, "errorDescription", errorDescription, String.class);
+        return spec.fetch().rowsUpdated().map(rows -> rows == 1);
+    }
+
+    private static ClaimedPayment mapClaimedPayment(Readable row) {
+        return new ClaimedPayment(row.get("id", String.class), row.get("attempts", Integer.class),
+            row.get("method", String.class));
+    }
+
+    public static class ClaimedPayment {
+        private final String id;
+        private final int attempts;
+        private final String method;
+
+        public ClaimedPayment(String id, int attempts, String method) {
+            this.id = id;
+            this.attempts = attempts;
+            this.method = method;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+    }
+}
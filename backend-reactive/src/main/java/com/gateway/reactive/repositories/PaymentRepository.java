@@ -0,0 +1,95 @@
+package com.gateway.reactive.repositories;
+
+import com.gateway.dto.ListFilter;
+import com.gateway.reactive.models.Payment;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public class PaymentRepository {
+
+    private static final String SELECT_PAYMENT =
+        "SELECT id, order_id, merchant_id, amount, currency, method, status, vpa, card_network, card_last4, " +
+        "error_code, error_description, process_after, created_at, updated_at FROM payments";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO payments (id, order_id, merchant_id, amount, currency, method, status, vpa, card_network, " +
+        "card_last4, process_after, created_at, updated_at) " +
+        "VALUES (:id, :orderId, :merchantId, :amount, :currency, :method, :status, :vpa, :cardNetwork, " +
+        ":cardLast4, :processAfter, :createdAt, :updatedAt)";
+
+    // Public lookups only return payments whose merchant still exists
+    private static final String FIND_PUBLIC_SQL =
+        "SELECT p.id, p.order_id, p.merchant_id, p.amount, p.currency, p.method, p.status, p.vpa, " +
+        "p.card_network, p.card_last4, p.error_code, p.error_description, p.process_after, p.created_at, " +
+        "p.updated_at FROM payments p JOIN merchants m ON m.id = p.merchant_id WHERE p.id = :id";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Payment> insert(Payment payment) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_SQL)
+            .bind("id", payment.getId())
+            .bind("orderId", payment.getOrderId())
+            .bind("merchantId", payment.getMerchantId())
+            .bind("amount", payment.getAmount())
+            .bind("currency", payment.getCurrency())
+            .bind("method", payment.getMethod())
+            .bind("status", payment.getStatus())
+            .bind("processAfter", payment.getProcessAfter())
+            .bind("createdAt", payment.getCreatedAt())
+            .bind("updatedAt", payment.getUpdatedAt());
+        spec = ListQueries.bindNullable(spec, "vpa", payment.getVpa(), String.class);
+        spec = ListQueries.bindNullable(spec, "cardNetwork", payment.getCardNetwork(), String.class);
+        spec = ListQueries.bindNullable(spec, "cardLast4", payment.getCardLast4(), String.class);
+        return spec.fetch().rowsUpdated().thenReturn(payment);
+    }
+
+    public Mono<Payment> findByIdAndMerchantId(String id, UUID merchantId) {
+        return databaseClient.sql(SELECT_PAYMENT + " WHERE id = :id AND merchant_id = :merchantId")
+            .bind("id", id)
+            .bind("merchantId", merchantId)
+            .map(PaymentRepository::mapPayment)
+            .one();
+    }
+
+    public Mono<Payment> findPublicById(String id) {
+        return databaseClient.sql(FIND_PUBLIC_SQL)
+            .bind("id", id)
+            .map(PaymentRepository::mapPayment)
+            .one();
+    }
+
+    public Flux<Payment> findPage(UUID merchantId, ListFilter filter, int maxResults) {
+        return ListQueries.findPage(databaseClient, SELECT_PAYMENT, merchantId, filter, maxResults)
+            .map(PaymentRepository::mapPayment)
+            .all();
+    }
+
+    private static Payment mapPayment(Readable row) {
+        Payment payment = new Payment();
+        payment.setId(row.get("id", String.class));
+        payment.setOrderId(row.get("order_id", String.class));
+        payment.setMerchantId(row.get("merchant_id", UUID.class));
+        payment.setAmount(row.get("amount", Integer.class));
+        payment.setCurrency(row.get("currency", String.class));
+        payment.setMethod(row.get("method", String.class));
+        payment.setStatus(row.get("status", String.class));
+        payment.setVpa(row.get("vpa", String.class));
+        payment.setCardNetwork(row.get("card_network", String.class));
+        payment.setCardLast4(row.get("card_last4", String.class));
+        payment.setErrorCode(row.get("error_code", String.class));
+        payment.setErrorDescription(row.get("error_description", String.class));
+        payment.setProcessAfter(row.get("process_after", LocalDateTime.class));
+        payment.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        payment.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return payment;
+    }
+}
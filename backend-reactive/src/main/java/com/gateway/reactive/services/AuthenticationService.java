@@ -0,0 +1,110 @@
+package com.gateway.reactive.services;
+
+import com.gateway.reactive.repositories.MerchantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Resolves API credentials to a merchant id, caching active merchants by api_key together with a
+// SHA-256 hash of their secret exactly like the servlet backend does
+@Service
+public class AuthenticationService {
+
+    public static final String INVALID_CREDENTIALS_MESSAGE = "Invalid API credentials";
+
+    private static final MessageDigest SHA_256_PROTOTYPE;
+
+    static {
+        try {
+            SHA_256_PROTOTYPE = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Value("${MERCHANT_CACHE_TTL_SECONDS:60}")
+    private long ttlSeconds;
+
+    @Value("${MERCHANT_CACHE_MAX_SIZE:10000}")
+    private int maxSize;
+
+    private final Map<String, CachedCredential> cache = new ConcurrentHashMap<>();
+
+    public Mono<UUID> authenticate(String apiKey, String apiSecret) {
+        if (apiKey == null || apiSecret == null) {
+            return Mono.error(new RuntimeException(INVALID_CREDENTIALS_MESSAGE));
+        }
+
+        byte[] secretHash = hash(apiSecret);
+        long now = System.nanoTime();
+
+        CachedCredential cached = cache.get(apiKey);
+        Mono<CachedCredential> credential = cached != null && cached.expiresAt - now >= 0
+            ? Mono.just(cached)
+            : load(apiKey, now);
+
+        return credential
+            .filter(c -> MessageDigest.isEqual(c.secretHash, secretHash))
+            .map(c -> c.merchantId)
+            .switchIfEmpty(Mono.error(() -> new RuntimeException(INVALID_CREDENTIALS_MESSAGE)));
+    }
+
+    private Mono<CachedCredential> load(String apiKey, long now) {
+        return merchantRepository.findByApiKey(apiKey)
+            .filter(MerchantRepository.MerchantCredential::isActive)
+            .map(merchant -> {
+                CachedCredential credential = new CachedCredential(
+                    merchant.getId(), hash(merchant.getApiSecret()), now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+                if (cache.size() >= maxSize) {
+                    evict(now);
+                }
+                cache.put(apiKey, credential);
+                return credential;
+            })
+            .switchIfEmpty(Mono.fromRunnable(() -> cache.remove(apiKey)));
+    }
+
+    // Remove expired entries first; if the cache is still full drop arbitrary entries to make room
+    private void evict(long now) {
+        cache.values().removeIf(credential -> credential.expiresAt - now < 0);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static byte[] hash(String secret) {
+        try {
+            MessageDigest digest = (MessageDigest) SHA_256_PROTOTYPE.clone();
+            return digest.digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+
+    private static class CachedCredential {
+        private final UUID merchantId;
+        private final byte[] secretHash;
+        private final long expiresAt;
+
+        private CachedCredential(UUID merchantId, byte[] secretHash, long expiresAt) {
+            this.merchantId = merchantId;
+            this.secretHash = secretHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
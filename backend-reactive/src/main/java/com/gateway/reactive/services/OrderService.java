@@ -0,0 +1,110 @@
+package com.gateway.reactive.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.dto.*;
+import com.gateway.reactive.models.Order;
+import com.gateway.reactive.repositories.OrderRepository;
+import com.gateway.utils.CursorCodec;
+import com.gateway.utils.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderService {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public Mono<CreateOrderResponse> createOrder(UUID merchantId, CreateOrderRequest request) {
+        return Mono.fromCallable(() -> buildOrder(merchantId, request))
+            .flatMap(orderRepository::insert)
+            .map(order -> {
+                CreateOrderResponse response = new CreateOrderResponse();
+                response.setId(order.getId());
+                response.setMerchantId(order.getMerchantId().toString());
+                response.setAmount(order.getAmount());
+                response.setCurrency(order.getCurrency());
+                response.setReceipt(order.getReceipt());
+                response.setNotes(order.getNotes());
+                response.setStatus(order.getStatus());
+                response.setCreatedAt(order.getCreatedAt().format(TIMESTAMP_FORMAT));
+                return response;
+            });
+    }
+
+    public Mono<GetOrderResponse> getOrder(UUID merchantId, String orderId) {
+        return orderRepository.findByIdAndMerchantId(orderId, merchantId)
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Order not found")))
+            .map(this::convertToGetOrderResponse);
+    }
+
+    public Mono<PageResult<GetOrderResponse>> getAllOrders(UUID merchantId, ListFilter filter) {
+        // Fetch one row beyond the page to learn whether another page follows
+        return orderRepository.findPage(merchantId, filter, filter.getLimit() + 1)
+            .collectList()
+            .map(orders -> {
+                String nextCursor = null;
+                if (orders.size() > filter.getLimit()) {
+                    orders = orders.subList(0, filter.getLimit());
+                    Order last = orders.get(orders.size() - 1);
+                    nextCursor = CursorCodec.encode(last.getCreatedAt(), last.getId());
+                }
+
+                List<GetOrderResponse> responses = orders.stream()
+                    .map(this::convertToGetOrderResponse)
+                    .collect(Collectors.toList());
+                return new PageResult<>(responses, nextCursor);
+            });
+    }
+
+    private Order buildOrder(UUID merchantId, CreateOrderRequest request) {
+        // Validate request
+        if (request.getAmount() == null || request.getAmount() < 100) {
+            throw new RuntimeException("amount must be at least 100");
+        }
+
+        Order order = new Order();
+        order.setId(IdGenerator.generateOrderId());
+        order.setMerchantId(merchantId);
+        order.setAmount(request.getAmount());
+        order.setCurrency(request.getCurrency() != null ? request.getCurrency() : "INR");
+        order.setReceipt(request.getReceipt());
+        // Convert notes object to JSON string
+        try {
+            order.setNotes(request.getNotes() != null ? objectMapper.writeValueAsString(request.getNotes()) : null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing notes", e);
+        }
+        order.setStatus("created");
+        order.setCreatedAt(LocalDateTime.now());
+        order.setUpdatedAt(order.getCreatedAt());
+        return order;
+    }
+
+    private GetOrderResponse convertToGetOrderResponse(Order order) {
+        GetOrderResponse response = new GetOrderResponse();
+        response.setId(order.getId());
+        response.setMerchantId(order.getMerchantId().toString());
+        response.setAmount(order.getAmount());
+        response.setCurrency(order.getCurrency());
+        response.setReceipt(order.getReceipt());
+        response.setNotes(order.getNotes());
+        response.setStatus(order.getStatus());
+        response.setCreatedAt(order.getCreatedAt().format(TIMESTAMP_FORMAT));
+        response.setUpdatedAt(order.getUpdatedAt().format(TIMESTAMP_FORMAT));
+        return response;
+    }
+}
@@ -0,0 +1,174 @@
+package com.gateway.reactive.services;
+
+import com.gateway.reactive.repositories.PaymentQueueRepository;
+import com.gateway.reactive.repositories.PaymentQueueRepository.ClaimedPayment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Finalizes payments left in "processing" status. The simulated bank delay is a timer rather than
+// a parked worker thread, so the number of payments in flight is bounded only by the queue capacity.
+// A periodic sweep claims due payments without a live lease, sharing the queue with servlet instances.
+@Service
+public class PaymentProcessor {
+
+    public static final String QUEUE_FULL_MESSAGE = "Payment processing queue is full";
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessor.class);
+
+    @Autowired
+    private PaymentQueueRepository paymentQueueRepository;
+
+    @Value("${TEST_MODE:false}")
+    private boolean testMode;
+
+    @Value("${TEST_PAYMENT_SUCCESS:true}")
+    private boolean testPaymentSuccess;
+
+    @Value("${PROCESSING_DELAY_MIN:5000}")
+    private int processingDelayMin;
+
+    @Value("${PROCESSING_DELAY_MAX:10000}")
+    private int processingDelayMax;
+
+    @Value("${TEST_PROCESSING_DELAY:1000}")
+    private int testProcessingDelay;
+
+    @Value("${UPI_SUCCESS_RATE:0.90}")
+    private double upiSuccessRate;
+
+    @Value("${CARD_SUCCESS_RATE:0.95}")
+    private double cardSuccessRate;
+
+    @Value("${PAYMENT_QUEUE_CAPACITY:10000}")
+    private int queueCapacity;
+
+    @Value("${PAYMENT_QUEUE_POLL_INTERVAL:5000}")
+    private long pollInterval;
+
+    @Value("${PAYMENT_QUEUE_BATCH_SIZE:50}")
+    private int batchSize;
+
+    @Value("${PAYMENT_LEASE_SECONDS:30}")
+    private long leaseSeconds;
+
+    @Value("${PAYMENT_MAX_ATTEMPTS:5}")
+    private int maxAttempts;
+
+    private final String workerId = UUID.randomUUID().toString();
+
+    // Bounds the number of payments that are waiting for or undergoing finalization
+    private Semaphore slots;
+
+    private Disposable sweeper;
+
+    @PostConstruct
+    public void start() {
+        slots = new Semaphore(queueCapacity);
+        sweeper = Flux.interval(Duration.ZERO, Duration.ofMillis(pollInterval))
+            .onBackpressureDrop()
+            .concatMap(tick -> sweep(), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.dispose();
+    }
+
+    // Reserve a processing slot before the payment is persisted, so a full queue rejects the
+    // request without leaving an orphaned payment behind
+    public void reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new RuntimeException(QUEUE_FULL_MESSAGE);
+        }
+    }
+
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    public LocalDateTime nextProcessAt() {
+        long delay = testMode ? testProcessingDelay
+            : ThreadLocalRandom.current().nextLong(processingDelayMin, processingDelayMax + 1L);
+        return LocalDateTime.now().plus(Duration.ofMillis(delay));
+    }
+
+    // Schedule a local wake-up for a persisted payment whose slot has already been reserved.
+    // If the payment cannot be claimed it is left for the sweep to pick up.
+    public void submit(String paymentId, LocalDateTime processAfter) {
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), processAfter).toMillis());
+        Mono.delay(Duration.ofMillis(delay))
+            .then(Mono.defer(() -> {
+                LocalDateTime now = LocalDateTime.now();
+                return paymentQueueRepository.claim(paymentId, workerId, now, now.plusSeconds(leaseSeconds));
+            }))
+            .flatMap(this::finalizePayment)
+            .doOnError(e -> log.error("Failed to claim payment {}", paymentId, e))
+            .doFinally(signal -> slots.release())
+            .subscribe(null, e -> { });
+    }
+
+    public int getPendingCount() {
+        return queueCapacity - slots.availablePermits();
+    }
+
+    private Mono<Void> sweep() {
+        return Mono.defer(() -> {
+                LocalDateTime now = LocalDateTime.now();
+                return paymentQueueRepository.claimDue(workerId, now, now.plusSeconds(leaseSeconds), batchSize)
+                    .flatMap(this::finalizePayment)
+                    .then();
+            })
+            .onErrorResume(e -> {
+                log.error("Failed to sweep processing payments", e);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> finalizePayment(ClaimedPayment claimed) {
+        return Mono.defer(() -> {
+                // Payments that keep failing to finalize are given up on rather than retried forever
+                boolean success = claimed.getAttempts() <= maxAttempts && isSuccessful(claimed.getMethod());
+                if (success) {
+                    return paymentQueueRepository.complete(claimed.getId(), workerId,
+                        "success", null, null, LocalDateTime.now());
+                }
+                return paymentQueueRepository.complete(claimed.getId(), workerId,
+                    "failed", "PAYMENT_FAILED", "Payment processing failed", LocalDateTime.now());
+            })
+            .doOnNext(completed -> {
+                if (!completed) {
+                    log.warn("Lease on payment {} was lost before it could be finalized", claimed.getId());
+                }
+            })
+            .then()
+            .onErrorResume(e -> {
+                // The lease is left to expire so the payment is retried by a later sweep
+                log.error("Failed to finalize payment {}", claimed.getId(), e);
+                return Mono.empty();
+            });
+    }
+
+    // Determine success/failure based on test mode or random chance
+    private boolean isSuccessful(String method) {
+        if (testMode) {
+            return testPaymentSuccess;
+        }
+        double rate = "upi".equals(method) ? upiSuccessRate : cardSuccessRate;
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
@@ -0,0 +1,239 @@
+package com.gateway.reactive.services;
+
+import com.gateway.dto.*;
+import com.gateway.reactive.models.Order;
+import com.gateway.reactive.models.Payment;
+import com.gateway.reactive.repositories.OrderRepository;
+import com.gateway.reactive.repositories.PaymentRepository;
+import com.gateway.services.ValidationService;
+import com.gateway.utils.CardNumberParser;
+import com.gateway.utils.CursorCodec;
+import com.gateway.utils.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+public class PaymentService {
+
+    public static final String ORDER_PAID_MESSAGE = "Order has already been paid";
+    public static final String PAYMENT_IN_PROGRESS_MESSAGE = "A payment for this order is already in progress";
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private PaymentProcessor paymentProcessor;
+
+    public Mono<CreatePaymentResponse> createPayment(UUID merchantId, CreatePaymentRequest request) {
+        if (request.getOrderId() == null) {
+            return Mono.error(new RuntimeException("Order not found"));
+        }
+
+        // Orders of other merchants are reported as missing
+        return orderRepository.findById(request.getOrderId())
+            .filter(order -> order.getMerchantId().equals(merchantId))
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Order not found")))
+            .flatMap(order -> {
+                Payment payment = buildPayment(merchantId, order, request);
+
+                // Move the order from created to attempted; only one payment per order can be in flight,
+                // so a concurrent or repeated submission fails here without creating a payment
+                return orderRepository.transitionStatus(order.getId(), "created", "attempted", LocalDateTime.now())
+                    .flatMap(updated -> updated == 0 ? rejectAttempt(order.getId()) : persist(order, payment));
+            })
+            .map(this::convertToCreatePaymentResponse);
+    }
+
+    public Mono<GetPaymentResponse> getPayment(UUID merchantId, String paymentId) {
+        return paymentRepository.findByIdAndMerchantId(paymentId, merchantId)
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Payment not found")))
+            .map(this::convertToGetPaymentResponse);
+    }
+
+    public Mono<PageResult<GetPaymentResponse>> getAllPayments(UUID merchantId, ListFilter filter) {
+        // Fetch one row beyond the page to learn whether another page follows
+        return paymentRepository.findPage(merchantId, filter, filter.getLimit() + 1)
+            .collectList()
+            .map(payments -> {
+                String nextCursor = null;
+                if (payments.size() > filter.getLimit()) {
+                    payments = payments.subList(0, filter.getLimit());
+                    Payment last = payments.get(payments.size() - 1);
+                    nextCursor = CursorCodec.encode(last.getCreatedAt(), last.getId());
+                }
+
+                List<GetPaymentResponse> responses = payments.stream()
+                    .map(this::convertToGetPaymentResponse)
+                    .collect(Collectors.toList());
+                return new PageResult<>(responses, nextCursor);
+            });
+    }
+
+    private Payment buildPayment(UUID merchantId, Order order, CreatePaymentRequest request) {
+        // Validate payment method specific fields
+        CardNumberParser.ParsedCard card = null;
+        if ("upi".equals(request.getMethod())) {
+            validateUpiPayment(request);
+        } else if ("card".equals(request.getMethod())) {
+            card = validateCardPayment(request);
+        } else {
+            throw new RuntimeException("Invalid payment method");
+        }
+
+        Payment payment = new Payment();
+        payment.setId(IdGenerator.generatePaymentId());
+        payment.setOrderId(order.getId());
+        payment.setMerchantId(merchantId);
+        payment.setAmount(order.getAmount());
+        payment.setCurrency(order.getCurrency());
+        payment.setMethod(request.getMethod());
+        payment.setStatus("processing"); // Payment starts in processing state
+
+        // Set method-specific fields
+        if ("upi".equals(request.getMethod())) {
+            payment.setVpa(request.getVpa());
+        } else {
+            payment.setCardNetwork(card.getNetwork());
+            payment.setCardLast4(card.getLast4());
+        }
+        return payment;
+    }
+
+    private Mono<Payment> rejectAttempt(String orderId) {
+        return orderRepository.findById(orderId)
+            .map(Order::getStatus)
+            .defaultIfEmpty("")
+            .flatMap(status -> Mono.error(
+                new RuntimeException("paid".equals(status) ? ORDER_PAID_MESSAGE : PAYMENT_IN_PROGRESS_MESSAGE)));
+    }
+
+    // Save the payment (initially with processing status) and hand it to the processor, which
+    // finalizes the status once the simulated bank delay has elapsed
+    private Mono<Payment> persist(Order order, Payment payment) {
+        payment.setProcessAfter(paymentProcessor.nextProcessAt());
+        payment.setCreatedAt(LocalDateTime.now());
+        payment.setUpdatedAt(payment.getCreatedAt());
+
+        return Mono.fromRunnable(paymentProcessor::reserveSlot)
+            .then(paymentRepository.insert(payment)
+                .doOnError(e -> paymentProcessor.releaseSlot()))
+            .onErrorResume(e -> orderRepository
+                .transitionStatus(order.getId(), "attempted", "created", LocalDateTime.now())
+                .then(Mono.error(e)))
+            .doOnNext(saved -> paymentProcessor.submit(saved.getId(), saved.getProcessAfter()));
+    }
+
+    private CreatePaymentResponse convertToCreatePaymentResponse(Payment payment) {
+        CreatePaymentResponse response = new CreatePaymentResponse();
+        response.setId(payment.getId());
+        response.setOrderId(payment.getOrderId());
+        response.setAmount(payment.getAmount());
+        response.setCurrency(payment.getCurrency());
+        response.setMethod(payment.getMethod());
+        response.setStatus(payment.getStatus());
+        response.setCreatedAt(payment.getCreatedAt().format(TIMESTAMP_FORMAT));
+
+        if ("upi".equals(payment.getMethod())) {
+            response.setVpa(payment.getVpa());
+        } else if ("card".equals(payment.getMethod())) {
+            response.setCardNetwork(payment.getCardNetwork());
+            response.setCardLast4(payment.getCardLast4());
+        }
+        return response;
+    }
+
+    private GetPaymentResponse convertToGetPaymentResponse(Payment payment) {
+        GetPaymentResponse response = new GetPaymentResponse();
+        response.setId(payment.getId());
+        response.setOrderId(payment.getOrderId());
+        response.setAmount(payment.getAmount());
+        response.setCurrency(payment.getCurrency());
+        response.setMethod(payment.getMethod());
+        response.setStatus(payment.getStatus());
+        response.setErrorCode(payment.getErrorCode());
+        response.setErrorDescription(payment.getErrorDescription());
+        response.setCreatedAt(payment.getCreatedAt().format(TIMESTAMP_FORMAT));
+        response.setUpdatedAt(payment.getUpdatedAt().format(TIMESTAMP_FORMAT));
+
+        if ("upi".equals(payment.getMethod())) {
+            response.setVpa(payment.getVpa());
+        } else if ("card".equals(payment.getMethod())) {
+            response.setCardNetwork(payment.getCardNetwork());
+            response.setCardLast4(payment.getCardLast4());
+        }
+        return response;
+    }
+
+    private void validateUpiPayment(CreatePaymentRequest request) {
+        if (request.getVpa() == null || request.getVpa().trim().isEmpty()) {
+            throw new RuntimeException("VPA is required for UPI payments");
+        }
+
+        if (!validationService.validateVpa(request.getVpa())) {
+            throw new RuntimeException("Invalid VPA format");
+        }
+    }
+
+    private CardNumberParser.ParsedCard validateCardPayment(CreatePaymentRequest request) {
+        if (request.getCard() == null) {
+            throw new RuntimeException("Card details are required for card payments");
+        }
+
+        String number = request.getCard().getNumber();
+        String expiryMonth = request.getCard().getExpiryMonth();
+        String expiryYear = request.getCard().getExpiryYear();
+        String cvv = request.getCard().getCvv();
+        String holderName = request.getCard().getHolderName();
+
+        if (number == null || number.trim().isEmpty()) {
+            throw new RuntimeException("Card number is required");
+        }
+
+        if (expiryMonth == null || expiryMonth.trim().isEmpty()) {
+            throw new RuntimeException("Expiry month is required");
+        }
+
+        if (expiryYear == null || expiryYear.trim().isEmpty()) {
+            throw new RuntimeException("Expiry year is required");
+        }
+
+        if (cvv == null || cvv.trim().isEmpty()) {
+            throw new RuntimeException("CVV is required");
+        }
+
+        if (holderName == null || holderName.trim().isEmpty()) {
+            throw new RuntimeException("Card holder name is required");
+        }
+
+        // Parsed once; the result also carries the network and last four digits for the payment
+        CardNumberParser.ParsedCard card = validationService.parseCard(number);
+        if (!card.isValid()) {
+            throw new RuntimeException("Invalid card number");
+        }
+
+        if (!validationService.validateExpiryDate(expiryMonth, expiryYear)) {
+            throw new RuntimeException("Invalid expiry date");
+        }
+
+        // Basic CVV validation (3-4 digits)
+        if (!validationService.validateCvv(cvv)) {
+            throw new RuntimeException("Invalid CVV format");
+        }
+        return card;
+    }
+}
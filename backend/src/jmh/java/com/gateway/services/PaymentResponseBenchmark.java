@@ -0,0 +1,71 @@
+package com.gateway.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gateway.dto.CreatePaymentResponse;
+import com.gateway.dto.GetPaymentResponse;
+import com.gateway.models.Payment;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Building and serializing payment responses, which every create, fetch, list row and export row pays
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentResponseBenchmark {
+
+    // Configured like the application's mapper (see spring.jackson.* in application.properties)
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private Payment payment;
+
+    private CreatePaymentResponse createPaymentResponse;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 15, 10, 30, 45);
+
+        payment = new Payment("pay_H8sK3jD9s2L1pQr5", "order_NXhj67fGH2jk9mPq", UUID.randomUUID(), 50000, "card");
+        payment.setCurrency("INR");
+        payment.setStatus("success");
+        payment.setCardNetwork("visa");
+        payment.setCardLast4("1111");
+        payment.setCreatedAt(now);
+        payment.setUpdatedAt(now.plusSeconds(7));
+
+        createPaymentResponse = new CreatePaymentResponse();
+        createPaymentResponse.setId(payment.getId());
+        createPaymentResponse.setOrderId(payment.getOrderId());
+        createPaymentResponse.setAmount(payment.getAmount());
+        createPaymentResponse.setCurrency(payment.getCurrency());
+        createPaymentResponse.setMethod(payment.getMethod());
+        createPaymentResponse.setStatus("processing");
+        createPaymentResponse.setCardNetwork(payment.getCardNetwork());
+        createPaymentResponse.setCardLast4(payment.getCardLast4());
+        createPaymentResponse.setCreatedAt("2024-01-15T10:30:45");
+    }
+
+    // What the payment read queries construct per row
+    @Benchmark
+    public GetPaymentResponse projectGetPaymentResponse() {
+        return new GetPaymentResponse(payment.getId(), payment.getOrderId(), payment.getAmount(),
+            payment.getCurrency(), payment.getMethod(), payment.getVpa(), payment.getCardNetwork(),
+            payment.getCardLast4(), payment.getStatus(), payment.getErrorCode(), payment.getErrorDescription(),
+            payment.getCreatedAt(), payment.getUpdatedAt());
+    }
+
+    @Benchmark
+    public byte[] serializeCreatePaymentResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(createPaymentResponse);
+    }
+}
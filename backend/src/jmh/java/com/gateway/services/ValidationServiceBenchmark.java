@@ -0,0 +1,60 @@
+package com.gateway.services;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-call cost of the checks createPayment runs on every UPI and card payment
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationServiceBenchmark {
+
+    private final ValidationService validationService = new ValidationService();
+
+    private String vpa = "customer.name@okaxis";
+    private String expiryMonth = "12";
+    private String expiryYear = "2030";
+    private String cvv = "123";
+
+    // Checkout pages submit numbers both with and without separators
+    @State(Scope.Benchmark)
+    public static class Card {
+        @Param({"4111111111111111", "5555 5555 5555 4444"})
+        private String number;
+    }
+
+    @Benchmark
+    public boolean validateCardNumber(Card card) {
+        return validationService.validateCardNumber(card.number);
+    }
+
+    @Benchmark
+    public String detectCardNetwork(Card card) {
+        return validationService.detectCardNetwork(card.number);
+    }
+
+    // Validation, network and last4 together, as createPayment now needs them
+    @Benchmark
+    public String parseCard(Card card) {
+        return validationService.parseCard(card.number).getLast4();
+    }
+
+    @Benchmark
+    public boolean validateCvv() {
+        return validationService.validateCvv(cvv);
+    }
+
+    @Benchmark
+    public boolean validateVpa() {
+        return validationService.validateVpa(vpa);
+    }
+
+    @Benchmark
+    public boolean validateExpiryDate() {
+        return validationService.validateExpiryDate(expiryMonth, expiryYear);
+    }
+}
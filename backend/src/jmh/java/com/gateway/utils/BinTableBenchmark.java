@@ -0,0 +1,91 @@
+package com.gateway.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// BIN lookups against a table the size of a commercial BIN database, and the cold load of that table
+// through BinTableLoader
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinTableBenchmark {
+
+    private static final int RANGES = 500_000;
+
+    private static final String[] NETWORKS = {"visa", "mastercard", "rupay", "amex"};
+    private static final String[] CARD_TYPES = {"credit", "debit", "prepaid"};
+    private static final String[] COUNTRIES = {"IN", "US", "GB", "SG", "AE", "DE", "JP", "AU"};
+
+    @State(Scope.Benchmark)
+    public static class RangeFile {
+        private Path path;
+
+        @Setup
+        public void write() throws IOException {
+            Random random = new Random(42);
+            path = Files.createTempFile("bin-ranges", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+                // Disjoint ranges of 1-100 8-digit BINs spread over the 2-6 first digits
+                int start = 20_000_000;
+                for (int i = 0; i < RANGES; i++) {
+                    start += random.nextInt(100);
+                    int end = start + random.nextInt(100);
+                    writer.write(start + "," + end + "," + NETWORKS[random.nextInt(NETWORKS.length)] + ","
+                        + CARD_TYPES[random.nextInt(CARD_TYPES.length)] + "," + COUNTRIES[random.nextInt(COUNTRIES.length)]);
+                    writer.newLine();
+                    start = end + 1;
+                }
+            }
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            Files.delete(path);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LoadedTable {
+        private BinTable table;
+
+        // Random 8-digit prefixes, cycled so each call looks up a different one
+        private int[] prefixes;
+        private int next;
+
+        @Setup
+        public void load(RangeFile file) throws IOException {
+            table = BinTableLoader.load(file.path);
+
+            Random random = new Random(42);
+            prefixes = new int[1 << 16];
+            for (int i = 0; i < prefixes.length; i++) {
+                prefixes[i] = 20_000_000 + random.nextInt(50_000_000);
+            }
+        }
+    }
+
+    @Benchmark
+    public BinTable.BinInfo lookup(LoadedTable state) {
+        int prefix = state.prefixes[state.next];
+        state.next = (state.next + 1) & (state.prefixes.length - 1);
+        return state.table.lookup(prefix);
+    }
+
+    // One load per iteration, as at startup; the warmup iterations let the JIT catch up first
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public BinTable load(RangeFile file) throws IOException {
+        return BinTableLoader.load(file.path);
+    }
+}
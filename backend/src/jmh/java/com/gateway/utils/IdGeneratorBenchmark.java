@@ -0,0 +1,39 @@
+package com.gateway.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Id generation runs once per order and payment; the contended variant models concurrent requests
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    @Param({"random", "secure", "sortable"})
+    private String mode;
+
+    @Setup
+    public void setUp() {
+        IdGenerator.configure(IdGenerator.parseMode(mode), -1);
+    }
+
+    @Benchmark
+    public String generateOrderId() {
+        return IdGenerator.generateOrderId();
+    }
+
+    @Benchmark
+    public String generatePaymentId() {
+        return IdGenerator.generatePaymentId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generatePaymentIdContended() {
+        return IdGenerator.generatePaymentId();
+    }
+}
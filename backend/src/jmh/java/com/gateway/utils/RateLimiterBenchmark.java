@@ -0,0 +1,61 @@
+package com.gateway.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Rate limiting runs on every API request; the contended variant models one merchant's concurrent
+// requests hitting the same bucket
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    // Effectively unlimited, so every acquire succeeds and updates the bucket
+    private final RateLimiter<UUID> open = new RateLimiter<>(1e9, 1_000_000, 100_000);
+
+    // Exhausted after the first call, so every acquire is denied
+    private final RateLimiter<UUID> exhausted = new RateLimiter<>(1, 1, 100_000);
+
+    private final UUID merchantId = UUID.randomUUID();
+
+    private final UUID[] merchantIds = new UUID[KEYS];
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < KEYS; i++) {
+            merchantIds[i] = UUID.randomUUID();
+        }
+        exhausted.tryAcquire(merchantId);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision acquire() {
+        return open.tryAcquire(merchantId);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision acquireDenied() {
+        return exhausted.tryAcquire(merchantId);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision acquireManyKeys() {
+        next = (next + 1) % KEYS;
+        return open.tryAcquire(merchantIds[next]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RateLimiter.Decision acquireContended() {
+        return open.tryAcquire(merchantId);
+    }
+}
@@ -0,0 +1,53 @@
+package com.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.services.AuthenticationService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.UUID;
+
+// Authenticates X-Api-Key / X-Api-Secret once per request, before the request body is read, and
+// exposes the resolved merchant id to controllers as a request attribute
+@Component
+public class ApiKeyAuthenticationInterceptor implements HandlerInterceptor {
+
+    public static final String MERCHANT_ID_ATTRIBUTE = "merchantId";
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // A streaming response's async dispatch keeps the attribute set by the original request
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        UUID merchantId;
+        try {
+            merchantId = authenticationService.authenticate(
+                request.getHeader("X-Api-Key"), request.getHeader("X-Api-Secret"));
+        } catch (RuntimeException e) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("AUTHENTICATION_ERROR", AuthenticationService.INVALID_CREDENTIALS_MESSAGE));
+            return false;
+        }
+
+        request.setAttribute(MERCHANT_ID_ATTRIBUTE, merchantId);
+        return true;
+    }
+}
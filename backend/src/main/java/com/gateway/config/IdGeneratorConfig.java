@@ -0,0 +1,28 @@
+package com.gateway.config;
+
+import com.gateway.utils.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+    // Applies the id mode before any request is served. Sortable ids embed ID_NODE_ID, so instances
+    // sharing a database should each be given a distinct one; unset, a random node id is used.
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Value("${ID_GENERATOR_MODE:random}")
+    private String mode;
+
+    @Value("${ID_NODE_ID:-1}")
+    private int nodeId;
+
+    @PostConstruct
+    public void configure() {
+        IdGenerator.configure(IdGenerator.parseMode(mode), nodeId);
+        log.info("Generating {} ids on node {}", IdGenerator.getMode(), IdGenerator.getNodeId());
+    }
+}
@@ -0,0 +1,164 @@
+package com.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.utils.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Token-bucket rate limits, checked before the request body is read. Authenticated requests are
+// limited per merchant (this runs after ApiKeyAuthenticationInterceptor), public checkout requests
+// per client address. Requests to the merchant endpoints are also limited per client address before
+// authentication (see beforeAuthentication), so bad or missing credentials cannot be sent unlimited.
+// Responses carry X-RateLimit-Limit, X-RateLimit-Remaining and X-RateLimit-Reset (seconds until the
+// bucket is full again); a request over the limit gets 429 with Retry-After.
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String RATE_LIMITED_MESSAGE = "Rate limit exceeded, retry later";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${RATE_LIMIT_ENABLED:true}")
+    private boolean enabled;
+
+    @Value("${RATE_LIMIT_MERCHANT_PER_SECOND:100}")
+    private double merchantRate;
+
+    @Value("${RATE_LIMIT_MERCHANT_BURST:200}")
+    private int merchantBurst;
+
+    @Value("${RATE_LIMIT_PUBLIC_PER_SECOND:20}")
+    private double publicRate;
+
+    @Value("${RATE_LIMIT_PUBLIC_BURST:100}")
+    private int publicBurst;
+
+    // Per address across the merchant endpoints, above what one merchant may send
+    @Value("${RATE_LIMIT_CLIENT_PER_SECOND:200}")
+    private double clientRate;
+
+    @Value("${RATE_LIMIT_CLIENT_BURST:400}")
+    private int clientBurst;
+
+    @Value("${RATE_LIMIT_MAX_KEYS:100000}")
+    private int maxKeys;
+
+    // Addresses of the proxies in front of the API that append to X-Forwarded-For, e.g. the checkout
+    // page's nginx. X-Forwarded-For is only read on connections from one of them.
+    @Value("${RATE_LIMIT_TRUSTED_PROXIES:}")
+    private String trustedProxyList;
+
+    private Set<String> trustedProxies;
+
+    private RateLimiter<UUID> merchantLimiter;
+
+    private RateLimiter<String> publicLimiter;
+
+    private RateLimiter<String> clientLimiter;
+
+    private final HandlerInterceptor beforeAuthentication = new HandlerInterceptor() {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                throws IOException {
+            if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC) {
+                return true;
+            }
+            return apply(clientLimiter.tryAcquire(clientAddress(request)), response);
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        merchantLimiter = new RateLimiter<>(merchantRate, merchantBurst, maxKeys);
+        publicLimiter = new RateLimiter<>(publicRate, publicBurst, maxKeys);
+        clientLimiter = new RateLimiter<>(clientRate, clientBurst, maxKeys);
+        trustedProxies = Arrays.stream(trustedProxyList.split(","))
+            .map(String::trim)
+            .filter(address -> !address.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    // The per-address limit on the merchant endpoints; registered ahead of ApiKeyAuthenticationInterceptor
+    public HandlerInterceptor beforeAuthentication() {
+        return beforeAuthentication;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // Streaming responses (exports, event streams) dispatch again when they finish; that is not a new request
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        Object merchantId = request.getAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE);
+        return apply(merchantId != null
+            ? merchantLimiter.tryAcquire((UUID) merchantId)
+            : publicLimiter.tryAcquire(clientAddress(request)), response);
+    }
+
+    // Buckets of idle merchants and clients are full again and can be dropped
+    @Scheduled(fixedDelayString = "${RATE_LIMIT_SWEEP_INTERVAL:60000}")
+    public void sweep() {
+        merchantLimiter.sweep();
+        publicLimiter.sweep();
+        clientLimiter.sweep();
+    }
+
+    private boolean apply(RateLimiter.Decision decision, HttpServletResponse response) throws IOException {
+        response.setHeader("X-RateLimit-Limit", Integer.toString(decision.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", Integer.toString(decision.getRemaining()));
+        response.setHeader("X-RateLimit-Reset", Long.toString(toSeconds(decision.getResetNanos())));
+        if (decision.isAllowed()) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(Math.max(1, toSeconds(decision.getRetryAfterNanos()))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+            new ErrorResponse("TOO_MANY_REQUESTS_ERROR", RATE_LIMITED_MESSAGE));
+        return false;
+    }
+
+    // Each trusted proxy appends the address it received the request from, so walking X-Forwarded-For
+    // from the end, the client is the first address that is not a trusted proxy; anything before it
+    // could have been sent by the client. A connection that does not come from a trusted proxy is the
+    // client, whatever it put in the header.
+    private String clientAddress(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor == null || !trustedProxies.contains(address)) {
+            return address;
+        }
+        String[] addresses = forwardedFor.split(",");
+        for (int i = addresses.length - 1; i >= 0 && trustedProxies.contains(address); i--) {
+            String forwarded = addresses[i].trim();
+            if (!forwarded.isEmpty()) {
+                address = forwarded;
+            }
+        }
+        return address;
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.gateway.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Only active when DB_REPLICA_URLS is set; otherwise Spring Boot's single pooled DataSource is used.
+// The primary pool keeps the spring.datasource settings, and each replica gets a copy of them with its
+// own URL, a read-only flag and a short connection timeout so an unreachable replica fails over quickly.
+@Configuration
+@ConditionalOnExpression("!'${DB_REPLICA_URLS:}'.trim().isEmpty()")
+public class ReadReplicaConfig {
+
+    @Value("${DB_REPLICA_URLS:}")
+    private String replicaUrls;
+
+    @Value("${DB_REPLICA_POOL_SIZE:${DB_POOL_SIZE:10}}")
+    private int replicaPoolSize;
+
+    @Value("${DB_REPLICA_CONNECTION_TIMEOUT:1000}")
+    private long replicaConnectionTimeout;
+
+    @Value("${DB_REPLICA_MAX_LAG_MILLIS:5000}")
+    private long maxLagMillis;
+
+    @Value("${DB_REPLICA_HEALTH_INTERVAL:2000}")
+    private long healthInterval;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setPoolName("replica-" + replicas.size());
+            config.setMaximumPoolSize(replicaPoolSize);
+            config.setConnectionTimeout(replicaConnectionTimeout);
+            config.setReadOnly(true);
+            // Start even if the replica is down; the health check keeps it out of use until it is back
+            config.setInitializationFailTimeout(-1);
+            // Spring Boot only binds pool metrics for DataSource beans, which the replicas are not
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis, healthInterval);
+    }
+
+    // What JPA, JdbcTemplate and the transaction manager use
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
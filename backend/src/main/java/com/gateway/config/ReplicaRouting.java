@@ -0,0 +1,28 @@
+package com.gateway.config;
+
+import java.util.function.Supplier;
+
+// Pins the database reads of the current thread to the primary. ReplicaRoutingDataSource sends read-only
+// transactions to replicas unless they run inside onPrimary; code that must see a write that may not
+// have replicated yet wraps its reads in it. A connection is picked when the transaction first uses it,
+// so onPrimary has to start before the transaction does.
+public class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PRIMARY_REQUIRED.get() != null) {
+            return work.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.gateway.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends read-only transactions to streaming replicas, round robin, and everything else to the primary.
+// Each replica is checked every healthInterval: it is used only while it is reachable, is still a
+// standby, and has either replayed everything the primary had written at the start of the check or is
+// at most maxLagMillis behind. With no usable replica, or when a replica refuses a connection, reads
+// fall back to the primary.
+//
+// Must be wrapped in a LazyConnectionDataSourceProxy (see ReadReplicaConfig): the transaction manager
+// asks for a connection before it marks the transaction read-only, and the proxy defers the choice
+// until the first statement.
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY_LSN_SQL = "SELECT CAST(pg_current_wal_lsn() AS TEXT)";
+
+    private static final String REPLICA_STATUS_SQL =
+        "SELECT pg_is_in_recovery() AS in_recovery," +
+        "  COALESCE(pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn), FALSE) AS caught_up," +
+        "  EXTRACT(EPOCH FROM (clock_timestamp() - pg_last_xact_replay_timestamp())) * 1000 AS lag_millis";
+
+    private final HikariDataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final long maxLagMillis;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledThreadPoolExecutor healthChecker;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaDataSources,
+                                    long maxLagMillis, long healthInterval) {
+        this.primary = primary;
+        this.replicas = replicaDataSources.stream().map(Replica::new).toList();
+        this.maxLagMillis = maxLagMillis;
+
+        // Replicas start out unused until their first check passes
+        healthChecker = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("replica-health").daemon(true).factory());
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, healthInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = chooseReplica();
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                markUnhealthy(replica, e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // Callers that pass their own credentials (migration tools, for example) get the primary. Hikari
+    // refuses per-call credentials with SQLFeatureNotSupportedException.
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    // AbstractDataSource throws UnsupportedOperationException for these; the primary's pool settings stand
+    // for the whole data source
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public void setLoginTimeout(int timeout) throws SQLException {
+        primary.setLoginTimeout(timeout);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        try {
+            return primary.getLogWriter();
+        } catch (SQLException e) {
+            // AbstractDataSource declares no SQLException here
+            throw new IllegalStateException("Failed to read the primary's log writer", e);
+        }
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter writer) throws SQLException {
+        primary.setLogWriter(writer);
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    private Replica chooseReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReplicaRouting.isPrimaryRequired()) {
+            return null;
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void checkReplicas() {
+        String primaryLsn;
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PRIMARY_LSN_SQL)) {
+            rs.next();
+            primaryLsn = rs.getString(1);
+        } catch (SQLException | RuntimeException e) {
+            // Without the primary's position the lag is unknown; keep the last verdicts
+            log.warn("Failed to read the primary WAL position: {}", e.getMessage());
+            return;
+        }
+
+        for (Replica replica : replicas) {
+            try {
+                checkReplica(replica, primaryLsn);
+            } catch (SQLException | RuntimeException e) {
+                markUnhealthy(replica, e.getMessage());
+            }
+        }
+    }
+
+    private void checkReplica(Replica replica, String primaryLsn) throws SQLException {
+        try (Connection connection = replica.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(REPLICA_STATUS_SQL)) {
+            statement.setString(1, primaryLsn);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                if (!rs.getBoolean("in_recovery")) {
+                    // A promoted or standalone server no longer follows the primary
+                    markUnhealthy(replica, "not a standby");
+                    return;
+                }
+                boolean caughtUp = rs.getBoolean("caught_up");
+                double lagMillis = rs.getDouble("lag_millis");
+                if (caughtUp || (!rs.wasNull() && lagMillis <= maxLagMillis)) {
+                    if (!replica.healthy) {
+                        log.info("Replica {} is in use", replica.dataSource.getPoolName());
+                    }
+                    replica.healthy = true;
+                } else {
+                    markUnhealthy(replica, String.format("%.0f ms behind the primary", lagMillis));
+                }
+            }
+        }
+    }
+
+    private void markUnhealthy(Replica replica, String reason) {
+        if (replica.healthy) {
+            log.warn("Replica {} taken out of use: {}", replica.dataSource.getPoolName(), reason);
+        }
+        replica.healthy = false;
+    }
+
+    private static class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
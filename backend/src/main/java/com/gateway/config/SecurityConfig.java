@@ -1,10 +1,39 @@
 package com.gateway.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
-public class SecurityConfig {
-    // For this implementation, we're handling authentication at the controller/service level
-    // rather than using Spring Security filters, to keep it simple and match the requirements
-    // which specify checking X-Api-Key and X-Api-Secret headers in the business logic
-}
\ No newline at end of file
+public class SecurityConfig implements WebMvcConfigurer {
+    // Merchant endpoints are authenticated by an interceptor that checks the X-Api-Key and
+    // X-Api-Secret headers; public checkout and test endpoints are left open. Rate limits apply per
+    // client address before authentication, per merchant after it, and to the public endpoints per
+    // client address.
+
+    private static final String[] MERCHANT_PATHS = {"/api/v1/orders", "/api/v1/orders/**", "/api/v1/payments",
+        "/api/v1/payments/**", "/api/v1/stats", "/api/v1/webhooks/**"};
+
+    private static final String[] PUBLIC_PATHS = {"/api/v1/orders/*/public", "/api/v1/payments/public",
+        "/api/v1/payments/*/public", "/api/v1/payments/*/events"};
+
+    @Autowired
+    private ApiKeyAuthenticationInterceptor apiKeyAuthenticationInterceptor;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor.beforeAuthentication())
+            .addPathPatterns(MERCHANT_PATHS)
+            .excludePathPatterns(PUBLIC_PATHS);
+        registry.addInterceptor(apiKeyAuthenticationInterceptor)
+            .addPathPatterns(MERCHANT_PATHS)
+            .excludePathPatterns(PUBLIC_PATHS);
+        registry.addInterceptor(rateLimitInterceptor)
+            .addPathPatterns("/api/v1/**")
+            .excludePathPatterns("/api/v1/test/**");
+    }
+}
@@ -26,6 +26,10 @@ public class TestMerchantInitializer {
     @Value("${TEST_API_SECRET:secret_test_xyz789}")
     private String testApiSecret;
 
+    // Lets webhook delivery be exercised against a local receiver; empty leaves the URL as it is
+    @Value("${TEST_WEBHOOK_URL:}")
+    private String testWebhookUrl;
+
     @EventListener(ContextRefreshedEvent.class)
     public void initializeTestMerchant() {
         // Check if test merchant already exists
@@ -39,7 +43,14 @@ public class TestMerchantInitializer {
             testMerchant.setEmail(testMerchantEmail);
             testMerchant.setApiKey(testApiKey);
             testMerchant.setApiSecret(testApiSecret);
+            if (!testWebhookUrl.isEmpty()) {
+                testMerchant.setWebhookUrl(testWebhookUrl);
+            }
             
+            merchantRepository.save(testMerchant);
+        } else if (!testWebhookUrl.isEmpty() && !testWebhookUrl.equals(existingMerchant.get().getWebhookUrl())) {
+            Merchant testMerchant = existingMerchant.get();
+            testMerchant.setWebhookUrl(testWebhookUrl);
             merchantRepository.save(testMerchant);
         }
     }
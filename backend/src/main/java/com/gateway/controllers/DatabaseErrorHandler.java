@@ -0,0 +1,29 @@
+package com.gateway.controllers;
+
+import com.gateway.dto.ErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// Database failures (a dropped connection, a pool or lock timeout) say nothing about the request, so
+// they are answered with 503 rather than the 400 the controllers give other errors. The create
+// endpoints rethrow them: IdempotencyService then releases the key, and a retry with it runs again.
+@RestControllerAdvice
+public class DatabaseErrorHandler {
+
+    public static final String UNAVAILABLE_MESSAGE = "Service temporarily unavailable, retry later";
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseErrorHandler.class);
+
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<ErrorResponse> handle(RuntimeException e) {
+        log.error("Database error while handling request", e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(new ErrorResponse("SERVICE_UNAVAILABLE_ERROR", UNAVAILABLE_MESSAGE));
+    }
+}
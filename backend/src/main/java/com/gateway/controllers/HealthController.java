@@ -1,23 +1,52 @@
 package com.gateway.controllers;
 
+import com.gateway.utils.ApiTimestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 public class HealthController {
 
+    private static final Logger log = LoggerFactory.getLogger(HealthController.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${HEALTH_DB_TIMEOUT_SECONDS:2}")
+    private int dbTimeoutSeconds;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
-        
-        response.put("status", "healthy");
-        response.put("database", "connected");
-        response.put("timestamp", java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        
-        return ResponseEntity.ok(response);
+        boolean connected = isDatabaseConnected();
+
+        response.put("status", connected ? "healthy" : "unhealthy");
+        response.put("database", connected ? "connected" : "disconnected");
+        response.put("timestamp", ApiTimestamps.format(LocalDateTime.now()));
+
+        return ResponseEntity.status(connected ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
+    // Checks a pooled connection to the primary against the server, not just the pool
+    private boolean isDatabaseConnected() {
+        try {
+            return Boolean.TRUE.equals(jdbcTemplate.execute(
+                (ConnectionCallback<Boolean>) connection -> connection.isValid(dbTimeoutSeconds)));
+        } catch (RuntimeException e) {
+            log.warn("Database health check failed", e);
+            return false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,41 +1,57 @@
 package com.gateway.controllers;
 
+import com.gateway.config.ApiKeyAuthenticationInterceptor;
+import com.gateway.dto.CreateOrderBatchRequest;
+import com.gateway.dto.CreateOrderBatchResponse;
 import com.gateway.dto.CreateOrderRequest;
 import com.gateway.dto.CreateOrderResponse;
 import com.gateway.dto.GetOrderResponse;
 import com.gateway.dto.ErrorResponse;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageResult;
+import com.gateway.services.IdempotencyService;
 import com.gateway.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1")
 public class OrderController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/orders")
     public ResponseEntity<?> createOrder(
-            @RequestHeader("X-Api-Key") String apiKey,
-            @RequestHeader("X-Api-Secret") String apiSecret,
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody CreateOrderRequest request) {
-        
+
+        return idempotencyService.execute(merchantId, idempotencyKey, "POST /api/v1/orders", request,
+            () -> createOrder(merchantId, request));
+    }
+
+    private ResponseEntity<?> createOrder(UUID merchantId, CreateOrderRequest request) {
         try {
-            CreateOrderResponse response = orderService.createOrder(apiKey, apiSecret, request);
+            CreateOrderResponse response = orderService.createOrder(merchantId, request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (DataAccessException | TransactionException e) {
+            // Left to DatabaseErrorHandler, so the Idempotency-Key is released rather than stored
+            throw e;
         } catch (RuntimeException e) {
-            // Handle authentication errors
-            if (e.getMessage().equals("Invalid API credentials")) {
-                ErrorResponse errorResponse = new ErrorResponse("AUTHENTICATION_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-            }
             // Handle validation errors
-            else if (e.getMessage().contains("amount must be at least")) {
+            if (e.getMessage().contains("amount must be at least")) {
                 ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
             }
@@ -47,45 +63,68 @@ public class OrderController {
         }
     }
 
+    // Creates up to ORDER_BATCH_MAX_SIZE orders with one authentication and one transaction; the
+    // response reports each order's result in request order
+    @PostMapping("/orders/batch")
+    public ResponseEntity<?> createOrders(
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CreateOrderBatchRequest request) {
+
+        return idempotencyService.execute(merchantId, idempotencyKey, "POST /api/v1/orders/batch", request,
+            () -> createOrders(merchantId, request));
+    }
+
+    private ResponseEntity<?> createOrders(UUID merchantId, CreateOrderBatchRequest request) {
+        try {
+            CreateOrderBatchResponse response = orderService.createOrders(merchantId, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (DataAccessException | TransactionException e) {
+            // Left to DatabaseErrorHandler, so the Idempotency-Key is released rather than stored
+            throw e;
+        } catch (RuntimeException e) {
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
     @GetMapping("/orders")
     public ResponseEntity<?> getAllOrders(
-            @RequestHeader("X-Api-Key") String apiKey,
-            @RequestHeader("X-Api-Secret") String apiSecret) {
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
         
         try {
-            List<GetOrderResponse> responses = orderService.getAllOrders(apiKey, apiSecret);
-            return ResponseEntity.ok(responses);
-        } catch (RuntimeException e) {
-            // Handle authentication errors
-            if (e.getMessage().equals("Invalid API credentials")) {
-                ErrorResponse errorResponse = new ErrorResponse("AUTHENTICATION_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+            ListFilter filter = ListFilter.fromParams(limit, cursor, status, null, from, to);
+            PageResult<GetOrderResponse> page = orderService.getAllOrders(merchantId, filter);
+
+            // The body stays a plain array; the cursor for the next page travels in a header
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
             }
+            return builder.body(page.getItems());
+        } catch (RuntimeException e) {
             // Handle other errors
-            else {
-                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-            }
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
     }
 
     @GetMapping("/orders/{orderId}")
     public ResponseEntity<?> getOrder(
-            @RequestHeader("X-Api-Key") String apiKey,
-            @RequestHeader("X-Api-Secret") String apiSecret,
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
             @PathVariable("orderId") String orderId) {
         
         try {
-            GetOrderResponse response = orderService.getOrder(apiKey, apiSecret, orderId);
+            GetOrderResponse response = orderService.getOrder(merchantId, orderId);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
-            // Handle authentication errors
-            if (e.getMessage().equals("Invalid API credentials")) {
-                ErrorResponse errorResponse = new ErrorResponse("AUTHENTICATION_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-            }
             // Handle not found errors
-            else if (e.getMessage().equals("Order not found")) {
+            if (e.getMessage().equals("Order not found")) {
                 ErrorResponse errorResponse = new ErrorResponse("NOT_FOUND_ERROR", e.getMessage());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
@@ -1,42 +1,61 @@
 package com.gateway.controllers;
 
+import com.gateway.config.ApiKeyAuthenticationInterceptor;
 import com.gateway.dto.CreatePaymentRequest;
 import com.gateway.dto.CreatePaymentResponse;
 import com.gateway.dto.GetPaymentResponse;
 import com.gateway.dto.ErrorResponse;
+import com.gateway.dto.ListFilter;
+import com.gateway.dto.PageResult;
+import com.gateway.services.IdempotencyService;
+import com.gateway.services.PaymentProcessor;
 import com.gateway.services.PaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1")
 public class PaymentController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/payments")
     public ResponseEntity<?> createPayment(
-            @RequestHeader("X-Api-Key") String apiKey,
-            @RequestHeader("X-Api-Secret") String apiSecret,
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody CreatePaymentRequest request) {
-        
+
+        return idempotencyService.execute(merchantId, idempotencyKey, "POST /api/v1/payments", request,
+            () -> createPayment(merchantId, request));
+    }
+
+    private ResponseEntity<?> createPayment(UUID merchantId, CreatePaymentRequest request) {
         try {
-            CreatePaymentResponse response = paymentService.createPayment(apiKey, apiSecret, request);
+            CreatePaymentResponse response = paymentService.createPayment(merchantId, request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (DataAccessException | TransactionException e) {
+            // Left to DatabaseErrorHandler, so the Idempotency-Key is released rather than stored
+            throw e;
         } catch (RuntimeException e) {
-            // Handle authentication errors
-            if (e.getMessage().equals("Invalid API credentials")) {
-                ErrorResponse errorResponse = new ErrorResponse("AUTHENTICATION_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-            }
             // Handle validation errors
-            else if (e.getMessage().contains("VPA is required") || 
-                     e.getMessage().contains("Invalid VPA format")) {
+            if (e.getMessage().contains("VPA is required") || 
+                e.getMessage().contains("Invalid VPA format")) {
                 ErrorResponse errorResponse = new ErrorResponse("INVALID_VPA", e.getMessage());
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
             }
@@ -51,6 +70,17 @@ public class PaymentController {
                 ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
             }
+            // Handle orders that are already paid or have a payment in flight
+            else if (e.getMessage().equals(PaymentService.ORDER_PAID_MESSAGE) ||
+                     e.getMessage().equals(PaymentService.PAYMENT_IN_PROGRESS_MESSAGE)) {
+                ErrorResponse errorResponse = new ErrorResponse("CONFLICT_ERROR", e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+            }
+            // Handle back-pressure from the payment processor
+            else if (e.getMessage().equals(PaymentProcessor.QUEUE_FULL_MESSAGE)) {
+                ErrorResponse errorResponse = new ErrorResponse("TOO_MANY_REQUESTS_ERROR", e.getMessage());
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
+            }
             // Handle not found errors
             else if (e.getMessage().equals("Order not found")) {
                 ErrorResponse errorResponse = new ErrorResponse("NOT_FOUND_ERROR", e.getMessage());
@@ -66,43 +96,75 @@ public class PaymentController {
 
     @GetMapping("/payments")
     public ResponseEntity<?> getAllPayments(
-            @RequestHeader("X-Api-Key") String apiKey,
-            @RequestHeader("X-Api-Secret") String apiSecret) {
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
         
         try {
-            List<GetPaymentResponse> responses = paymentService.getAllPayments(apiKey, apiSecret);
-            return ResponseEntity.ok(responses);
-        } catch (RuntimeException e) {
-            // Handle authentication errors
-            if (e.getMessage().equals("Invalid API credentials")) {
-                ErrorResponse errorResponse = new ErrorResponse("AUTHENTICATION_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+            ListFilter filter = ListFilter.fromParams(limit, cursor, status, method, from, to);
+            PageResult<GetPaymentResponse> page = paymentService.getAllPayments(merchantId, filter);
+
+            // The body stays a plain array; the cursor for the next page travels in a header
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
             }
+            return builder.body(page.getItems());
+        } catch (RuntimeException e) {
             // Handle other errors
-            else {
-                ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
+    @GetMapping("/payments/export")
+    public ResponseEntity<?> exportPayments(
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+
+        try {
+            if (!"ndjson".equals(format) && !"csv".equals(format)) {
+                throw new RuntimeException("format must be ndjson or csv");
             }
+            ListFilter filter = ListFilter.fromParams(null, null, status, method, from, to);
+
+            // Rows are written by a streaming body, so the export runs outside the request thread
+            StreamingResponseBody body = outputStream ->
+                paymentService.exportPayments(merchantId, filter, format, outputStream);
+
+            MediaType contentType = "csv".equals(format)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+            return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments." + format + "\"")
+                .body(body);
+        } catch (RuntimeException e) {
+            // Handle validation errors
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
     }
 
     @GetMapping("/payments/{paymentId}")
     public ResponseEntity<?> getPayment(
-            @RequestHeader("X-Api-Key") String apiKey,
-            @RequestHeader("X-Api-Secret") String apiSecret,
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
             @PathVariable("paymentId") String paymentId) {
         
         try {
-            GetPaymentResponse response = paymentService.getPayment(apiKey, apiSecret, paymentId);
+            GetPaymentResponse response = paymentService.getPayment(merchantId, paymentId);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
-            // Handle authentication errors
-            if (e.getMessage().equals("Invalid API credentials")) {
-                ErrorResponse errorResponse = new ErrorResponse("AUTHENTICATION_ERROR", e.getMessage());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-            }
             // Handle not found errors
-            else if (e.getMessage().equals("Payment not found")) {
+            if (e.getMessage().equals("Payment not found")) {
                 ErrorResponse errorResponse = new ErrorResponse("NOT_FOUND_ERROR", e.getMessage());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
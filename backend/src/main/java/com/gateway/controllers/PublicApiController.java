@@ -2,19 +2,21 @@ package com.gateway.controllers;
 
 import com.gateway.dto.CreatePaymentRequest;
 import com.gateway.dto.CreatePaymentResponse;
-import com.gateway.models.Merchant;
 import com.gateway.models.Order;
-import com.gateway.models.Payment;
-import com.gateway.repositories.MerchantRepository;
 import com.gateway.repositories.OrderRepository;
-import com.gateway.repositories.PaymentRepository;
+import com.gateway.services.PaymentEventStreamService;
+import com.gateway.services.PaymentProcessor;
 import com.gateway.services.PaymentService;
+import com.gateway.services.PublicViewService;
+import com.gateway.services.ReadYourWritesGuard;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -27,49 +29,35 @@ public class PublicApiController {
     private OrderRepository orderRepository;
 
     @Autowired
-    private PaymentRepository paymentRepository;
+    private PublicViewService publicViewService;
 
     @Autowired
-    private MerchantRepository merchantRepository;
+    private ReadYourWritesGuard readYourWritesGuard;
 
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentEventStreamService paymentEventStreamService;
+
     @GetMapping("/orders/{orderId}/public")
     public ResponseEntity<?> getPublicOrder(@PathVariable("orderId") String orderId) {
-        // Find order by ID
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (!orderOpt.isPresent()) {
+        // Served from the public view cache; only a miss reads the order and checks its merchant
+        Optional<Map<String, Object>> view = publicViewService.getOrderView(orderId);
+        if (!view.isPresent()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Order not found"));
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
 
-        Order order = orderOpt.get();
-
-        // Verify that the order belongs to a valid merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findById(order.getMerchantId());
-        if (!merchantOpt.isPresent()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Order not found"));
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
-        }
-
-        // Create public response with only basic info
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", order.getId());
-        response.put("amount", order.getAmount());
-        response.put("currency", order.getCurrency());
-        response.put("status", order.getStatus());
-        response.put("created_at", order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(view.get());
     }
 
     @PostMapping("/payments/public")
     public ResponseEntity<?> createPublicPayment(@RequestBody CreatePaymentRequest request) {
         // Find order by ID
-        Optional<Order> orderOpt = orderRepository.findById(request.getOrderId());
+        Optional<Order> orderOpt = readYourWritesGuard.read(request.getOrderId(),
+            () -> orderRepository.findById(request.getOrderId()));
         if (!orderOpt.isPresent()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Order not found"));
@@ -79,8 +67,7 @@ public class PublicApiController {
         Order order = orderOpt.get();
 
         // Verify that the order belongs to a valid merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findById(order.getMerchantId());
-        if (!merchantOpt.isPresent()) {
+        if (!publicViewService.merchantExists(order.getMerchantId())) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Order not found"));
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
@@ -88,14 +75,19 @@ public class PublicApiController {
 
         // Create payment using the existing payment service
         try {
-            CreatePaymentResponse response = paymentService.createPayment(
-                merchantOpt.get().getApiKey(), 
-                merchantOpt.get().getApiSecret(), 
-                request
-            );
+            CreatePaymentResponse response = paymentService.createPayment(order.getMerchantId(), request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (RuntimeException e) {
             Map<String, Object> error = new HashMap<>();
+            if (PaymentService.ORDER_PAID_MESSAGE.equals(e.getMessage()) ||
+                PaymentService.PAYMENT_IN_PROGRESS_MESSAGE.equals(e.getMessage())) {
+                error.put("error", Map.of("code", "CONFLICT_ERROR", "description", e.getMessage()));
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+            }
+            if (PaymentProcessor.QUEUE_FULL_MESSAGE.equals(e.getMessage())) {
+                error.put("error", Map.of("code", "TOO_MANY_REQUESTS_ERROR", "description", e.getMessage()));
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
+            }
             error.put("error", Map.of("code", "BAD_REQUEST_ERROR", "description", e.getMessage()));
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
@@ -103,37 +95,27 @@ public class PublicApiController {
     
     @GetMapping("/payments/{paymentId}/public")
     public ResponseEntity<?> getPublicPayment(@PathVariable("paymentId") String paymentId) {
-        // Find payment by ID
-        Optional<Payment> paymentOpt = paymentRepository.findById(paymentId);
-        if (!paymentOpt.isPresent()) {
+        // Served from the public view cache; only a miss reads the payment and checks its merchant
+        Optional<Map<String, Object>> view = publicViewService.getPaymentView(paymentId);
+        if (!view.isPresent()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Payment not found"));
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
 
-        Payment payment = paymentOpt.get();
-
-        // Verify that the payment belongs to a valid merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findById(payment.getMerchantId());
-        if (!merchantOpt.isPresent()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", Map.of("code", "NOT_FOUND_ERROR", "description", "Payment not found"));
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
-        }
+        return ResponseEntity.ok(view.get());
+    }
 
-        // Create public response with only basic info
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", payment.getId());
-        response.put("order_id", payment.getOrderId());
-        response.put("amount", payment.getAmount());
-        response.put("currency", payment.getCurrency());
-        response.put("method", payment.getMethod());
-        response.put("status", payment.getStatus());
-        response.put("error_code", payment.getErrorCode());
-        response.put("error_description", payment.getErrorDescription());
-        response.put("created_at", payment.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        response.put("updated_at", payment.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-
-        return ResponseEntity.ok(response);
+    // Server-Sent Events replacement for polling the endpoint above: a "status" event with the current
+    // status, then one with the final status, after which the stream ends. 404 if there is no payment.
+    @GetMapping(value = "/payments/{paymentId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getPaymentEvents(@PathVariable("paymentId") String paymentId) {
+        return paymentEventStreamService.open(paymentId)
+            .map(emitter -> ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                // Stops nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
-}
\ No newline at end of file
+}
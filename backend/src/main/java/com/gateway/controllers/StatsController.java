@@ -0,0 +1,35 @@
+package com.gateway.controllers;
+
+import com.gateway.config.ApiKeyAuthenticationInterceptor;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.dto.StatsResponse;
+import com.gateway.services.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class StatsController {
+
+    @Autowired
+    private StatsService statsService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "days", required = false) Integer days) {
+
+        try {
+            StatsResponse response = statsService.getStats(merchantId, days);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            // Handle validation errors
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.gateway.controllers;
+
+import com.gateway.config.ApiKeyAuthenticationInterceptor;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.dto.WebhookEventResponse;
+import com.gateway.services.WebhookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class WebhookController {
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @GetMapping("/webhooks/events")
+    public ResponseEntity<?> getEvents(
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        try {
+            List<WebhookEventResponse> events = webhookService.getEvents(merchantId, status, limit);
+            return ResponseEntity.ok(events);
+        } catch (RuntimeException e) {
+            // Handle validation errors
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
+    @PostMapping("/webhooks/events/{eventId}/retry")
+    public ResponseEntity<?> retryEvent(
+            @RequestAttribute(ApiKeyAuthenticationInterceptor.MERCHANT_ID_ATTRIBUTE) UUID merchantId,
+            @PathVariable("eventId") String eventId) {
+
+        try {
+            WebhookEventResponse response = webhookService.retryEvent(merchantId, eventId);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            if (WebhookService.EVENT_NOT_FOUND_MESSAGE.equals(e.getMessage())) {
+                ErrorResponse errorResponse = new ErrorResponse("NOT_FOUND_ERROR", e.getMessage());
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            }
+            if (WebhookService.EVENT_PENDING_MESSAGE.equals(e.getMessage())) {
+                ErrorResponse errorResponse = new ErrorResponse("CONFLICT_ERROR", e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+            }
+            ErrorResponse errorResponse = new ErrorResponse("BAD_REQUEST_ERROR", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.gateway.dto;
+
+import java.util.List;
+
+public class CreateOrderBatchRequest {
+    private List<CreateOrderRequest> orders;
+
+    // Getters and Setters
+    public List<CreateOrderRequest> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<CreateOrderRequest> orders) {
+        this.orders = orders;
+    }
+}
@@ -0,0 +1,72 @@
+package com.gateway.dto;
+
+import java.util.List;
+
+public class CreateOrderBatchResponse {
+    private int created;
+    private int failed;
+    private List<Item> items;
+
+    // One result per submitted order, in request order: the created order or the reason it was rejected
+    public static class Item {
+        private int index;
+        private CreateOrderResponse order;
+        private ErrorResponse.ErrorDetails error;
+
+        public Item(int index, CreateOrderResponse order, ErrorResponse.ErrorDetails error) {
+            this.index = index;
+            this.order = order;
+            this.error = error;
+        }
+
+        // Getters and Setters
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public CreateOrderResponse getOrder() {
+            return order;
+        }
+
+        public void setOrder(CreateOrderResponse order) {
+            this.order = order;
+        }
+
+        public ErrorResponse.ErrorDetails getError() {
+            return error;
+        }
+
+        public void setError(ErrorResponse.ErrorDetails error) {
+            this.error = error;
+        }
+    }
+
+    // Getters and Setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+}
@@ -1,6 +1,11 @@
 package com.gateway.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gateway.utils.ApiTimestamps;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 public class GetOrderResponse {
     private String id;
@@ -15,6 +20,28 @@ public class GetOrderResponse {
     private String createdAt;
     @JsonProperty("updated_at")
     private String updatedAt;
+    // Unformatted created_at, kept for the next page cursor
+    @JsonIgnore
+    private LocalDateTime createdAtTimestamp;
+
+    public GetOrderResponse() {
+    }
+
+    // Constructor projection for the order read queries, which select these columns straight into the
+    // response instead of loading Order entities
+    public GetOrderResponse(String id, UUID merchantId, Integer amount, String currency, String receipt,
+                            String notes, String status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.merchantId = merchantId.toString();
+        this.amount = amount;
+        this.currency = currency;
+        this.receipt = receipt;
+        this.notes = notes;
+        this.status = status;
+        this.createdAt = ApiTimestamps.format(createdAt);
+        this.updatedAt = ApiTimestamps.format(updatedAt);
+        this.createdAtTimestamp = createdAt;
+    }
 
     // Getters and Setters
     public String getId() {
@@ -88,4 +115,8 @@ public class GetOrderResponse {
     public void setUpdatedAt(String updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public LocalDateTime getCreatedAtTimestamp() {
+        return createdAtTimestamp;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.gateway.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gateway.utils.ApiTimestamps;
+
+import java.time.LocalDateTime;
 
 public class GetPaymentResponse {
     private String id;
@@ -23,6 +27,38 @@ public class GetPaymentResponse {
     private String createdAt;
     @JsonProperty("updated_at")
     private String updatedAt;
+    // Unformatted created_at, kept for the next page cursor
+    @JsonIgnore
+    private LocalDateTime createdAtTimestamp;
+
+    public GetPaymentResponse() {
+    }
+
+    // Constructor projection for the payment read queries, which select these columns straight into
+    // the response instead of loading Payment entities
+    public GetPaymentResponse(String id, String orderId, Integer amount, String currency, String method,
+                              String vpa, String cardNetwork, String cardLast4, String status, String errorCode,
+                              String errorDescription, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.orderId = orderId;
+        this.amount = amount;
+        this.currency = currency;
+        this.method = method;
+        this.status = status;
+        this.errorCode = errorCode;
+        this.errorDescription = errorDescription;
+        this.createdAt = ApiTimestamps.format(createdAt);
+        this.updatedAt = ApiTimestamps.format(updatedAt);
+        this.createdAtTimestamp = createdAt;
+
+        // Only the details of the payment's own method are returned
+        if ("upi".equals(method)) {
+            this.vpa = vpa;
+        } else if ("card".equals(method)) {
+            this.cardNetwork = cardNetwork;
+            this.cardLast4 = cardLast4;
+        }
+    }
 
     // Getters and Setters
     public String getId() {
@@ -128,4 +164,8 @@ public class GetPaymentResponse {
     public void setUpdatedAt(String updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public LocalDateTime getCreatedAtTimestamp() {
+        return createdAtTimestamp;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.gateway.dto;
+
+import com.gateway.utils.CursorCodec;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Query parameters accepted by the list endpoints. Results are ordered newest first and paged
+// with a keyset cursor on (created_at, id); "from" is inclusive and "to" is exclusive.
+public class ListFilter {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private int limit = DEFAULT_LIMIT;
+    private CursorCodec.Cursor cursor;
+    private String status;
+    private String method;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    public static ListFilter fromParams(Integer limit, String cursor, String status, String method,
+                                        String from, String to) {
+        ListFilter filter = new ListFilter();
+
+        if (limit != null) {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new RuntimeException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            filter.limit = limit;
+        }
+
+        if (cursor != null && !cursor.isEmpty()) {
+            filter.cursor = CursorCodec.decode(cursor);
+        }
+
+        filter.status = status;
+        filter.method = method;
+        filter.from = parseDateTime("from", from);
+        filter.to = parseDateTime("to", to);
+        return filter;
+    }
+
+    private static LocalDateTime parseDateTime(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid " + name + " date, expected yyyy-MM-dd'T'HH:mm:ss");
+        }
+    }
+
+    // Getters
+    public int getLimit() {
+        return limit;
+    }
+
+    public CursorCodec.Cursor getCursor() {
+        return cursor;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+}
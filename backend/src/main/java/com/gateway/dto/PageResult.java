@@ -0,0 +1,22 @@
+package com.gateway.dto;
+
+import java.util.List;
+
+public class PageResult<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public PageResult(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
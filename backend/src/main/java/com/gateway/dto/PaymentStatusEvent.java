@@ -0,0 +1,54 @@
+package com.gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class PaymentStatusEvent {
+    private String id;
+    private String status;
+    @JsonProperty("error_code")
+    private String errorCode;
+    @JsonProperty("error_description")
+    private String errorDescription;
+
+    public PaymentStatusEvent() {}
+
+    public PaymentStatusEvent(String id, String status, String errorCode, String errorDescription) {
+        this.id = id;
+        this.status = status;
+        this.errorCode = errorCode;
+        this.errorDescription = errorDescription;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorDescription() {
+        return errorDescription;
+    }
+
+    public void setErrorDescription(String errorDescription) {
+        this.errorDescription = errorDescription;
+    }
+}
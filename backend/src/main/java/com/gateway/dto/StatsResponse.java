@@ -0,0 +1,126 @@
+package com.gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+public class StatsResponse {
+    @JsonProperty("total_transactions")
+    private long totalTransactions;
+    @JsonProperty("successful_transactions")
+    private long successfulTransactions;
+    @JsonProperty("failed_transactions")
+    private long failedTransactions;
+    @JsonProperty("total_amount")
+    private long totalAmount;
+    @JsonProperty("success_rate")
+    private int successRate;
+    @JsonProperty("by_method")
+    private Map<String, Totals> byMethod;
+    private List<DailyTotals> daily;
+
+    public static class Totals {
+        @JsonProperty("total_transactions")
+        private long totalTransactions;
+        @JsonProperty("successful_transactions")
+        private long successfulTransactions;
+        @JsonProperty("failed_transactions")
+        private long failedTransactions;
+        @JsonProperty("total_amount")
+        private long totalAmount;
+
+        public void add(long total, long successful, long failed, long amount) {
+            totalTransactions += total;
+            successfulTransactions += successful;
+            failedTransactions += failed;
+            totalAmount += amount;
+        }
+
+        // Getters
+        public long getTotalTransactions() {
+            return totalTransactions;
+        }
+
+        public long getSuccessfulTransactions() {
+            return successfulTransactions;
+        }
+
+        public long getFailedTransactions() {
+            return failedTransactions;
+        }
+
+        public long getTotalAmount() {
+            return totalAmount;
+        }
+    }
+
+    public static class DailyTotals extends Totals {
+        private String date;
+
+        public DailyTotals(String date) {
+            this.date = date;
+        }
+
+        public String getDate() {
+            return date;
+        }
+    }
+
+    // Getters and Setters
+    public long getTotalTransactions() {
+        return totalTransactions;
+    }
+
+    public void setTotalTransactions(long totalTransactions) {
+        this.totalTransactions = totalTransactions;
+    }
+
+    public long getSuccessfulTransactions() {
+        return successfulTransactions;
+    }
+
+    public void setSuccessfulTransactions(long successfulTransactions) {
+        this.successfulTransactions = successfulTransactions;
+    }
+
+    public long getFailedTransactions() {
+        return failedTransactions;
+    }
+
+    public void setFailedTransactions(long failedTransactions) {
+        this.failedTransactions = failedTransactions;
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(long totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public int getSuccessRate() {
+        return successRate;
+    }
+
+    public void setSuccessRate(int successRate) {
+        this.successRate = successRate;
+    }
+
+    public Map<String, Totals> getByMethod() {
+        return byMethod;
+    }
+
+    public void setByMethod(Map<String, Totals> byMethod) {
+        this.byMethod = byMethod;
+    }
+
+    public List<DailyTotals> getDaily() {
+        return daily;
+    }
+
+    public void setDaily(List<DailyTotals> daily) {
+        this.daily = daily;
+    }
+}
@@ -0,0 +1,103 @@
+package com.gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class WebhookEventResponse {
+    private String id;
+    @JsonProperty("payment_id")
+    private String paymentId;
+    private String event;
+    private String status;
+    private Integer attempts;
+    @JsonProperty("next_attempt_at")
+    private String nextAttemptAt;
+    @JsonProperty("last_response_code")
+    private Integer lastResponseCode;
+    @JsonProperty("last_error")
+    private String lastError;
+    @JsonProperty("created_at")
+    private String createdAt;
+    @JsonProperty("delivered_at")
+    private String deliveredAt;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(String paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public void setEvent(String event) {
+        this.event = event;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(String nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Integer getLastResponseCode() {
+        return lastResponseCode;
+    }
+
+    public void setLastResponseCode(Integer lastResponseCode) {
+        this.lastResponseCode = lastResponseCode;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public void setDeliveredAt(String deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+}
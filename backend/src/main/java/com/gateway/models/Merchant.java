@@ -3,11 +3,13 @@ package com.gateway.models;
 import jakarta.persistence.*;
 import org.hibernate.annotations.GenericGenerator;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.gateway.services.MerchantCredentialListener;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "merchants")
+@EntityListeners(MerchantCredentialListener.class)
 public class Merchant {
     @Id
     @GeneratedValue(generator = "uuid2")
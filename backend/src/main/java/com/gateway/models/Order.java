@@ -1,6 +1,7 @@
 package com.gateway.models;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -9,7 +10,7 @@ import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "orders")
-public class Order {
+public class Order implements Persistable<String> {
     @Id
     @Column(length = 64)
     private String id;
@@ -50,6 +51,11 @@ public class Order {
         this.amount = amount;
     }
 
+    // Ids are assigned by the application, so without this save() would merge: a SELECT before
+    // every INSERT to find out whether the row exists
+    @Transient
+    private boolean isNew = true;
+
     // Lifecycle callbacks
     @PrePersist
     protected void onCreate() {
@@ -57,6 +63,17 @@ public class Order {
         updatedAt = LocalDateTime.now();
     }
 
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
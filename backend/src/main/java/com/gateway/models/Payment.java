@@ -1,13 +1,14 @@
 package com.gateway.models;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "payments")
-public class Payment {
+public class Payment implements Persistable<String> {
     @Id
     @Column(length = 64)
     private String id;
@@ -45,6 +46,13 @@ public class Payment {
     @Column(name = "error_description", columnDefinition = "TEXT")
     private String errorDescription;
 
+    @Column(name = "process_after")
+    private LocalDateTime processAfter;
+
+    // Maintained by the processing queue; never written through the entity
+    @Column(name = "attempts", insertable = false, updatable = false)
+    private Integer attempts;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime createdAt;
@@ -64,6 +72,11 @@ public class Payment {
         this.method = method;
     }
 
+    // Ids are assigned by the application, so without this save() would merge: a SELECT before
+    // every INSERT to find out whether the row exists
+    @Transient
+    private boolean isNew = true;
+
     // Lifecycle callbacks
     @PrePersist
     protected void onCreate() {
@@ -71,6 +84,17 @@ public class Payment {
         updatedAt = LocalDateTime.now();
     }
 
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
@@ -173,6 +197,18 @@ public class Payment {
         this.errorDescription = errorDescription;
     }
 
+    public LocalDateTime getProcessAfter() {
+        return processAfter;
+    }
+
+    public void setProcessAfter(LocalDateTime processAfter) {
+        this.processAfter = processAfter;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,70 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.GetOrderResponse;
+import com.gateway.dto.GetPaymentResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// Lookups by id in archive.orders and archive.payments, the months moved out of the live tables by
+// PartitionMaintenanceService. Only consulted when the live table has no such row.
+@Repository
+public class ArchiveRepository {
+
+    private static final String FIND_ORDER_SQL =
+        "SELECT id, merchant_id, amount, currency, receipt, CAST(notes AS TEXT) AS notes, status," +
+        "  created_at, updated_at " +
+        "FROM archive.orders WHERE id = ? AND merchant_id = ?";
+
+    private static final String FIND_PAYMENT_SQL =
+        "SELECT id, order_id, amount, currency, method, vpa, card_network, card_last4, status," +
+        "  error_code, error_description, created_at, updated_at " +
+        "FROM archive.payments WHERE id = ? AND merchant_id = ?";
+
+    private static final RowMapper<GetOrderResponse> ORDER_MAPPER = (rs, rowNum) -> new GetOrderResponse(
+        rs.getString("id"),
+        rs.getObject("merchant_id", UUID.class),
+        rs.getInt("amount"),
+        rs.getString("currency"),
+        rs.getString("receipt"),
+        rs.getString("notes"),
+        rs.getString("status"),
+        toLocalDateTime(rs.getTimestamp("created_at")),
+        toLocalDateTime(rs.getTimestamp("updated_at")));
+
+    private static final RowMapper<GetPaymentResponse> PAYMENT_MAPPER = (rs, rowNum) -> new GetPaymentResponse(
+        rs.getString("id"),
+        rs.getString("order_id"),
+        rs.getInt("amount"),
+        rs.getString("currency"),
+        rs.getString("method"),
+        rs.getString("vpa"),
+        rs.getString("card_network"),
+        rs.getString("card_last4"),
+        rs.getString("status"),
+        rs.getString("error_code"),
+        rs.getString("error_description"),
+        toLocalDateTime(rs.getTimestamp("created_at")),
+        toLocalDateTime(rs.getTimestamp("updated_at")));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public Optional<GetOrderResponse> findOrder(String id, UUID merchantId) {
+        return jdbcTemplate.query(FIND_ORDER_SQL, ORDER_MAPPER, id, merchantId).stream().findFirst();
+    }
+
+    public Optional<GetPaymentResponse> findPayment(String id, UUID merchantId) {
+        return jdbcTemplate.query(FIND_PAYMENT_SQL, PAYMENT_MAPPER, id, merchantId).stream().findFirst();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
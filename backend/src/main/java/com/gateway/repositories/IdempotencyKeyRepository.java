@@ -0,0 +1,144 @@
+package com.gateway.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Persistent side of the idempotency store. A key is claimed by inserting a row without a response;
+// the response is filled in once the original request completes.
+@Repository
+public class IdempotencyKeyRepository {
+
+    // Takes over rows that have expired, or whose original request stopped renewing its lease. Rows claimed
+    // before leases were added fall back to their creation time.
+    private static final String CLAIM_SQL =
+        "INSERT INTO idempotency_keys (merchant_id, idempotency_key, request_hash, created_at, expires_at," +
+        "  lease_owner, lease_expires_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (merchant_id, idempotency_key) DO UPDATE SET " +
+        "  request_hash = EXCLUDED.request_hash, status_code = NULL, response_body = NULL," +
+        "  created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at," +
+        "  lease_owner = EXCLUDED.lease_owner, lease_expires_at = EXCLUDED.lease_expires_at " +
+        "WHERE idempotency_keys.expires_at < EXCLUDED.created_at" +
+        "  OR (idempotency_keys.status_code IS NULL AND idempotency_keys.lease_expires_at < EXCLUDED.created_at)" +
+        "  OR (idempotency_keys.status_code IS NULL AND idempotency_keys.lease_expires_at IS NULL" +
+        "      AND idempotency_keys.created_at < ?)";
+
+    private static final String FIND_SQL =
+        "SELECT request_hash, status_code, response_body, expires_at FROM idempotency_keys " +
+        "WHERE merchant_id = ? AND idempotency_key = ?";
+
+    private static final String COMPLETE_SQL =
+        "UPDATE idempotency_keys SET status_code = ?, response_body = ? " +
+        "WHERE merchant_id = ? AND idempotency_key = ? AND status_code IS NULL AND lease_owner = ?";
+
+    private static final String RELEASE_SQL =
+        "DELETE FROM idempotency_keys " +
+        "WHERE merchant_id = ? AND idempotency_key = ? AND status_code IS NULL AND lease_owner = ?";
+
+    private static final String RENEW_SQL =
+        "UPDATE idempotency_keys SET lease_expires_at = ? " +
+        "WHERE merchant_id = ? AND idempotency_key = ? AND status_code IS NULL AND lease_owner = ?";
+
+    private static final String PURGE_SQL = "DELETE FROM idempotency_keys WHERE expires_at < ?";
+
+    private static final RowMapper<StoredKey> STORED_KEY_MAPPER = (rs, rowNum) -> new StoredKey(
+        rs.getString("request_hash"),
+        (Integer) rs.getObject("status_code"),
+        rs.getString("response_body"),
+        rs.getTimestamp("expires_at").toLocalDateTime());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public boolean claim(UUID merchantId, String key, String requestHash, String owner, LocalDateTime now,
+                         LocalDateTime expiresAt, LocalDateTime leaseExpiresAt, LocalDateTime abandonedBefore) {
+        return jdbcTemplate.update(CLAIM_SQL, merchantId, key, requestHash, Timestamp.valueOf(now),
+            Timestamp.valueOf(expiresAt), owner, Timestamp.valueOf(leaseExpiresAt),
+            Timestamp.valueOf(abandonedBefore)) == 1;
+    }
+
+    public Optional<StoredKey> find(UUID merchantId, String key) {
+        List<StoredKey> keys = jdbcTemplate.query(FIND_SQL, STORED_KEY_MAPPER, merchantId, key);
+        return keys.stream().findFirst();
+    }
+
+    // False when the lease was lost and another request has taken the key over
+    public boolean complete(UUID merchantId, String key, String owner, int statusCode, String responseBody) {
+        return jdbcTemplate.update(COMPLETE_SQL, statusCode, responseBody, merchantId, key, owner) == 1;
+    }
+
+    public void release(UUID merchantId, String key, String owner) {
+        jdbcTemplate.update(RELEASE_SQL, merchantId, key, owner);
+    }
+
+    // Extends the leases of the given keys that are still held by owner
+    public void renew(String owner, List<LeasedKey> keys, LocalDateTime leaseExpiresAt) {
+        jdbcTemplate.batchUpdate(RENEW_SQL, keys, keys.size(), (ps, leased) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(leaseExpiresAt));
+            ps.setObject(2, leased.getMerchantId());
+            ps.setString(3, leased.getKey());
+            ps.setString(4, owner);
+        });
+    }
+
+    public int purgeExpired(LocalDateTime now) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(now));
+    }
+
+    public static class StoredKey {
+        private final String requestHash;
+        private final Integer statusCode;
+        private final String responseBody;
+        private final LocalDateTime expiresAt;
+
+        public StoredKey(String requestHash, Integer statusCode, String responseBody, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.statusCode = statusCode;
+            this.responseBody = responseBody;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getRequestHash() {
+            return requestHash;
+        }
+
+        // Null while the original request is still in progress
+        public Integer getStatusCode() {
+            return statusCode;
+        }
+
+        public String getResponseBody() {
+            return responseBody;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    public static class LeasedKey {
+        private final UUID merchantId;
+        private final String key;
+
+        public LeasedKey(UUID merchantId, String key) {
+            this.merchantId = merchantId;
+            this.key = key;
+        }
+
+        public UUID getMerchantId() {
+            return merchantId;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+}
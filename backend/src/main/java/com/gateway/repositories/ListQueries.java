@@ -0,0 +1,79 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.ListFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Builds the keyset-paginated list query shared by orders and payments. Rows are returned newest
+// first on (createdAt, id), so a page is a bounded range scan of the (merchant_id, created_at, id)
+// indexes no matter how much history the merchant has. Rows are selected straight into the response
+// type through its constructor, so no entities are loaded into the persistence context.
+class ListQueries {
+
+    static <T> List<T> findPage(EntityManager entityManager, Class<?> entityType, Class<T> resultType,
+                                String[] attributes, UUID merchantId, ListFilter filter, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(resultType);
+        Root<?> root = query.from(entityType);
+
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<String> id = root.get("id");
+
+        List<Predicate> predicates = filterPredicates(cb, root, merchantId, filter);
+
+        if (filter.getCursor() != null) {
+            LocalDateTime cursorCreatedAt = filter.getCursor().getCreatedAt();
+            predicates.add(cb.or(
+                cb.lessThan(createdAt, cursorCreatedAt),
+                cb.and(cb.equal(createdAt, cursorCreatedAt), cb.lessThan(id, filter.getCursor().getId()))));
+        }
+
+        query.select(construct(cb, root, resultType, attributes))
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(maxResults)
+            .getResultList();
+    }
+
+    // Selects the given attributes, in constructor parameter order, into a new resultType
+    static <T> CompoundSelection<T> construct(CriteriaBuilder cb, Root<?> root, Class<T> resultType, String[] attributes) {
+        Selection<?>[] selections = new Selection<?>[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            selections[i] = root.get(attributes[i]);
+        }
+        return cb.construct(resultType, selections);
+    }
+
+    // Merchant, status, method and created_at range restrictions; the cursor is applied by callers
+    static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<?> root, UUID merchantId, ListFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("merchantId"), merchantId));
+
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+        }
+        if (filter.getMethod() != null) {
+            predicates.add(cb.equal(root.get("method"), filter.getMethod()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(root.get("createdAt"), filter.getTo()));
+        }
+        return predicates;
+    }
+}
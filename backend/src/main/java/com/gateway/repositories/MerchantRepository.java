@@ -9,5 +9,6 @@ import java.util.UUID;
 @Repository
 public interface MerchantRepository extends JpaRepository<Merchant, UUID> {
     Optional<Merchant> findByApiKeyAndApiSecret(String apiKey, String apiSecret);
+    Optional<Merchant> findByApiKey(String apiKey);
     Optional<Merchant> findByEmail(String email);
 }
\ No newline at end of file
@@ -2,13 +2,38 @@ package com.gateway.repositories;
 
 import com.gateway.models.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, String> {
+public interface OrderRepository extends JpaRepository<Order, String>, OrderRepositoryCustom {
     Optional<Order> findByIdAndMerchantId(String id, UUID merchantId);
     List<Order> findByMerchantId(UUID merchantId);
+
+    // Selects only the columns of the public checkout view (see PublicViewService)
+    @Transactional(readOnly = true)
+    Optional<PublicOrderView> findPublicViewById(String id);
+
+    // Compare-and-set on the order status; returns 0 when the order is no longer in the expected state
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :toStatus, o.updatedAt = :now WHERE o.id = :id AND o.status = :fromStatus")
+    int transitionStatus(@Param("id") String id, @Param("fromStatus") String fromStatus,
+                         @Param("toStatus") String toStatus, @Param("now") LocalDateTime now);
+
+    interface PublicOrderView {
+        String getId();
+        UUID getMerchantId();
+        Integer getAmount();
+        String getCurrency();
+        String getStatus();
+        LocalDateTime getCreatedAt();
+    }
 }
\ No newline at end of file
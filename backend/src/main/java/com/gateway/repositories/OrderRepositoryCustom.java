@@ -0,0 +1,14 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.GetOrderResponse;
+import com.gateway.dto.ListFilter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OrderRepositoryCustom {
+    Optional<GetOrderResponse> findResponse(String id, UUID merchantId);
+
+    List<GetOrderResponse> findPage(UUID merchantId, ListFilter filter, int maxResults);
+}
@@ -0,0 +1,46 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.GetOrderResponse;
+import com.gateway.dto.ListFilter;
+import com.gateway.models.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    // Order attributes in GetOrderResponse constructor order
+    private static final String[] RESPONSE_ATTRIBUTES = {
+        "id", "merchantId", "amount", "currency", "receipt", "notes", "status", "createdAt", "updatedAt"
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Read-only so that it can be served by a replica
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<GetOrderResponse> findResponse(String id, UUID merchantId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GetOrderResponse> query = cb.createQuery(GetOrderResponse.class);
+        Root<Order> root = query.from(Order.class);
+
+        query.select(ListQueries.construct(cb, root, GetOrderResponse.class, RESPONSE_ATTRIBUTES))
+            .where(cb.equal(root.get("id"), id), cb.equal(root.get("merchantId"), merchantId));
+
+        return entityManager.createQuery(query).getResultList().stream().findFirst();
+    }
+
+    @Override
+    public List<GetOrderResponse> findPage(UUID merchantId, ListFilter filter, int maxResults) {
+        return ListQueries.findPage(entityManager, Order.class, GetOrderResponse.class, RESPONSE_ATTRIBUTES,
+            merchantId, filter, maxResults);
+    }
+}
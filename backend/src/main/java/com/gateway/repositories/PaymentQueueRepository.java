@@ -0,0 +1,244 @@
+package com.gateway.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Work queue over the payments table. Payments in "processing" status are claimed by taking a
+// time-limited lease; row locks are skipped so several instances can drain the queue concurrently.
+// Claims return created_at, the partition key, so later statements on a payment touch only its month.
+@Repository
+public class PaymentQueueRepository {
+
+    private static final String CLAIM_DUE_SQL =
+        "UPDATE payments SET lease_owner = ?, lease_expires_at = ?, attempts = attempts + 1 " +
+        "WHERE (id, created_at) IN (" +
+        "  SELECT id, created_at FROM payments" +
+        "  WHERE status = 'processing' AND process_after <= ?" +
+        "    AND (lease_expires_at IS NULL OR lease_expires_at < ?)" +
+        "  ORDER BY process_after" +
+        "  LIMIT ?" +
+        "  FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, order_id, attempts, method, merchant_id, created_at";
+
+    private static final String CLAIM_ONE_SQL =
+        "UPDATE payments SET lease_owner = ?, lease_expires_at = ?, attempts = attempts + 1 " +
+        "WHERE id = (" +
+        "  SELECT id FROM payments" +
+        "  WHERE id = ? AND status = 'processing'" +
+        "    AND (lease_expires_at IS NULL OR lease_expires_at < ?)" +
+        "  FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, order_id, attempts, method, merchant_id, created_at";
+
+    // Finalizes the payment, settles its order (paid on success, back to created on failure so the
+    // customer can retry), folds it into the payment_stats and payment_totals rollups and queues the
+    // merchant's webhook event in one statement, so orders, the rollups and the webhook outbox can
+    // never drift from the payments they reflect
+    private static final String COMPLETE_SQL =
+        "WITH completed AS (" +
+        "  UPDATE payments SET status = ?, error_code = ?, error_description = ?," +
+        "    lease_owner = NULL, lease_expires_at = NULL, updated_at = ?" +
+        "  WHERE id = ? AND created_at = ? AND status = 'processing' AND lease_owner = ?" +
+        "  RETURNING id, order_id, merchant_id, amount, currency, method, vpa, card_network, card_last4, status," +
+        "    error_code, error_description, created_at, updated_at, CAST(created_at AS DATE) AS day), " +
+        "settled AS (" +
+        "  UPDATE orders o SET status = CASE WHEN c.status = 'success' THEN 'paid' ELSE 'created' END," +
+        "    updated_at = c.updated_at" +
+        "  FROM completed c WHERE o.id = c.order_id AND o.status = 'attempted'), " +
+        "queued AS (" +
+        "  INSERT INTO webhook_events (id, merchant_id, payment_id, event, payload, next_attempt_at, created_at)" +
+        "  SELECT e.id, c.merchant_id, c.id, e.event," +
+        "    CAST(json_build_object('id', e.id, 'event', e.event, 'created_at', e.created_at," +
+        "      'data', json_build_object('payment', json_build_object(" +
+        "        'id', c.id, 'order_id', c.order_id, 'amount', c.amount, 'currency', c.currency," +
+        "        'method', c.method, 'vpa', c.vpa, 'card_network', c.card_network, 'card_last4', c.card_last4," +
+        "        'status', c.status, 'error_code', c.error_code, 'error_description', c.error_description," +
+        "        'created_at', to_char(c.created_at, 'YYYY-MM-DD\"T\"HH24:MI:SS'), 'updated_at', e.created_at)))" +
+        "      AS TEXT)," +
+        "    c.updated_at, c.updated_at" +
+        "  FROM completed c JOIN merchants m ON m.id = c.merchant_id" +
+        "  CROSS JOIN LATERAL (SELECT 'evt_' || replace(CAST(uuid_generate_v4() AS TEXT), '-', '') AS id," +
+        "    'payment.' || c.status AS event, to_char(c.updated_at, 'YYYY-MM-DD\"T\"HH24:MI:SS') AS created_at) e" +
+        "  WHERE m.webhook_url IS NOT NULL AND m.webhook_url <> ''), " +
+        "totals AS (" +
+        "  INSERT INTO payment_totals AS t" +
+        "    (merchant_id, method, total_count, success_count, failed_count, success_amount)" +
+        "  SELECT merchant_id, method, 1," +
+        "    CASE WHEN status = 'success' THEN 1 ELSE 0 END," +
+        "    CASE WHEN status = 'failed' THEN 1 ELSE 0 END," +
+        "    CASE WHEN status = 'success' THEN amount ELSE 0 END" +
+        "  FROM completed" +
+        "  ON CONFLICT (merchant_id, method) DO UPDATE SET" +
+        "    total_count = t.total_count + EXCLUDED.total_count," +
+        "    success_count = t.success_count + EXCLUDED.success_count," +
+        "    failed_count = t.failed_count + EXCLUDED.failed_count," +
+        "    success_amount = t.success_amount + EXCLUDED.success_amount) " +
+        "INSERT INTO payment_stats AS s " +
+        "  (merchant_id, day, method, total_count, success_count, failed_count, success_amount) " +
+        "SELECT merchant_id, day, method, 1," +
+        "  CASE WHEN status = 'success' THEN 1 ELSE 0 END," +
+        "  CASE WHEN status = 'failed' THEN 1 ELSE 0 END," +
+        "  CASE WHEN status = 'success' THEN amount ELSE 0 END " +
+        "FROM completed " +
+        "ON CONFLICT (merchant_id, day, method) DO UPDATE SET" +
+        "  total_count = s.total_count + EXCLUDED.total_count," +
+        "  success_count = s.success_count + EXCLUDED.success_count," +
+        "  failed_count = s.failed_count + EXCLUDED.failed_count," +
+        "  success_amount = s.success_amount + EXCLUDED.success_amount";
+
+    // Served from idx_payments_processing_queue, which only holds payments in processing
+    private static final String COUNT_PROCESSING_SQL =
+        "SELECT COUNT(*) FROM payments WHERE status = 'processing'";
+
+    private static final RowMapper<ClaimedPayment> CLAIMED_PAYMENT_MAPPER =
+        (rs, rowNum) -> new ClaimedPayment(rs.getString("id"), rs.getString("order_id"), rs.getInt("attempts"),
+            rs.getString("method"), rs.getObject("merchant_id", UUID.class),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<ClaimedPayment> claimDue(String owner, LocalDateTime now, LocalDateTime leaseExpiresAt, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE_SQL, CLAIMED_PAYMENT_MAPPER,
+            owner, Timestamp.valueOf(leaseExpiresAt), Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+    }
+
+    public List<ClaimedPayment> claim(String paymentId, String owner, LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        return jdbcTemplate.query(CLAIM_ONE_SQL, CLAIMED_PAYMENT_MAPPER,
+            owner, Timestamp.valueOf(leaseExpiresAt), paymentId, Timestamp.valueOf(now));
+    }
+
+    public long countProcessing() {
+        return jdbcTemplate.queryForObject(COUNT_PROCESSING_SQL, Long.class);
+    }
+
+    // Sends every completion in one batch (a single round trip) and reports, per completion, whether
+    // the lease was still held
+    public boolean[] completeAll(List<Completion> completions) {
+        int[] counts = jdbcTemplate.batchUpdate(COMPLETE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Completion completion = completions.get(i);
+                ps.setString(1, completion.getStatus());
+                ps.setString(2, completion.getErrorCode());
+                ps.setString(3, completion.getErrorDescription());
+                ps.setTimestamp(4, Timestamp.valueOf(completion.getCompletedAt()));
+                ps.setString(5, completion.getPaymentId());
+                ps.setTimestamp(6, Timestamp.valueOf(completion.getCreatedAt()));
+                ps.setString(7, completion.getOwner());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return completions.size();
+            }
+        });
+
+        boolean[] completed = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            completed[i] = counts[i] == 1;
+        }
+        return completed;
+    }
+
+    public static class ClaimedPayment {
+        private final String id;
+        private final String orderId;
+        private final int attempts;
+        private final String method;
+        private final UUID merchantId;
+        private final LocalDateTime createdAt;
+
+        public ClaimedPayment(String id, String orderId, int attempts, String method, UUID merchantId,
+                              LocalDateTime createdAt) {
+            this.id = id;
+            this.orderId = orderId;
+            this.attempts = attempts;
+            this.method = method;
+            this.merchantId = merchantId;
+            this.createdAt = createdAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public UUID getMerchantId() {
+            return merchantId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    public static class Completion {
+        private final String paymentId;
+        private final LocalDateTime createdAt;
+        private final String owner;
+        private final String status;
+        private final String errorCode;
+        private final String errorDescription;
+        private final LocalDateTime completedAt;
+
+        public Completion(String paymentId, LocalDateTime createdAt, String owner, String status,
+                          String errorCode, String errorDescription, LocalDateTime completedAt) {
+            this.paymentId = paymentId;
+            this.createdAt = createdAt;
+            this.owner = owner;
+            this.status = status;
+            this.errorCode = errorCode;
+            this.errorDescription = errorDescription;
+            this.completedAt = completedAt;
+        }
+
+        public String getPaymentId() {
+            return paymentId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        public String getErrorDescription() {
+            return errorDescription;
+        }
+
+        public LocalDateTime getCompletedAt() {
+            return completedAt;
+        }
+    }
+}
@@ -3,14 +3,34 @@ package com.gateway.repositories;
 import com.gateway.models.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, String> {
+public interface PaymentRepository extends JpaRepository<Payment, String>, PaymentRepositoryCustom {
     Optional<Payment> findByIdAndMerchantId(String id, UUID merchantId);
     List<Payment> findByOrderId(String orderId);
     List<Payment> findByMerchantId(UUID merchantId);
     List<Payment> findByStatus(String status);
+
+    // Selects only the columns of the public checkout view (see PublicViewService)
+    @Transactional(readOnly = true)
+    Optional<PublicPaymentView> findPublicViewById(String id);
+
+    interface PublicPaymentView {
+        String getId();
+        String getOrderId();
+        UUID getMerchantId();
+        Integer getAmount();
+        String getCurrency();
+        String getMethod();
+        String getStatus();
+        String getErrorCode();
+        String getErrorDescription();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
 }
\ No newline at end of file
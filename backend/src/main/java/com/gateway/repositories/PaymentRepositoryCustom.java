@@ -0,0 +1,18 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.GetPaymentResponse;
+import com.gateway.dto.ListFilter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface PaymentRepositoryCustom {
+    Optional<GetPaymentResponse> findResponse(String id, UUID merchantId);
+
+    List<GetPaymentResponse> findPage(UUID merchantId, ListFilter filter, int maxResults);
+
+    // Must be consumed inside a read-only transaction so the driver can use a server-side cursor
+    Stream<GetPaymentResponse> streamForExport(UUID merchantId, ListFilter filter, int fetchSize);
+}
@@ -0,0 +1,68 @@
+package com.gateway.repositories;
+
+import com.gateway.dto.GetPaymentResponse;
+import com.gateway.dto.ListFilter;
+import com.gateway.models.Payment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    // Payment attributes in GetPaymentResponse constructor order
+    private static final String[] RESPONSE_ATTRIBUTES = {
+        "id", "orderId", "amount", "currency", "method", "vpa", "cardNetwork", "cardLast4", "status",
+        "errorCode", "errorDescription", "createdAt", "updatedAt"
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Read-only so that it can be served by a replica
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<GetPaymentResponse> findResponse(String id, UUID merchantId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GetPaymentResponse> query = cb.createQuery(GetPaymentResponse.class);
+        Root<Payment> root = query.from(Payment.class);
+
+        query.select(ListQueries.construct(cb, root, GetPaymentResponse.class, RESPONSE_ATTRIBUTES))
+            .where(cb.equal(root.get("id"), id), cb.equal(root.get("merchantId"), merchantId));
+
+        return entityManager.createQuery(query).getResultList().stream().findFirst();
+    }
+
+    @Override
+    public List<GetPaymentResponse> findPage(UUID merchantId, ListFilter filter, int maxResults) {
+        return ListQueries.findPage(entityManager, Payment.class, GetPaymentResponse.class, RESPONSE_ATTRIBUTES,
+            merchantId, filter, maxResults);
+    }
+
+    @Override
+    public Stream<GetPaymentResponse> streamForExport(UUID merchantId, ListFilter filter, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GetPaymentResponse> query = cb.createQuery(GetPaymentResponse.class);
+        Root<Payment> root = query.from(Payment.class);
+
+        List<Predicate> predicates = ListQueries.filterPredicates(cb, root, merchantId, filter);
+
+        query.select(ListQueries.construct(cb, root, GetPaymentResponse.class, RESPONSE_ATTRIBUTES))
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
+
+        // Rows are projections rather than entities, so the persistence context does not grow with the export
+        return entityManager.createQuery(query)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .getResultStream();
+    }
+}
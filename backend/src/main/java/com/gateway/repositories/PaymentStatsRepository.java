@@ -0,0 +1,102 @@
+package com.gateway.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+// Reads a merchant's statistics in one round trip: all-time totals per method from payment_totals,
+// the most recent days from the payment_stats rollup (one row per day and method), and payments still
+// in processing, which neither rollup counts until they are finalized. The cost depends on the days
+// requested, not on how long the merchant has been active.
+@Repository
+public class PaymentStatsRepository {
+
+    public static final String TOTAL = "total";
+    public static final String DAILY = "daily";
+    public static final String PROCESSING = "processing";
+
+    // Processing payments are found through idx_payments_merchant_processing
+    private static final String FIND_BY_MERCHANT_SQL =
+        "SELECT 'total' AS kind, CAST(NULL AS DATE) AS day, method, total_count, success_count, failed_count," +
+        "  success_amount " +
+        "FROM payment_totals WHERE merchant_id = ? " +
+        "UNION ALL " +
+        "SELECT 'daily', day, method, total_count, success_count, failed_count, success_amount " +
+        "FROM payment_stats WHERE merchant_id = ? AND day >= ? " +
+        "UNION ALL " +
+        "SELECT 'processing', CAST(created_at AS DATE), method, COUNT(*), 0, 0, 0 " +
+        "FROM payments WHERE merchant_id = ? AND status = 'processing' " +
+        "GROUP BY CAST(created_at AS DATE), method";
+
+    private static final RowMapper<StatsRow> STATS_ROW_MAPPER = (rs, rowNum) -> new StatsRow(
+        rs.getString("kind"),
+        rs.getObject("day", LocalDate.class),
+        rs.getString("method"),
+        rs.getLong("total_count"),
+        rs.getLong("success_count"),
+        rs.getLong("failed_count"),
+        rs.getLong("success_amount"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<StatsRow> findByMerchantId(UUID merchantId, LocalDate since) {
+        return jdbcTemplate.query(FIND_BY_MERCHANT_SQL, STATS_ROW_MAPPER, merchantId, merchantId, since, merchantId);
+    }
+
+    public static class StatsRow {
+        private final String kind;
+        private final LocalDate day;
+        private final String method;
+        private final long totalCount;
+        private final long successCount;
+        private final long failedCount;
+        private final long successAmount;
+
+        public StatsRow(String kind, LocalDate day, String method, long totalCount, long successCount,
+                        long failedCount, long successAmount) {
+            this.kind = kind;
+            this.day = day;
+            this.method = method;
+            this.totalCount = totalCount;
+            this.successCount = successCount;
+            this.failedCount = failedCount;
+            this.successAmount = successAmount;
+        }
+
+        // TOTAL, DAILY or PROCESSING
+        public String getKind() {
+            return kind;
+        }
+
+        // Null for TOTAL rows
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getSuccessCount() {
+            return successCount;
+        }
+
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        public long getSuccessAmount() {
+            return successAmount;
+        }
+    }
+}
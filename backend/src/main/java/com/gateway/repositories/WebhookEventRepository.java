@@ -0,0 +1,285 @@
+package com.gateway.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Outbox of merchant webhook events. Rows are queued by PaymentQueueRepository when a payment is
+// finalized; the dispatcher claims due rows with a time-limited lease, skipping locked rows, so several
+// instances can deliver concurrently and a crashed instance's deliveries are picked up once the lease
+// expires.
+@Repository
+public class WebhookEventRepository {
+
+    // The merchant's URL and secret are read at delivery time, so a changed URL or rotated secret
+    // applies to retries of events queued before the change
+    private static final String CLAIM_DUE_SQL =
+        "UPDATE webhook_events e SET lease_owner = ?, lease_expires_at = ?, attempts = e.attempts + 1 " +
+        "FROM merchants m " +
+        "WHERE m.id = e.merchant_id AND e.id IN (" +
+        "  SELECT id FROM webhook_events" +
+        "  WHERE status = 'pending' AND next_attempt_at <= ?" +
+        "    AND (lease_expires_at IS NULL OR lease_expires_at < ?)" +
+        "  ORDER BY next_attempt_at" +
+        "  LIMIT ?" +
+        "  FOR UPDATE SKIP LOCKED) " +
+        "RETURNING e.id, e.event, e.payload, e.attempts, m.webhook_url, m.api_secret";
+
+    private static final String RECORD_SQL =
+        "UPDATE webhook_events SET status = ?, next_attempt_at = ?, delivered_at = ?," +
+        "  last_response_code = ?, last_error = ?, lease_owner = NULL, lease_expires_at = NULL " +
+        "WHERE id = ? AND status = 'pending' AND lease_owner = ?";
+
+    private static final String LIST_SQL =
+        "SELECT id, payment_id, event, status, attempts, next_attempt_at, last_response_code, last_error," +
+        "  created_at, delivered_at " +
+        "FROM webhook_events WHERE merchant_id = ? ";
+
+    // Delivered and dead events can be sent again; a pending one is already on its way
+    private static final String RETRY_SQL =
+        "UPDATE webhook_events SET status = 'pending', attempts = 0, next_attempt_at = ?, delivered_at = NULL," +
+        "  lease_owner = NULL, lease_expires_at = NULL " +
+        "WHERE id = ? AND merchant_id = ? AND status <> 'pending'";
+
+    private static final String PURGE_SQL =
+        "DELETE FROM webhook_events WHERE status = 'delivered' AND delivered_at < ?";
+
+    private static final RowMapper<ClaimedEvent> CLAIMED_EVENT_MAPPER =
+        (rs, rowNum) -> new ClaimedEvent(rs.getString("id"), rs.getString("event"), rs.getString("payload"),
+            rs.getInt("attempts"), rs.getString("webhook_url"), rs.getString("api_secret"));
+
+    private static final RowMapper<WebhookEvent> WEBHOOK_EVENT_MAPPER = (rs, rowNum) -> {
+        WebhookEvent event = new WebhookEvent();
+        event.id = rs.getString("id");
+        event.paymentId = rs.getString("payment_id");
+        event.event = rs.getString("event");
+        event.status = rs.getString("status");
+        event.attempts = rs.getInt("attempts");
+        event.nextAttemptAt = rs.getTimestamp("next_attempt_at").toLocalDateTime();
+        event.lastResponseCode = (Integer) rs.getObject("last_response_code");
+        event.lastError = rs.getString("last_error");
+        event.createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+        Timestamp deliveredAt = rs.getTimestamp("delivered_at");
+        event.deliveredAt = deliveredAt != null ? deliveredAt.toLocalDateTime() : null;
+        return event;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<ClaimedEvent> claimDue(String owner, LocalDateTime now, LocalDateTime leaseExpiresAt, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE_SQL, CLAIMED_EVENT_MAPPER,
+            owner, Timestamp.valueOf(leaseExpiresAt), Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+    }
+
+    // Writes every outcome in one batch; an outcome whose lease was lost meanwhile changes nothing
+    public void recordAll(List<Attempt> attempts) {
+        jdbcTemplate.batchUpdate(RECORD_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Attempt attempt = attempts.get(i);
+                ps.setString(1, attempt.getStatus());
+                ps.setTimestamp(2, Timestamp.valueOf(attempt.getNextAttemptAt()));
+                if (attempt.getDeliveredAt() != null) {
+                    ps.setTimestamp(3, Timestamp.valueOf(attempt.getDeliveredAt()));
+                } else {
+                    ps.setNull(3, Types.TIMESTAMP);
+                }
+                if (attempt.getResponseCode() != null) {
+                    ps.setInt(4, attempt.getResponseCode());
+                } else {
+                    ps.setNull(4, Types.INTEGER);
+                }
+                ps.setString(5, attempt.getError());
+                ps.setString(6, attempt.getEventId());
+                ps.setString(7, attempt.getOwner());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return attempts.size();
+            }
+        });
+    }
+
+    // Newest first; status is optional
+    public List<WebhookEvent> findByMerchant(UUID merchantId, String status, int limit) {
+        if (status != null) {
+            return jdbcTemplate.query(LIST_SQL + "AND status = ? ORDER BY created_at DESC, id DESC LIMIT ?",
+                WEBHOOK_EVENT_MAPPER, merchantId, status, limit);
+        }
+        return jdbcTemplate.query(LIST_SQL + "ORDER BY created_at DESC, id DESC LIMIT ?",
+            WEBHOOK_EVENT_MAPPER, merchantId, limit);
+    }
+
+    public Optional<WebhookEvent> findById(UUID merchantId, String eventId) {
+        List<WebhookEvent> events = jdbcTemplate.query(LIST_SQL + "AND id = ?",
+            WEBHOOK_EVENT_MAPPER, merchantId, eventId);
+        return events.stream().findFirst();
+    }
+
+    public boolean retry(UUID merchantId, String eventId, LocalDateTime now) {
+        return jdbcTemplate.update(RETRY_SQL, Timestamp.valueOf(now), eventId, merchantId) == 1;
+    }
+
+    public int purgeDelivered(LocalDateTime deliveredBefore) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(deliveredBefore));
+    }
+
+    public static class ClaimedEvent {
+        private final String id;
+        private final String event;
+        private final String payload;
+        private final int attempts;
+        private final String webhookUrl;
+        private final String apiSecret;
+
+        public ClaimedEvent(String id, String event, String payload, int attempts, String webhookUrl,
+                            String apiSecret) {
+            this.id = id;
+            this.event = event;
+            this.payload = payload;
+            this.attempts = attempts;
+            this.webhookUrl = webhookUrl;
+            this.apiSecret = apiSecret;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getEvent() {
+            return event;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getWebhookUrl() {
+            return webhookUrl;
+        }
+
+        public String getApiSecret() {
+            return apiSecret;
+        }
+    }
+
+    // The outcome of one delivery attempt: delivered, pending again with a later next attempt, or dead
+    public static class Attempt {
+        private final String eventId;
+        private final String owner;
+        private final String status;
+        private final LocalDateTime nextAttemptAt;
+        private final LocalDateTime deliveredAt;
+        private final Integer responseCode;
+        private final String error;
+
+        public Attempt(String eventId, String owner, String status, LocalDateTime nextAttemptAt,
+                       LocalDateTime deliveredAt, Integer responseCode, String error) {
+            this.eventId = eventId;
+            this.owner = owner;
+            this.status = status;
+            this.nextAttemptAt = nextAttemptAt;
+            this.deliveredAt = deliveredAt;
+            this.responseCode = responseCode;
+            this.error = error;
+        }
+
+        public String getEventId() {
+            return eventId;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public LocalDateTime getNextAttemptAt() {
+            return nextAttemptAt;
+        }
+
+        public LocalDateTime getDeliveredAt() {
+            return deliveredAt;
+        }
+
+        public Integer getResponseCode() {
+            return responseCode;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    public static class WebhookEvent {
+        private String id;
+        private String paymentId;
+        private String event;
+        private String status;
+        private int attempts;
+        private LocalDateTime nextAttemptAt;
+        private Integer lastResponseCode;
+        private String lastError;
+        private LocalDateTime createdAt;
+        private LocalDateTime deliveredAt;
+
+        public String getId() {
+            return id;
+        }
+
+        public String getPaymentId() {
+            return paymentId;
+        }
+
+        public String getEvent() {
+            return event;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public LocalDateTime getNextAttemptAt() {
+            return nextAttemptAt;
+        }
+
+        public Integer getLastResponseCode() {
+            return lastResponseCode;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getDeliveredAt() {
+            return deliveredAt;
+        }
+    }
+}
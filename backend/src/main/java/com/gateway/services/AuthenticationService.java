@@ -0,0 +1,155 @@
+package com.gateway.services;
+
+import com.gateway.models.Merchant;
+import com.gateway.repositories.MerchantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Resolves API credentials to a merchant id. Active merchants are cached by api_key together with
+// a SHA-256 hash of their secret, so the database is only consulted on a miss or after expiry.
+// Keys that match no active merchant are remembered separately for a few seconds, so repeated
+// requests with a wrong or revoked key do not each cost a database round trip.
+@Service
+public class AuthenticationService {
+
+    public static final String INVALID_CREDENTIALS_MESSAGE = "Invalid API credentials";
+
+    // Cloned per call rather than kept in a ThreadLocal, which would be rebuilt for every request
+    // when each request runs on its own virtual thread
+    private static final MessageDigest SHA_256_PROTOTYPE;
+
+    static {
+        try {
+            SHA_256_PROTOTYPE = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Value("${MERCHANT_CACHE_TTL_SECONDS:60}")
+    private long ttlSeconds;
+
+    @Value("${MERCHANT_CACHE_MAX_SIZE:10000}")
+    private int maxSize;
+
+    @Value("${MERCHANT_CACHE_NEGATIVE_TTL_SECONDS:5}")
+    private long negativeTtlSeconds;
+
+    @Value("${MERCHANT_CACHE_NEGATIVE_MAX_SIZE:10000}")
+    private int negativeMaxSize;
+
+    private final Map<String, CachedCredential> cache = new ConcurrentHashMap<>();
+
+    // Unknown api keys and when they may be looked up again; kept apart from the credentials so a
+    // flood of made-up keys cannot evict real merchants
+    private final Map<String, Long> unknownKeys = new ConcurrentHashMap<>();
+
+    public UUID authenticate(String apiKey, String apiSecret) {
+        if (apiKey == null || apiSecret == null) {
+            throw new RuntimeException(INVALID_CREDENTIALS_MESSAGE);
+        }
+
+        byte[] secretHash = hash(apiSecret);
+        long now = System.nanoTime();
+
+        CachedCredential credential = cache.get(apiKey);
+        if (credential == null || credential.expiresAt - now < 0) {
+            Long retryAt = unknownKeys.get(apiKey);
+            if (retryAt != null && retryAt - now > 0) {
+                throw new RuntimeException(INVALID_CREDENTIALS_MESSAGE);
+            }
+            credential = load(apiKey, now);
+        }
+
+        if (credential == null || !MessageDigest.isEqual(credential.secretHash, secretHash)) {
+            throw new RuntimeException(INVALID_CREDENTIALS_MESSAGE);
+        }
+        return credential.merchantId;
+    }
+
+    public void invalidate(String apiKey) {
+        cache.remove(apiKey);
+        unknownKeys.remove(apiKey);
+    }
+
+    // Drops every entry for the merchant, including ones cached under a key it no longer uses
+    public void invalidateMerchant(UUID merchantId) {
+        cache.values().removeIf(credential -> credential.merchantId.equals(merchantId));
+    }
+
+    private CachedCredential load(String apiKey, long now) {
+        Optional<Merchant> merchantOpt = merchantRepository.findByApiKey(apiKey);
+        if (!merchantOpt.isPresent() || Boolean.FALSE.equals(merchantOpt.get().getIsActive())) {
+            cache.remove(apiKey);
+            rememberUnknown(apiKey, now);
+            return null;
+        }
+        unknownKeys.remove(apiKey);
+
+        Merchant merchant = merchantOpt.get();
+        CachedCredential credential = new CachedCredential(
+            merchant.getId(), hash(merchant.getApiSecret()), now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+
+        if (cache.size() >= maxSize) {
+            evict(now);
+        }
+        cache.put(apiKey, credential);
+        return credential;
+    }
+
+    // Once full, expired keys are dropped; if none have expired the key is simply not remembered
+    private void rememberUnknown(String apiKey, long now) {
+        if (unknownKeys.size() >= negativeMaxSize) {
+            unknownKeys.values().removeIf(retryAt -> retryAt - now <= 0);
+            if (unknownKeys.size() >= negativeMaxSize) {
+                return;
+            }
+        }
+        unknownKeys.put(apiKey, now + TimeUnit.SECONDS.toNanos(negativeTtlSeconds));
+    }
+
+    // Remove expired entries first; if the cache is still full drop arbitrary entries to make room
+    private void evict(long now) {
+        cache.values().removeIf(credential -> credential.expiresAt - now < 0);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static byte[] hash(String secret) {
+        try {
+            MessageDigest digest = (MessageDigest) SHA_256_PROTOTYPE.clone();
+            return digest.digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+
+    private static class CachedCredential {
+        private final UUID merchantId;
+        private final byte[] secretHash;
+        private final long expiresAt;
+
+        private CachedCredential(UUID merchantId, byte[] secretHash, long expiresAt) {
+            this.merchantId = merchantId;
+            this.secretHash = secretHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
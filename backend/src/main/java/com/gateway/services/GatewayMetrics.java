@@ -0,0 +1,112 @@
+package com.gateway.services;
+
+import com.gateway.repositories.PaymentQueueRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Metrics for each stage of order and payment processing, scraped from /actuator/prometheus next to
+// Spring Boot's own http.server.requests, HikariCP pool and JVM metrics. Timers are published with
+// histogram buckets (see application.properties), so percentiles can be aggregated across instances.
+//
+//   gateway.orders.create                  single order creation, by outcome
+//   gateway.orders.batch                   batch order creation, by outcome; .size is orders per batch
+//   gateway.payments.create                payment submission, by method and outcome
+//   gateway.payments.finalized             payment creation to final status, by method and status
+//   gateway.payments.completion.flush      one batched write of payment outcomes, by outcome
+//   gateway.payments.completion.batch      outcomes per batched write
+//   gateway.webhooks.delivery              webhook HTTP delivery, by outcome
+//   gateway.validation.failures            rejected orders and payments, by entity and reason
+//   gateway.payments.in_flight             payments this instance holds a processing slot for
+//   gateway.payments.processing            payments in processing across all instances
+//
+// Tag values are fixed strings; anything request-supplied is mapped onto a known set first.
+@Service
+public class GatewayMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayMetrics.class);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PaymentQueueRepository paymentQueueRepository;
+
+    // Refreshed on a schedule rather than queried on every scrape
+    private final AtomicLong processingPayments = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("gateway.payments.processing", processingPayments, AtomicLong::get).register(registry);
+    }
+
+    public void orderCreated(boolean success, long nanos) {
+        registry.timer("gateway.orders.create", "outcome", outcome(success)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void orderBatchCreated(boolean success, int size, long nanos) {
+        registry.timer("gateway.orders.batch", "outcome", outcome(success)).record(nanos, TimeUnit.NANOSECONDS);
+        registry.summary("gateway.orders.batch.size").record(size);
+    }
+
+    public void paymentCreated(String method, boolean success, long nanos) {
+        registry.timer("gateway.payments.create", "method", method(method), "outcome", outcome(success))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void paymentFinalized(String method, String status, Duration elapsed) {
+        registry.timer("gateway.payments.finalized", "method", method(method), "status", status).record(elapsed);
+    }
+
+    public void completionsFlushed(boolean success, int size, long nanos) {
+        registry.timer("gateway.payments.completion.flush", "outcome", outcome(success))
+            .record(nanos, TimeUnit.NANOSECONDS);
+        registry.summary("gateway.payments.completion.batch").record(size);
+    }
+
+    public void webhookDelivered(boolean success, long nanos) {
+        registry.timer("gateway.webhooks.delivery", "outcome", outcome(success)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void validationFailed(String entity, String reason) {
+        registry.counter("gateway.validation.failures", "entity", entity, "reason", reason).increment();
+    }
+
+    // Counts the validation failure and returns the exception to throw
+    public RuntimeException validationFailure(String entity, String reason, String message) {
+        validationFailed(entity, reason);
+        return new RuntimeException(message);
+    }
+
+    public void inFlightPayments(Supplier<Number> count) {
+        Gauge.builder("gateway.payments.in_flight", count).register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${METRICS_PROCESSING_REFRESH_INTERVAL:15000}")
+    public void refreshProcessingPayments() {
+        try {
+            processingPayments.set(paymentQueueRepository.countProcessing());
+        } catch (RuntimeException e) {
+            // Keeps the last value; the database being down shows up in the HikariCP metrics
+            log.warn("Failed to count processing payments", e);
+        }
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "failure";
+    }
+
+    private static String method(String method) {
+        return "upi".equals(method) || "card".equals(method) ? method : "other";
+    }
+}
@@ -0,0 +1,250 @@
+package com.gateway.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.dto.ErrorResponse;
+import com.gateway.repositories.IdempotencyKeyRepository;
+import com.gateway.repositories.IdempotencyKeyRepository.LeasedKey;
+import com.gateway.repositories.IdempotencyKeyRepository.StoredKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Replays the original response for requests repeated with the same Idempotency-Key. Completed
+// responses live in an in-memory hot store backed by the idempotency_keys table; duplicates that
+// arrive while the original is still running on this instance wait for its outcome. The instance running the
+// original holds a lease on the key that it renews until the response is stored, so a key is only taken over
+// once that instance has stopped, however long the request itself takes.
+@Service
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${IDEMPOTENCY_KEY_TTL_HOURS:24}")
+    private long ttlHours;
+
+    @Value("${IDEMPOTENCY_CACHE_MAX_SIZE:10000}")
+    private int maxSize;
+
+    @Value("${IDEMPOTENCY_WAIT_SECONDS:30}")
+    private long waitSeconds;
+
+    // Renewed every IDEMPOTENCY_LEASE_RENEW_INTERVAL, which must stay well below this
+    @Value("${IDEMPOTENCY_LEASE_SECONDS:30}")
+    private long leaseSeconds;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Map<String, StoredResponse> hotStore = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Keys this instance has claimed and not yet completed or released
+    private final Map<String, LeasedKey> leased = new ConcurrentHashMap<>();
+
+    public ResponseEntity<?> execute(UUID merchantId, String key, String operation, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, "BAD_REQUEST_ERROR",
+                "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String requestHash = fingerprint(operation, request);
+        String storeKey = merchantId + ":" + key;
+        LocalDateTime now = LocalDateTime.now();
+
+        StoredResponse cached = hotStore.get(storeKey);
+        if (cached != null && cached.expiresAt.isAfter(now)) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> outcome = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(storeKey, outcome);
+        if (running != null) {
+            return awaitDuplicate(running, requestHash);
+        }
+
+        StoredResponse stored = null;
+        try {
+            LocalDateTime expiresAt = now.plusHours(ttlHours);
+            if (!idempotencyKeyRepository.claim(merchantId, key, requestHash, owner, now, expiresAt,
+                    now.plusSeconds(leaseSeconds), now.minusSeconds(leaseSeconds))) {
+                // Another instance owns the key: replay its response if it has one
+                Optional<StoredKey> existing = idempotencyKeyRepository.find(merchantId, key);
+                if (existing.isPresent() && existing.get().getStatusCode() != null) {
+                    stored = new StoredResponse(existing.get().getRequestHash(), existing.get().getStatusCode(),
+                        existing.get().getResponseBody(), existing.get().getExpiresAt());
+                    remember(storeKey, stored);
+                    return replay(stored, requestHash);
+                }
+                return inProgress();
+            }
+            leased.put(storeKey, new LeasedKey(merchantId, key));
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                idempotencyKeyRepository.release(merchantId, key, owner);
+                throw e;
+            }
+
+            int statusCode = response.getStatusCode().value();
+            if (isFinal(statusCode)) {
+                String body = objectMapper.writeValueAsString(response.getBody());
+                if (!idempotencyKeyRepository.complete(merchantId, key, owner, statusCode, body)) {
+                    log.warn("Idempotency-Key lease was lost before the response was stored");
+                }
+                stored = new StoredResponse(requestHash, statusCode, body, expiresAt);
+                remember(storeKey, stored);
+            } else {
+                // Transient failures are not recorded, so the client may retry with the same key
+                idempotencyKeyRepository.release(merchantId, key, owner);
+            }
+            return response;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error storing idempotent response", e);
+        } finally {
+            leased.remove(storeKey);
+            outcome.complete(stored);
+            inFlight.remove(storeKey, outcome);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${IDEMPOTENCY_LEASE_RENEW_INTERVAL:10000}")
+    public void renewLeases() {
+        List<LeasedKey> keys = new ArrayList<>(leased.values());
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            idempotencyKeyRepository.renew(owner, keys, LocalDateTime.now().plusSeconds(leaseSeconds));
+        } catch (RuntimeException e) {
+            log.error("Failed to renew idempotency key leases", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${IDEMPOTENCY_PURGE_INTERVAL:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        hotStore.values().removeIf(response -> !response.expiresAt.isAfter(now));
+        try {
+            idempotencyKeyRepository.purgeExpired(now);
+        } catch (RuntimeException e) {
+            log.error("Failed to purge expired idempotency keys", e);
+        }
+    }
+
+    private ResponseEntity<?> awaitDuplicate(CompletableFuture<StoredResponse> running, String requestHash) {
+        try {
+            StoredResponse stored = running.get(waitSeconds, TimeUnit.SECONDS);
+            return stored != null ? replay(stored, requestHash) : inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException | TimeoutException e) {
+            return inProgress();
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY, "BAD_REQUEST_ERROR",
+                "Idempotency-Key was already used with a different request");
+        }
+        return ResponseEntity.status(stored.statusCode)
+            .header(REPLAYED_HEADER, "true")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(stored.body);
+    }
+
+    private ResponseEntity<?> inProgress() {
+        return error(HttpStatus.CONFLICT, "CONFLICT_ERROR",
+            "A request with this Idempotency-Key is still being processed");
+    }
+
+    private ResponseEntity<?> error(HttpStatus status, String code, String description) {
+        return ResponseEntity.status(status).body(new ErrorResponse(code, description));
+    }
+
+    // Success and client errors are replayed; rate limiting and server errors are left retryable. Database
+    // failures reach here as exceptions (see DatabaseErrorHandler), not as 400s, and release the key above.
+    private boolean isFinal(int statusCode) {
+        return statusCode < 500 && statusCode != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void remember(String storeKey, StoredResponse stored) {
+        if (hotStore.size() >= maxSize) {
+            LocalDateTime now = LocalDateTime.now();
+            hotStore.values().removeIf(response -> !response.expiresAt.isAfter(now));
+            Iterator<String> keys = hotStore.keySet().iterator();
+            while (hotStore.size() >= maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        hotStore.put(storeKey, stored);
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new RuntimeException("Error processing Idempotency-Key", e);
+        }
+    }
+
+    private static class StoredResponse {
+        private final String requestHash;
+        private final int statusCode;
+        private final String body;
+        private final LocalDateTime expiresAt;
+
+        private StoredResponse(String requestHash, int statusCode, String body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.statusCode = statusCode;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
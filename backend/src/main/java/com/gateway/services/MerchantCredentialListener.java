@@ -0,0 +1,26 @@
+package com.gateway.services;
+
+import com.gateway.models.Merchant;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// JPA entity listener that keeps the credential cache in step with merchant updates, so key
+// rotation and deactivation take effect immediately rather than after the cache TTL, and a key that
+// was just created or assigned is not rejected from the unknown-key cache
+public class MerchantCredentialListener {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onMerchantChanged(Merchant merchant) {
+        authenticationService.invalidateMerchant(merchant.getId());
+        if (merchant.getApiKey() != null) {
+            authenticationService.invalidate(merchant.getApiKey());
+        }
+    }
+}
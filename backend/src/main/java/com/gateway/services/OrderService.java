@@ -1,12 +1,13 @@
 package com.gateway.services;
 
 import com.gateway.dto.*;
-import com.gateway.models.Merchant;
 import com.gateway.models.Order;
 import com.gateway.models.Payment;
-import com.gateway.repositories.MerchantRepository;
+import com.gateway.repositories.ArchiveRepository;
 import com.gateway.repositories.OrderRepository;
 import com.gateway.repositories.PaymentRepository;
+import com.gateway.utils.ApiTimestamps;
+import com.gateway.utils.CursorCodec;
 import com.gateway.utils.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,11 +15,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -27,10 +27,16 @@ public class OrderService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private MerchantRepository merchantRepository;
+    private ValidationService validationService;
 
     @Autowired
-    private ValidationService validationService;
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Autowired
+    private ArchiveRepository archiveRepository;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
 
     @Autowired
     private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
@@ -50,18 +56,88 @@ public class OrderService {
     @Value("${TEST_PROCESSING_DELAY:1000}")
     private int testProcessingDelay;
 
-    public CreateOrderResponse createOrder(String apiKey, String apiSecret, CreateOrderRequest request) {
-        // Authenticate merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findByApiKeyAndApiSecret(apiKey, apiSecret);
-        if (!merchantOpt.isPresent()) {
-            throw new RuntimeException("Invalid API credentials");
+    @Value("${ORDER_BATCH_MAX_SIZE:1000}")
+    private int batchMaxSize;
+
+    public CreateOrderResponse createOrder(UUID merchantId, CreateOrderRequest request) {
+        long startedAt = System.nanoTime();
+        boolean success = false;
+        try {
+            Order order = buildOrder(merchantId, request);
+
+            // Save order
+            order = orderRepository.save(order);
+            readYourWritesGuard.written(order.getId());
+
+            success = true;
+            return toCreateOrderResponse(order);
+        } finally {
+            gatewayMetrics.orderCreated(success, System.nanoTime() - startedAt);
         }
+    }
 
-        Merchant merchant = merchantOpt.get();
+    // Validates every order first, then inserts the valid ones in one transaction, which Hibernate
+    // sends as JDBC batches. Invalid orders are reported per item and do not stop the others.
+    // The metrics exclude the commit, which happens after this returns
+    @Transactional
+    public CreateOrderBatchResponse createOrders(UUID merchantId, CreateOrderBatchRequest request) {
+        long startedAt = System.nanoTime();
+        List<CreateOrderRequest> requests = request != null ? request.getOrders() : null;
+        if (requests == null || requests.isEmpty() || requests.size() > batchMaxSize) {
+            throw gatewayMetrics.validationFailure("order", "batch_size_invalid",
+                "orders must contain between 1 and " + batchMaxSize + " items");
+        }
 
+        boolean success = false;
+        try {
+            CreateOrderBatchResponse response = buildOrders(merchantId, requests);
+            success = true;
+            return response;
+        } finally {
+            gatewayMetrics.orderBatchCreated(success, requests.size(), System.nanoTime() - startedAt);
+        }
+    }
+
+    private CreateOrderBatchResponse buildOrders(UUID merchantId, List<CreateOrderRequest> requests) {
+        List<CreateOrderBatchResponse.Item> items = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                if (requests.get(i) == null) {
+                    throw gatewayMetrics.validationFailure("order", "order_missing", "order must not be null");
+                }
+                orders.add(buildOrder(merchantId, requests.get(i)));
+                items.add(null);
+            } catch (RuntimeException e) {
+                items.add(new CreateOrderBatchResponse.Item(i,
+                    null, new ErrorResponse.ErrorDetails("BAD_REQUEST_ERROR", e.getMessage())));
+            }
+        }
+
+        orderRepository.saveAll(orders);
+        for (Order order : orders) {
+            readYourWritesGuard.written(order.getId());
+        }
+
+        // Fill the slots of the valid orders in request order
+        int next = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                items.set(i, new CreateOrderBatchResponse.Item(i, toCreateOrderResponse(orders.get(next++)), null));
+            }
+        }
+
+        CreateOrderBatchResponse response = new CreateOrderBatchResponse();
+        response.setCreated(orders.size());
+        response.setFailed(requests.size() - orders.size());
+        response.setItems(items);
+        return response;
+    }
+
+    private Order buildOrder(UUID merchantId, CreateOrderRequest request) {
         // Validate request
         if (request.getAmount() == null || request.getAmount() < 100) {
-            throw new RuntimeException("amount must be at least 100");
+            throw gatewayMetrics.validationFailure("order", "amount_invalid", "amount must be at least 100");
         }
 
         String currency = request.getCurrency() != null ? request.getCurrency() : "INR";
@@ -72,7 +148,7 @@ public class OrderService {
         // Create order entity
         Order order = new Order();
         order.setId(orderId);
-        order.setMerchantId(merchant.getId());
+        order.setMerchantId(merchantId);
         order.setAmount(request.getAmount());
         order.setCurrency(currency);
         order.setReceipt(request.getReceipt());
@@ -80,14 +156,14 @@ public class OrderService {
         try {
             order.setNotes(request.getNotes() != null ? objectMapper.writeValueAsString(request.getNotes()) : null);
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            gatewayMetrics.validationFailed("order", "notes_invalid");
             throw new RuntimeException("Error processing notes", e);
         }
         order.setStatus("created");
+        return order;
+    }
 
-        // Save order
-        order = orderRepository.save(order);
-
-        // Create response
+    private CreateOrderResponse toCreateOrderResponse(Order order) {
         CreateOrderResponse response = new CreateOrderResponse();
         response.setId(order.getId());
         response.setMerchantId(order.getMerchantId().toString());
@@ -96,73 +172,37 @@ public class OrderService {
         response.setReceipt(order.getReceipt());
         response.setNotes(order.getNotes());
         response.setStatus(order.getStatus());
-        response.setCreatedAt(order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
+        response.setCreatedAt(ApiTimestamps.format(order.getCreatedAt()));
 
         return response;
     }
 
-    public GetOrderResponse getOrder(String apiKey, String apiSecret, String orderId) {
-        // Authenticate merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findByApiKeyAndApiSecret(apiKey, apiSecret);
-        if (!merchantOpt.isPresent()) {
-            throw new RuntimeException("Invalid API credentials");
+    public GetOrderResponse getOrder(UUID merchantId, String orderId) {
+        // Selected straight into the response; no Order entity is loaded
+        Optional<GetOrderResponse> response = readYourWritesGuard.read(orderId,
+            () -> orderRepository.findResponse(orderId, merchantId));
+        if (!response.isPresent()) {
+            // Months older than PARTITION_RETENTION_MONTHS have moved to the archive
+            response = archiveRepository.findOrder(orderId, merchantId);
         }
-
-        Merchant merchant = merchantOpt.get();
-
-        // Find order by ID and merchant ID
-        Optional<Order> orderOpt = orderRepository.findByIdAndMerchantId(orderId, merchant.getId());
-        if (!orderOpt.isPresent()) {
+        if (!response.isPresent()) {
             throw new RuntimeException("Order not found");
         }
-
-        Order order = orderOpt.get();
-
-        // Create response
-        GetOrderResponse response = new GetOrderResponse();
-        response.setId(order.getId());
-        response.setMerchantId(order.getMerchantId().toString());
-        response.setAmount(order.getAmount());
-        response.setCurrency(order.getCurrency());
-        response.setReceipt(order.getReceipt());
-        response.setNotes(order.getNotes());
-        response.setStatus(order.getStatus());
-        response.setCreatedAt(order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        response.setUpdatedAt(order.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-
-        return response;
+        return response.get();
     }
 
-    public List<GetOrderResponse> getAllOrders(String apiKey, String apiSecret) {
-        // Authenticate merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findByApiKeyAndApiSecret(apiKey, apiSecret);
-        if (!merchantOpt.isPresent()) {
-            throw new RuntimeException("Invalid API credentials");
-        }
+    @Transactional(readOnly = true)
+    public PageResult<GetOrderResponse> getAllOrders(UUID merchantId, ListFilter filter) {
+        // Fetch one row beyond the page to learn whether another page follows
+        List<GetOrderResponse> orders = orderRepository.findPage(merchantId, filter, filter.getLimit() + 1);
 
-        Merchant merchant = merchantOpt.get();
-
-        // Find all orders for this merchant
-        List<Order> orders = orderRepository.findByMerchantId(merchant.getId());
-
-        // Convert to responses
-        return orders.stream()
-            .map(this::convertToGetOrderResponse)
-            .collect(Collectors.toList());
-    }
-
-    private GetOrderResponse convertToGetOrderResponse(Order order) {
-        GetOrderResponse response = new GetOrderResponse();
-        response.setId(order.getId());
-        response.setMerchantId(order.getMerchantId().toString());
-        response.setAmount(order.getAmount());
-        response.setCurrency(order.getCurrency());
-        response.setReceipt(order.getReceipt());
-        response.setNotes(order.getNotes());
-        response.setStatus(order.getStatus());
-        response.setCreatedAt(order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        response.setUpdatedAt(order.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        return response;
+        String nextCursor = null;
+        if (orders.size() > filter.getLimit()) {
+            orders = orders.subList(0, filter.getLimit());
+            GetOrderResponse last = orders.get(orders.size() - 1);
+            nextCursor = CursorCodec.encode(last.getCreatedAtTimestamp(), last.getId());
+        }
+        return new PageResult<>(orders, nextCursor);
     }
 
     private String generateRandomString(int length) {
@@ -0,0 +1,401 @@
+package com.gateway.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Keeps orders and payments partitioned by month of created_at (see schema.sql). At startup, and then
+// every PARTITION_MAINTENANCE_INTERVAL, partitions are created for the current month and the next
+// PARTITION_PREMAKE_MONTHS, so inserts rarely land in the default partition; rows that did are moved
+// into their month's partition when it is created. Months that ended more than
+// PARTITION_RETENTION_MONTHS ago are archived: detached, stripped of every index but the primary key,
+// attached to archive.orders or archive.payments and rewritten compactly. Lists, exports and the
+// payment queue then only touch live months, while lookups by id fall back to the archive (see
+// ArchiveRepository).
+//
+// Tables created before partitioning are converted on first start: the existing table becomes one
+// partition covering everything up to the end of the current month, keeping its indexes. This holds
+// an exclusive lock on the table while it runs and rebuilds its primary key (see
+// PartitionMaintenanceServiceTest for the upgrade from the original schema).
+//
+// All DDL runs on one connection holding an advisory lock, so one instance maintains partitions at a
+// time, on a thread of its own because detaching and rewriting a month can take a while.
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private static final String[] TABLES = {"orders", "payments"};
+
+    private static final String ARCHIVE_SCHEMA = "archive";
+
+    // Arbitrary key of the session advisory lock held while partitions are maintained
+    private static final long LOCK_KEY = 7209431551L;
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyy_MM");
+
+    private static final String DEFAULT_SUFFIX = "_default";
+
+    private static final String COMPACT_SUFFIX = "_compact";
+
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private static final String IS_PARTITIONED_SQL =
+        "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?)";
+
+    private static final String EXISTS_SQL = "SELECT to_regclass(?) IS NOT NULL";
+
+    private static final String PARTITIONS_SQL =
+        "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound," +
+        "  pg_get_partition_constraintdef(c.oid) AS partition_constraint " +
+        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = to_regclass(?)";
+
+    private static final String INDEX_DEFINITIONS_SQL =
+        "SELECT pg_get_indexdef(indexrelid) FROM pg_index WHERE indrelid = to_regclass(?) AND NOT indisunique";
+
+    private static final String INDEX_NAMES_SQL =
+        "SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+        "WHERE i.indrelid = to_regclass(?)";
+
+    private static final String SECONDARY_INDEX_NAMES_SQL = INDEX_NAMES_SQL + " AND NOT i.indisprimary";
+
+    private static final String FOREIGN_KEYS_SQL =
+        "SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'";
+
+    private static final String PRIMARY_KEY_SQL =
+        "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${PARTITION_MAINTENANCE_INTERVAL:3600000}")
+    private long interval;
+
+    @Value("${PARTITION_PREMAKE_MONTHS:3}")
+    private int premakeMonths;
+
+    // 0 keeps every month live
+    @Value("${PARTITION_RETENTION_MONTHS:12}")
+    private int retentionMonths;
+
+    @Value("${PARTITION_LOCK_TIMEOUT:2000}")
+    private long lockTimeout;
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    @PostConstruct
+    public void start() {
+        // Tables must be converted before requests arrive. The monthly partitions only keep the default
+        // partition empty, so creating them may give up on a lock and finish on a later run.
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                withLock(connection, true, session -> {
+                    for (String table : TABLES) {
+                        if (!isPartitioned(session, table)) {
+                            convertToPartitioned(connection, session, table);
+                        }
+                        createUpcomingPartitions(connection, session, table);
+                    }
+                });
+                return null;
+            });
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Failed to prepare order and payment partitions", e);
+        }
+
+        scheduler = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("partition-maintenance").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                withLock(connection, false, session -> {
+                    for (String table : TABLES) {
+                        createUpcomingPartitions(connection, session, table);
+                        if (retentionMonths > 0) {
+                            archiveOldPartitions(connection, session, table);
+                        }
+                    }
+                });
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Partition maintenance failed", e);
+        }
+    }
+
+    // With wait unset, returns without running when another instance holds the lock
+    private void withLock(Connection connection, boolean wait, SessionWork work) throws SQLException {
+        JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        if (wait) {
+            session.queryForObject("SELECT pg_advisory_lock(?)", Object.class, LOCK_KEY);
+        } else if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+            return;
+        }
+        try {
+            work.run(session);
+        } finally {
+            session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+        }
+    }
+
+    private void createUpcomingPartitions(Connection connection, JdbcTemplate session, String table) throws SQLException {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate until = thisMonth.plusMonths(premakeMonths + 1);
+
+        LocalDate from = thisMonth;
+        for (Partition partition : findPartitions(session, table)) {
+            if (partition.upperBound != null && partition.upperBound.isAfter(from)) {
+                from = partition.upperBound;
+            }
+        }
+
+        String defaultPartition = table + DEFAULT_SUFFIX;
+        for (; from.isBefore(until); from = from.plusMonths(1)) {
+            LocalDate month = from;
+            String name = table + month.format(PARTITION_SUFFIX);
+            // Created detached and then attached, which needs a weaker lock on the parent than
+            // CREATE TABLE ... PARTITION OF, so it does not queue behind long-running reads. Attaching
+            // does lock the default partition exclusively while it checks that none of the month's rows
+            // are there; taking that lock first keeps new ones out while rows that are get moved.
+            boolean created = inTransaction(connection, () -> {
+                session.execute("SET LOCAL lock_timeout = " + lockTimeout);
+                session.execute("CREATE TABLE IF NOT EXISTS " + name + " (LIKE " + table +
+                    " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                if (Boolean.TRUE.equals(session.queryForObject(EXISTS_SQL, Boolean.class, defaultPartition))) {
+                    session.execute("LOCK TABLE " + defaultPartition + " IN ACCESS EXCLUSIVE MODE");
+                    int moved = session.update("WITH moved AS (DELETE FROM " + defaultPartition +
+                        " WHERE created_at >= ? AND created_at < ? RETURNING *) INSERT INTO " + name +
+                        " SELECT * FROM moved", Timestamp.valueOf(month.atStartOfDay()),
+                        Timestamp.valueOf(month.plusMonths(1).atStartOfDay()));
+                    if (moved > 0) {
+                        log.info("Moved {} rows from {} to {}", moved, defaultPartition, name);
+                    }
+                }
+                session.execute("ALTER TABLE " + table + " ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+            });
+            if (!created) {
+                log.warn("Timed out waiting to create partition {}; retrying on the next run", name);
+                break;
+            }
+            log.info("Created partition {}", name);
+        }
+    }
+
+    private void archiveOldPartitions(Connection connection, JdbcTemplate session, String table) throws SQLException {
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+        List<Partition> partitions = findPartitions(session, table);
+        partitions.sort(Comparator.comparing(partition -> partition.upperBound,
+            Comparator.nullsLast(Comparator.naturalOrder())));
+
+        for (Partition partition : partitions) {
+            if (partition.upperBound == null || partition.upperBound.isAfter(cutoff)) {
+                break;
+            }
+            // Payments still in the processing queue stay where the processor looks for them
+            if ("payments".equals(table) && Boolean.TRUE.equals(session.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition.name + " WHERE status = 'processing')", Boolean.class))) {
+                log.warn("Partition {} still has payments in processing; not archiving it yet", partition.name);
+                break;
+            }
+
+            // A validated check matching the partition bound lets the archive attach it without a scan
+            // while the live table is locked. Validating only blocks schema changes.
+            String check = partition.name + "_bound";
+            session.execute("ALTER TABLE " + partition.name + " DROP CONSTRAINT IF EXISTS " + check);
+            session.execute("ALTER TABLE " + partition.name + " ADD CONSTRAINT " + check +
+                " CHECK (" + partition.constraint + ") NOT VALID");
+            session.execute("ALTER TABLE " + partition.name + " VALIDATE CONSTRAINT " + check);
+
+            // One transaction, so a lookup by id finds every row in either the live table or the
+            // archive. Detaching locks the live table exclusively; rather than stall traffic behind a
+            // long-running read, give up after PARTITION_LOCK_TIMEOUT and try again on the next run.
+            String archived = ARCHIVE_SCHEMA + "." + partition.name;
+            boolean moved = inTransaction(connection, () -> {
+                session.execute("SET LOCAL lock_timeout = " + lockTimeout);
+                session.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition.name);
+                // Archived rows are only looked up by id
+                for (String index : session.queryForList(SECONDARY_INDEX_NAMES_SQL, String.class, partition.name)) {
+                    session.execute("DROP INDEX " + index);
+                }
+                session.execute("ALTER TABLE " + partition.name + " SET SCHEMA " + ARCHIVE_SCHEMA);
+                session.execute("ALTER TABLE " + ARCHIVE_SCHEMA + "." + table + " ATTACH PARTITION " + archived +
+                    " " + partition.bound);
+            });
+            if (!moved) {
+                log.warn("Timed out waiting to detach partition {}; retrying on the next run", partition.name);
+                break;
+            }
+
+            log.info("Archived partition {}", partition.name);
+            compact(connection, session, table, partition);
+        }
+    }
+
+    // Postgres has no heap compression, so the archived month is rewritten without dead rows and with
+    // full pages. VACUUM FULL would hold an exclusive lock for the whole rewrite, stalling every
+    // ArchiveRepository lookup; instead the rows are copied into a fresh table while lookups keep
+    // reading the old one, and the two are swapped in one short transaction under PARTITION_LOCK_TIMEOUT.
+    // If the swap times out the month stays archived as it is, just not compacted.
+    private void compact(Connection connection, JdbcTemplate session, String table, Partition partition)
+            throws SQLException {
+        String archived = ARCHIVE_SCHEMA + "." + partition.name;
+        String copyName = partition.name + COMPACT_SUFFIX;
+        String copy = ARCHIVE_SCHEMA + "." + copyName;
+        session.execute("DROP TABLE IF EXISTS " + copy);
+        // Keeps the validated bound check, so attaching the copy needs no scan
+        session.execute("CREATE TABLE " + copy + " (LIKE " + archived +
+            " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) WITH (fillfactor = 100)");
+        session.execute("INSERT INTO " + copy + " SELECT * FROM " + archived);
+        // Built once the rows are in; attaching adopts it as the archive's primary key
+        session.execute("ALTER TABLE " + copy + " ADD PRIMARY KEY (id, created_at)");
+
+        boolean swapped = inTransaction(connection, () -> {
+            session.execute("SET LOCAL lock_timeout = " + lockTimeout);
+            session.execute("ALTER TABLE " + ARCHIVE_SCHEMA + "." + table + " DETACH PARTITION " + archived);
+            session.execute("DROP TABLE " + archived);
+            session.execute("ALTER TABLE " + copy + " RENAME TO " + partition.name);
+            session.execute("ALTER INDEX " + ARCHIVE_SCHEMA + "." + copyName + "_pkey RENAME TO " +
+                partition.name + "_pkey");
+            session.execute("ALTER TABLE " + ARCHIVE_SCHEMA + "." + table + " ATTACH PARTITION " + archived +
+                " " + partition.bound);
+        });
+        if (!swapped) {
+            session.execute("DROP TABLE " + copy);
+            log.warn("Timed out waiting to swap in the compacted copy of {}; leaving it as it is", archived);
+        }
+    }
+
+    // The existing table is renamed and attached as the first partition. Its indexes are recreated on
+    // the new parent from their own definitions, so attaching adopts them instead of building new
+    // ones; only the primary key, which must now include created_at, is rebuilt.
+    private void convertToPartitioned(Connection connection, JdbcTemplate session, String table) throws SQLException {
+        String legacy = table + "_legacy";
+        inTransaction(connection, () -> {
+            session.execute("LOCK TABLE " + table + " IN ACCESS EXCLUSIVE MODE");
+
+            Timestamp newest = session.queryForObject("SELECT MAX(created_at) FROM " + table, Timestamp.class);
+            LocalDate end = LocalDate.now();
+            if (newest != null && newest.toLocalDateTime().toLocalDate().isAfter(end)) {
+                end = newest.toLocalDateTime().toLocalDate();
+            }
+            LocalDate upperBound = end.withDayOfMonth(1).plusMonths(1);
+
+            List<String> indexDefinitions = session.queryForList(INDEX_DEFINITIONS_SQL, String.class, table);
+            List<String> foreignKeys = session.queryForList(FOREIGN_KEYS_SQL, String.class, table);
+            for (String primaryKey : session.queryForList(PRIMARY_KEY_SQL, String.class, table)) {
+                session.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + primaryKey);
+            }
+
+            session.execute("ALTER TABLE " + table + " RENAME TO " + legacy);
+            for (String index : session.queryForList(INDEX_NAMES_SQL, String.class, legacy)) {
+                session.execute("ALTER INDEX " + index + " RENAME TO " + index + "_legacy");
+            }
+            session.execute("UPDATE " + legacy + " SET created_at = COALESCE(updated_at, CURRENT_TIMESTAMP) " +
+                "WHERE created_at IS NULL");
+            session.execute("ALTER TABLE " + legacy + " ALTER COLUMN created_at SET NOT NULL");
+
+            session.execute("CREATE TABLE " + table + " (LIKE " + legacy +
+                " INCLUDING DEFAULTS INCLUDING CONSTRAINTS, PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)");
+            // The definitions name the table, which is now the new parent
+            for (String definition : indexDefinitions) {
+                session.execute(definition);
+            }
+            for (String foreignKey : foreignKeys) {
+                session.execute("ALTER TABLE " + table + " ADD " + foreignKey);
+            }
+            session.execute("ALTER TABLE " + table + " ATTACH PARTITION " + legacy +
+                " FOR VALUES FROM (MINVALUE) TO ('" + upperBound + "')");
+            // schema.sql only adds the default partition to tables that are already partitioned
+            session.execute("CREATE TABLE " + table + DEFAULT_SUFFIX + " PARTITION OF " + table + " DEFAULT");
+        });
+        log.info("Converted {} to a partitioned table; existing rows are in {}", table, legacy);
+    }
+
+    // Returns false when the work gave up waiting for a lock; any other failure is rethrown
+    private boolean inTransaction(Connection connection, Runnable work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+            return true;
+        } catch (RuntimeException e) {
+            connection.rollback();
+            if (e.getCause() instanceof SQLException cause && LOCK_NOT_AVAILABLE.equals(cause.getSQLState())) {
+                return false;
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private boolean isPartitioned(JdbcTemplate session, String table) {
+        return Boolean.TRUE.equals(session.queryForObject(IS_PARTITIONED_SQL, Boolean.class, table));
+    }
+
+    private List<Partition> findPartitions(JdbcTemplate session, String table) {
+        return new ArrayList<>(session.query(PARTITIONS_SQL, (rs, rowNum) -> {
+            String bound = rs.getString("bound");
+            Matcher matcher = UPPER_BOUND.matcher(bound);
+            LocalDate upperBound = matcher.find()
+                ? Timestamp.valueOf(matcher.group(1)).toLocalDateTime().toLocalDate()
+                : null;
+            return new Partition(rs.getString("relname"), bound, rs.getString("partition_constraint"), upperBound);
+        }, table));
+    }
+
+    private interface SessionWork {
+        void run(JdbcTemplate session) throws SQLException;
+    }
+
+    private static class Partition {
+        private final String name;
+        // As Postgres prints it, e.g. FOR VALUES FROM ('2024-01-01 00:00:00') TO ('2024-02-01 00:00:00')
+        private final String bound;
+        // The same bound as a boolean expression over created_at
+        private final String constraint;
+        // Exclusive; null for a MAXVALUE bound
+        private final LocalDate upperBound;
+
+        private Partition(String name, String bound, String constraint, LocalDate upperBound) {
+            this.name = name;
+            this.bound = bound;
+            this.constraint = constraint;
+            this.upperBound = upperBound;
+        }
+    }
+}
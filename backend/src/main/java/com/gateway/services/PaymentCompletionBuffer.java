@@ -0,0 +1,138 @@
+package com.gateway.services;
+
+import com.gateway.repositories.PaymentQueueRepository;
+import com.gateway.repositories.PaymentQueueRepository.Completion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind buffer for payment status transitions. Completions from all workers are collected for
+// up to PAYMENT_COMPLETION_FLUSH_INTERVAL and written as one JDBC batch. A completion that is lost
+// (crash before the flush, failed batch) leaves the payment leased in "processing", so the sweep
+// retries it once the lease expires; nothing is acknowledged before it is written.
+@Service
+public class PaymentCompletionBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentCompletionBuffer.class);
+
+    @Autowired
+    private PaymentQueueRepository paymentQueueRepository;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Value("${PAYMENT_COMPLETION_BATCH_SIZE:100}")
+    private int maxBatchSize;
+
+    @Value("${PAYMENT_COMPLETION_FLUSH_INTERVAL:20}")
+    private long flushInterval;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("payment-completion-writer").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        // Whatever is left is written synchronously rather than left for the lease to expire
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    // Completes with true once written, false when the lease had already been lost
+    public CompletableFuture<Boolean> complete(Completion completion) {
+        Pending pending = new Pending(completion);
+        queue.add(pending);
+        return pending.result;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                // Linger briefly so completions arriving together share a round trip
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutting down; stop() flushes what is still queued
+                queue.addAll(batch);
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Completion> completions = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            completions.add(pending.completion);
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            boolean[] completed = paymentQueueRepository.completeAll(completions);
+            gatewayMetrics.completionsFlushed(true, batch.size(), System.nanoTime() - startedAt);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(completed[i]);
+            }
+        } catch (RuntimeException e) {
+            gatewayMetrics.completionsFlushed(false, batch.size(), System.nanoTime() - startedAt);
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            // The batch runs as one implicit transaction, so a single bad row rolls back the rest;
+            // retry them one at a time to isolate it
+            log.warn("Payment completion batch of {} failed, retrying individually", batch.size(), e);
+            for (Pending pending : batch) {
+                flush(List.of(pending));
+            }
+        }
+    }
+
+    private static class Pending {
+        private final Completion completion;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Pending(Completion completion) {
+            this.completion = completion;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.gateway.services;
+
+import com.gateway.dto.PaymentStatusEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-process notifications of payments reaching a final status, published once the status has been
+// written. Only payments finalized by this instance are published here.
+@Service
+public class PaymentEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentEventBus.class);
+
+    private final Map<String, List<Consumer<PaymentStatusEvent>>> subscribers = new ConcurrentHashMap<>();
+
+    // Returns the action that unsubscribes. Subscribe before reading the current status: an event
+    // published in between is then delivered rather than lost.
+    public Runnable subscribe(String paymentId, Consumer<PaymentStatusEvent> listener) {
+        subscribers.compute(paymentId, (id, listeners) -> {
+            if (listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+            }
+            listeners.add(listener);
+            return listeners;
+        });
+        return () -> subscribers.computeIfPresent(paymentId, (id, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    // A payment is finalized once, so its subscribers are dropped as they are notified
+    public void publish(PaymentStatusEvent event) {
+        List<Consumer<PaymentStatusEvent>> listeners = subscribers.remove(event.getId());
+        if (listeners == null) {
+            return;
+        }
+        for (Consumer<PaymentStatusEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.error("Payment event listener failed for {}", event.getId(), e);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+}
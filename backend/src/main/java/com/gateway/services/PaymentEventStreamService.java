@@ -0,0 +1,157 @@
+package com.gateway.services;
+
+import com.gateway.dto.PaymentStatusEvent;
+import com.gateway.models.Payment;
+import com.gateway.repositories.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Server-Sent Events streams of a payment's status for the checkout page. A stream reads the payment
+// once when it opens and is then completed by PaymentEventBus. Payments finalized by another instance
+// never reach the local bus, so a stream still open PAYMENT_EVENTS_RECHECK_INTERVAL after the payment
+// was due re-reads it on each keepalive tick.
+@Service
+public class PaymentEventStreamService {
+
+    public static final String STATUS_EVENT = "status";
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentEventStreamService.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentEventBus paymentEventBus;
+
+    @Autowired
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Value("${PAYMENT_EVENTS_TIMEOUT:120000}")
+    private long timeout;
+
+    @Value("${PAYMENT_EVENTS_RECHECK_INTERVAL:15000}")
+    private long recheckInterval;
+
+    // Sends keepalives and rechecks; the streams themselves hold no thread
+    private ScheduledThreadPoolExecutor scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("payment-events-", 1).daemon(true).factory());
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    // Returns empty when the payment does not exist
+    public Optional<SseEmitter> open(String paymentId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Stream stream = new Stream(paymentId, emitter);
+
+        Runnable unsubscribe = paymentEventBus.subscribe(paymentId,
+            event -> scheduler.execute(() -> stream.finish(event)));
+
+        Optional<Payment> paymentOpt = readYourWritesGuard.read(paymentId, () -> paymentRepository.findById(paymentId));
+        if (!paymentOpt.isPresent()) {
+            unsubscribe.run();
+            return Optional.empty();
+        }
+
+        Payment payment = paymentOpt.get();
+        ScheduledFuture<?> ticks = scheduler.scheduleAtFixedRate(
+            () -> stream.tick(payment.getProcessAfter()), recheckInterval, recheckInterval, TimeUnit.MILLISECONDS);
+        Runnable cleanUp = () -> {
+            unsubscribe.run();
+            ticks.cancel(false);
+        };
+        emitter.onCompletion(cleanUp);
+        emitter.onTimeout(cleanUp);
+        emitter.onError(error -> cleanUp.run());
+
+        if (isFinal(payment.getStatus())) {
+            stream.finish(toEvent(payment));
+        } else {
+            stream.send(toEvent(payment));
+        }
+        return Optional.of(emitter);
+    }
+
+    private static boolean isFinal(String status) {
+        return "success".equals(status) || "failed".equals(status);
+    }
+
+    private static PaymentStatusEvent toEvent(Payment payment) {
+        return new PaymentStatusEvent(payment.getId(), payment.getStatus(),
+            payment.getErrorCode(), payment.getErrorDescription());
+    }
+
+    private class Stream {
+        private final String paymentId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Stream(String paymentId, SseEmitter emitter) {
+            this.paymentId = paymentId;
+            this.emitter = emitter;
+        }
+
+        // Sends the final status once, whichever of the bus and a recheck sees it first
+        private void finish(PaymentStatusEvent event) {
+            if (finished.compareAndSet(false, true)) {
+                send(event);
+                emitter.complete();
+            }
+        }
+
+        private void send(PaymentStatusEvent event) {
+            try {
+                emitter.send(SseEmitter.event().name(STATUS_EVENT).data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone away; the emitter's error callback cleans up
+                finished.set(true);
+            }
+        }
+
+        private void tick(LocalDateTime processAfter) {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                boolean overdue = processAfter == null
+                    || LocalDateTime.now().isAfter(processAfter.plusNanos(recheckInterval * 1_000_000));
+                if (overdue) {
+                    Optional<Payment> paymentOpt = readYourWritesGuard.read(paymentId,
+                        () -> paymentRepository.findById(paymentId));
+                    if (paymentOpt.isPresent() && isFinal(paymentOpt.get().getStatus())) {
+                        finish(toEvent(paymentOpt.get()));
+                        return;
+                    }
+                }
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                finished.set(true);
+            } catch (RuntimeException e) {
+                log.error("Failed to recheck payment {}", paymentId, e);
+            }
+        }
+    }
+}
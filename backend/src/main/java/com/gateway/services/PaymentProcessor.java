@@ -0,0 +1,260 @@
+package com.gateway.services;
+
+import com.gateway.dto.PaymentStatusEvent;
+import com.gateway.repositories.PaymentQueueRepository;
+import com.gateway.repositories.PaymentQueueRepository.ClaimedPayment;
+import com.gateway.repositories.PaymentQueueRepository.Completion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Finalizes payments left in "processing" status. Payments created on this instance are woken up
+// locally when their processing delay elapses; a periodic sweep claims any due payment that has no
+// live lease, which resumes work after a crash and lets several instances share the queue.
+@Service
+public class PaymentProcessor {
+
+    public static final String QUEUE_FULL_MESSAGE = "Payment processing queue is full";
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessor.class);
+
+    @Autowired
+    private PaymentQueueRepository paymentQueueRepository;
+
+    @Autowired
+    private PaymentCompletionBuffer completionBuffer;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private PaymentEventBus paymentEventBus;
+
+    @Autowired
+    private PublicViewService publicViewService;
+
+    @Autowired
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Autowired
+    private WebhookDispatcher webhookDispatcher;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Value("${TEST_MODE:false}")
+    private boolean testMode;
+
+    @Value("${TEST_PAYMENT_SUCCESS:true}")
+    private boolean testPaymentSuccess;
+
+    @Value("${PROCESSING_DELAY_MIN:5000}")
+    private int processingDelayMin;
+
+    @Value("${PROCESSING_DELAY_MAX:10000}")
+    private int processingDelayMax;
+
+    @Value("${TEST_PROCESSING_DELAY:1000}")
+    private int testProcessingDelay;
+
+    @Value("${UPI_SUCCESS_RATE:0.90}")
+    private double upiSuccessRate;
+
+    @Value("${CARD_SUCCESS_RATE:0.95}")
+    private double cardSuccessRate;
+
+    @Value("${PAYMENT_WORKER_THREADS:4}")
+    private int workerThreads;
+
+    @Value("${PAYMENT_QUEUE_CAPACITY:10000}")
+    private int queueCapacity;
+
+    @Value("${PAYMENT_QUEUE_POLL_INTERVAL:5000}")
+    private long pollInterval;
+
+    @Value("${PAYMENT_QUEUE_BATCH_SIZE:50}")
+    private int batchSize;
+
+    @Value("${PAYMENT_LEASE_SECONDS:30}")
+    private long leaseSeconds;
+
+    @Value("${PAYMENT_MAX_ATTEMPTS:5}")
+    private int maxAttempts;
+
+    @Value("${VIRTUAL_THREADS_ENABLED:false}")
+    private boolean virtualThreads;
+
+    private final String workerId = UUID.randomUUID().toString();
+
+    // Timers always run on platform threads. With virtual threads enabled the scheduler only hands each
+    // payment to a virtual thread of its own; otherwise its pool of workers does the work itself.
+    private ScheduledThreadPoolExecutor scheduler;
+
+    private ExecutorService workers;
+
+    // Bounds the number of payments that are waiting for or undergoing finalization
+    private Semaphore slots;
+
+    @PostConstruct
+    public void start() {
+        if (virtualThreads) {
+            scheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("payment-scheduler").daemon(true).factory());
+            workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-worker-", 1).factory());
+        } else {
+            scheduler = new ScheduledThreadPoolExecutor(workerThreads,
+                Thread.ofPlatform().name("payment-worker-", 1).daemon(true).factory());
+            workers = scheduler;
+        }
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        slots = new Semaphore(queueCapacity);
+        gatewayMetrics.inFlightPayments(this::getPendingCount);
+
+        // One query per poll, so it stays on the scheduler thread; the finalizations it starts are
+        // written by the completion buffer
+        scheduler.scheduleWithFixedDelay(this::sweep, 0, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        workers.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // Reserve a processing slot before the payment is persisted, so a full queue rejects the
+    // request without leaving an orphaned payment behind
+    public void reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new RuntimeException(QUEUE_FULL_MESSAGE);
+        }
+    }
+
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    public LocalDateTime nextProcessAt() {
+        long delay = testMode ? testProcessingDelay
+            : ThreadLocalRandom.current().nextLong(processingDelayMin, processingDelayMax + 1L);
+        return LocalDateTime.now().plus(Duration.ofMillis(delay));
+    }
+
+    // Schedule a local wake-up for a persisted payment whose slot has already been reserved.
+    // If the wake-up cannot be scheduled the payment is left for the sweep to pick up.
+    public void submit(String paymentId, LocalDateTime processAfter) {
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), processAfter).toMillis());
+        Runnable wakeUp = () -> {
+            // The slot is held until the outcome has been written, not just handed to the buffer
+            CompletableFuture<Void> finalized = CompletableFuture.completedFuture(null);
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                List<ClaimedPayment> claimed = paymentQueueRepository.claim(
+                    paymentId, workerId, now, now.plusSeconds(leaseSeconds));
+                if (!claimed.isEmpty()) {
+                    finalized = finalizePayment(claimed.get(0));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to claim payment {}", paymentId, e);
+            } finally {
+                finalized.whenComplete((result, error) -> slots.release());
+            }
+        };
+        try {
+            scheduler.schedule(workers == scheduler ? wakeUp : () -> dispatch(wakeUp), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            slots.release();
+        }
+    }
+
+    private void dispatch(Runnable wakeUp) {
+        try {
+            workers.execute(wakeUp);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the sweep of another instance, or of the next start, picks the payment up
+            slots.release();
+        }
+    }
+
+    public int getPendingCount() {
+        return queueCapacity - slots.availablePermits();
+    }
+
+    private void sweep() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<ClaimedPayment> claimed = paymentQueueRepository.claimDue(
+                workerId, now, now.plusSeconds(leaseSeconds), batchSize);
+            claimed.forEach(this::finalizePayment);
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep processing payments", e);
+        }
+    }
+
+    // Hands the outcome to the write-behind buffer; the returned future completes once it is written
+    private CompletableFuture<Void> finalizePayment(ClaimedPayment claimed) {
+        // Payments that keep failing to finalize are given up on rather than retried forever
+        boolean success = claimed.getAttempts() <= maxAttempts && isSuccessful(claimed.getMethod());
+
+        Completion completion;
+        if (success) {
+            completion = new Completion(claimed.getId(), claimed.getCreatedAt(), workerId,
+                "success", null, null, LocalDateTime.now());
+        } else {
+            completion = new Completion(claimed.getId(), claimed.getCreatedAt(), workerId,
+                "failed", "PAYMENT_FAILED", "Payment processing failed", LocalDateTime.now());
+        }
+
+        return completionBuffer.complete(completion).handle((completed, error) -> {
+            if (error != null) {
+                // The lease is left to expire so the payment is retried by a later sweep
+                log.error("Failed to finalize payment {}", claimed.getId(), error);
+            } else if (completed) {
+                gatewayMetrics.paymentFinalized(claimed.getMethod(), completion.getStatus(),
+                    Duration.between(claimed.getCreatedAt(), completion.getCompletedAt()));
+                statsService.invalidate(claimed.getMerchantId());
+                // Cached views go before the event, and reads of the payment are pinned to the primary
+                // for a while, so a listener that reads next sees the final state
+                readYourWritesGuard.written(claimed.getId());
+                readYourWritesGuard.written(claimed.getOrderId());
+                publicViewService.invalidatePayment(claimed.getId());
+                publicViewService.invalidateOrder(claimed.getOrderId());
+                paymentEventBus.publish(new PaymentStatusEvent(claimed.getId(), completion.getStatus(),
+                    completion.getErrorCode(), completion.getErrorDescription()));
+                // The completion queued the merchant's webhook event in the same statement
+                webhookDispatcher.wakeUp();
+            } else {
+                log.warn("Lease on payment {} was lost before it could be finalized", claimed.getId());
+            }
+            return null;
+        });
+    }
+
+    // Determine success/failure based on test mode or random chance
+    private boolean isSuccessful(String method) {
+        if (testMode) {
+            return testPaymentSuccess;
+        }
+        double rate = "upi".equals(method) ? upiSuccessRate : cardSuccessRate;
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
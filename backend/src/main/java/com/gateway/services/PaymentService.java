@@ -1,26 +1,48 @@
 package com.gateway.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gateway.config.ReplicaRouting;
 import com.gateway.dto.*;
-import com.gateway.models.Merchant;
 import com.gateway.models.Order;
 import com.gateway.models.Payment;
-import com.gateway.repositories.MerchantRepository;
+import com.gateway.repositories.ArchiveRepository;
 import com.gateway.repositories.OrderRepository;
 import com.gateway.repositories.PaymentRepository;
+import com.gateway.utils.ApiTimestamps;
+import com.gateway.utils.CardNumberParser;
+import com.gateway.utils.CursorCodec;
 import com.gateway.utils.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
-import java.time.format.DateTimeFormatter;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 public class PaymentService {
 
+    public static final String ORDER_PAID_MESSAGE = "Order has already been paid";
+    public static final String PAYMENT_IN_PROGRESS_MESSAGE = "A payment for this order is already in progress";
+
+    private static final String CSV_HEADER = "id,order_id,amount,currency,method,status,vpa,card_network,"
+        + "card_last4,error_code,error_description,created_at,updated_at\n";
+
     @Autowired
     private PaymentRepository paymentRepository;
 
@@ -28,43 +50,51 @@ public class PaymentService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private MerchantRepository merchantRepository;
+    private ValidationService validationService;
 
     @Autowired
-    private ValidationService validationService;
+    private PaymentProcessor paymentProcessor;
 
-    @Value("${TEST_MODE:false}")
-    private boolean testMode;
+    @Autowired
+    private PublicViewService publicViewService;
 
-    @Value("${TEST_PAYMENT_SUCCESS:true}")
-    private boolean testPaymentSuccess;
+    @Autowired
+    private ReadYourWritesGuard readYourWritesGuard;
 
-    @Value("${PROCESSING_DELAY_MIN:5000}")
-    private int processingDelayMin;
+    @Autowired
+    private ArchiveRepository archiveRepository;
 
-    @Value("${PROCESSING_DELAY_MAX:10000}")
-    private int processingDelayMax;
+    @Autowired
+    private StatsService statsService;
 
-    @Value("${TEST_PROCESSING_DELAY:1000}")
-    private int testProcessingDelay;
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
 
-    @Value("${UPI_SUCCESS_RATE:0.90}")
-    private double upiSuccessRate;
+    @Autowired
+    private ObjectMapper objectMapper;
 
-    @Value("${CARD_SUCCESS_RATE:0.95}")
-    private double cardSuccessRate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-    public CreatePaymentResponse createPayment(String apiKey, String apiSecret, CreatePaymentRequest request) {
-        // Authenticate merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findByApiKeyAndApiSecret(apiKey, apiSecret);
-        if (!merchantOpt.isPresent()) {
-            throw new RuntimeException("Invalid API credentials");
-        }
+    @Value("${EXPORT_FETCH_SIZE:1000}")
+    private int exportFetchSize;
 
-        Merchant merchant = merchantOpt.get();
+    public CreatePaymentResponse createPayment(UUID merchantId, CreatePaymentRequest request) {
+        long startedAt = System.nanoTime();
+        boolean success = false;
+        try {
+            CreatePaymentResponse response = submitPayment(merchantId, request);
+            success = true;
+            return response;
+        } finally {
+            gatewayMetrics.paymentCreated(request.getMethod(), success, System.nanoTime() - startedAt);
+        }
+    }
 
-        // Find order by ID
-        Optional<Order> orderOpt = orderRepository.findById(request.getOrderId());
+    private CreatePaymentResponse submitPayment(UUID merchantId, CreatePaymentRequest request) {
+        // Find order by ID; the order may have been created a moment ago
+        Optional<Order> orderOpt = readYourWritesGuard.read(request.getOrderId(),
+            () -> orderRepository.findById(request.getOrderId()));
         if (!orderOpt.isPresent()) {
             throw new RuntimeException("Order not found");
         }
@@ -72,17 +102,18 @@ public class PaymentService {
         Order order = orderOpt.get();
 
         // Verify order belongs to the authenticated merchant
-        if (!order.getMerchantId().equals(merchant.getId())) {
+        if (!order.getMerchantId().equals(merchantId)) {
             throw new RuntimeException("Order not found");
         }
 
         // Validate payment method specific fields
+        CardNumberParser.ParsedCard card = null;
         if ("upi".equals(request.getMethod())) {
             validateUpiPayment(request);
         } else if ("card".equals(request.getMethod())) {
-            validateCardPayment(request);
+            card = validateCardPayment(request);
         } else {
-            throw new RuntimeException("Invalid payment method");
+            throw gatewayMetrics.validationFailure("payment", "method_invalid", "Invalid payment method");
         }
 
         // Generate payment ID
@@ -92,7 +123,7 @@ public class PaymentService {
         Payment payment = new Payment();
         payment.setId(paymentId);
         payment.setOrderId(request.getOrderId());
-        payment.setMerchantId(merchant.getId());
+        payment.setMerchantId(merchantId);
         payment.setAmount(order.getAmount());
         payment.setCurrency(order.getCurrency());
         payment.setMethod(request.getMethod());
@@ -102,163 +133,162 @@ public class PaymentService {
         if ("upi".equals(request.getMethod())) {
             payment.setVpa(request.getVpa());
         } else if ("card".equals(request.getMethod())) {
-            String cardNumber = request.getCard().getNumber();
-            payment.setCardNetwork(validationService.detectCardNetwork(cardNumber));
-            if (cardNumber.length() >= 4) {
-                payment.setCardLast4(cardNumber.substring(cardNumber.length() - 4));
-            }
+            payment.setCardNetwork(card.getNetwork());
+            payment.setCardLast4(card.getLast4());
         }
 
-        // Save payment (initially with processing status)
-        payment = paymentRepository.save(payment);
-
-        // Simulate payment processing with delay
-        int delay = testMode ? testProcessingDelay : 
-                   (int)(Math.random() * (processingDelayMax - processingDelayMin + 1)) + processingDelayMin;
-        
+        // Move the order from created to attempted and save the payment (initially with processing
+        // status) in one transaction. Only one payment per order can be in flight, so a concurrent or
+        // repeated submission fails here without creating a payment, and a failure or crash part way
+        // through leaves the order payable rather than stuck in attempted.
+        payment.setProcessAfter(paymentProcessor.nextProcessAt());
+        paymentProcessor.reserveSlot();
+        Payment saved;
         try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            saved = transactionTemplate.execute(status ->
+                orderRepository.transitionStatus(order.getId(), "created", "attempted", LocalDateTime.now()) == 0
+                    ? null : paymentRepository.save(payment));
+        } catch (RuntimeException e) {
+            paymentProcessor.releaseSlot();
+            throw e;
         }
-
-        // Determine success/failure based on test mode or random chance
-        boolean success;
-        if (testMode) {
-            success = testPaymentSuccess;
-        } else {
-            if ("upi".equals(request.getMethod())) {
-                success = Math.random() < upiSuccessRate;
-            } else { // card
-                success = Math.random() < cardSuccessRate;
-            }
+        if (saved == null) {
+            paymentProcessor.releaseSlot();
+            String status = ReplicaRouting.onPrimary(() -> orderRepository.findById(order.getId()))
+                .map(Order::getStatus).orElse(null);
+            throw new RuntimeException("paid".equals(status) ? ORDER_PAID_MESSAGE : PAYMENT_IN_PROGRESS_MESSAGE);
         }
+        publicViewService.invalidateOrder(order.getId());
 
-        // Update payment status based on result
-        if (success) {
-            payment.setStatus("success");
-        } else {
-            payment.setStatus("failed");
-            payment.setErrorCode("PAYMENT_FAILED");
-            payment.setErrorDescription("Payment processing failed");
-        }
-
-        // Save updated payment status
-        payment = paymentRepository.save(payment);
+        // Hand the payment to the background processor, which finalizes the status once the
+        // simulated bank delay has elapsed
+        paymentProcessor.submit(saved.getId(), saved.getProcessAfter());
+        readYourWritesGuard.written(saved.getId());
+        readYourWritesGuard.written(order.getId());
+        // Processing payments count towards the merchant's totals
+        statsService.invalidate(merchantId);
 
         // Create response
         CreatePaymentResponse response = new CreatePaymentResponse();
-        response.setId(payment.getId());
-        response.setOrderId(payment.getOrderId());
-        response.setAmount(payment.getAmount());
-        response.setCurrency(payment.getCurrency());
-        response.setMethod(payment.getMethod());
-        response.setStatus(payment.getStatus());
-        response.setCreatedAt(payment.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
+        response.setId(saved.getId());
+        response.setOrderId(saved.getOrderId());
+        response.setAmount(saved.getAmount());
+        response.setCurrency(saved.getCurrency());
+        response.setMethod(saved.getMethod());
+        response.setStatus(saved.getStatus());
+        response.setCreatedAt(ApiTimestamps.format(saved.getCreatedAt()));
 
         if ("upi".equals(request.getMethod())) {
-            response.setVpa(payment.getVpa());
+            response.setVpa(saved.getVpa());
         } else if ("card".equals(request.getMethod())) {
-            response.setCardNetwork(payment.getCardNetwork());
-            response.setCardLast4(payment.getCardLast4());
+            response.setCardNetwork(saved.getCardNetwork());
+            response.setCardLast4(saved.getCardLast4());
         }
 
         return response;
     }
 
-    public GetPaymentResponse getPayment(String apiKey, String apiSecret, String paymentId) {
-        // Authenticate merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findByApiKeyAndApiSecret(apiKey, apiSecret);
-        if (!merchantOpt.isPresent()) {
-            throw new RuntimeException("Invalid API credentials");
+    public GetPaymentResponse getPayment(UUID merchantId, String paymentId) {
+        // Selected straight into the response; no Payment entity is loaded
+        Optional<GetPaymentResponse> response = readYourWritesGuard.read(paymentId,
+            () -> paymentRepository.findResponse(paymentId, merchantId));
+        if (!response.isPresent()) {
+            // Months older than PARTITION_RETENTION_MONTHS have moved to the archive
+            response = archiveRepository.findPayment(paymentId, merchantId);
         }
-
-        Merchant merchant = merchantOpt.get();
-
-        // Find payment by ID and merchant ID
-        Optional<Payment> paymentOpt = paymentRepository.findByIdAndMerchantId(paymentId, merchant.getId());
-        if (!paymentOpt.isPresent()) {
+        if (!response.isPresent()) {
             throw new RuntimeException("Payment not found");
         }
+        return response.get();
+    }
 
-        Payment payment = paymentOpt.get();
+    @Transactional(readOnly = true)
+    public PageResult<GetPaymentResponse> getAllPayments(UUID merchantId, ListFilter filter) {
+        // Fetch one row beyond the page to learn whether another page follows
+        List<GetPaymentResponse> payments = paymentRepository.findPage(merchantId, filter, filter.getLimit() + 1);
 
-        // Create response
-        GetPaymentResponse response = new GetPaymentResponse();
-        response.setId(payment.getId());
-        response.setOrderId(payment.getOrderId());
-        response.setAmount(payment.getAmount());
-        response.setCurrency(payment.getCurrency());
-        response.setMethod(payment.getMethod());
-        response.setStatus(payment.getStatus());
-        response.setErrorCode(payment.getErrorCode());
-        response.setErrorDescription(payment.getErrorDescription());
-        response.setCreatedAt(payment.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        response.setUpdatedAt(payment.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-
-        if ("upi".equals(payment.getMethod())) {
-            response.setVpa(payment.getVpa());
-        } else if ("card".equals(payment.getMethod())) {
-            response.setCardNetwork(payment.getCardNetwork());
-            response.setCardLast4(payment.getCardLast4());
+        String nextCursor = null;
+        if (payments.size() > filter.getLimit()) {
+            payments = payments.subList(0, filter.getLimit());
+            GetPaymentResponse last = payments.get(payments.size() - 1);
+            nextCursor = CursorCodec.encode(last.getCreatedAtTimestamp(), last.getId());
         }
-
-        return response;
+        return new PageResult<>(payments, nextCursor);
     }
 
-    public List<GetPaymentResponse> getAllPayments(String apiKey, String apiSecret) {
-        // Authenticate merchant
-        Optional<Merchant> merchantOpt = merchantRepository.findByApiKeyAndApiSecret(apiKey, apiSecret);
-        if (!merchantOpt.isPresent()) {
-            throw new RuntimeException("Invalid API credentials");
+    // Writes every payment matching the filter, oldest first, without holding the result set in memory
+    @Transactional(readOnly = true)
+    public void exportPayments(UUID merchantId, ListFilter filter, String format, OutputStream outputStream) throws IOException {
+        try (Stream<GetPaymentResponse> payments = paymentRepository.streamForExport(merchantId, filter, exportFetchSize)) {
+            if ("csv".equals(format)) {
+                writeCsv(payments, outputStream);
+            } else {
+                writeNdjson(payments, outputStream);
+            }
         }
+    }
 
-        Merchant merchant = merchantOpt.get();
-
-        // Find all payments for this merchant
-        List<Payment> payments = paymentRepository.findByMerchantId(merchant.getId());
+    private void writeNdjson(Stream<GetPaymentResponse> payments, OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<GetPaymentResponse> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
 
-        // Convert to responses
-        return payments.stream()
-            .map(this::convertToGetPaymentResponse)
-            .collect(Collectors.toList());
+    private void writeCsv(Stream<GetPaymentResponse> payments, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        Iterator<GetPaymentResponse> iterator = payments.iterator();
+        while (iterator.hasNext()) {
+            GetPaymentResponse payment = iterator.next();
+            writeCsvRow(writer, payment.getId(), payment.getOrderId(), String.valueOf(payment.getAmount()),
+                payment.getCurrency(), payment.getMethod(), payment.getStatus(), payment.getVpa(),
+                payment.getCardNetwork(), payment.getCardLast4(), payment.getErrorCode(),
+                payment.getErrorDescription(), payment.getCreatedAt(), payment.getUpdatedAt());
+        }
+        writer.flush();
     }
 
-    private GetPaymentResponse convertToGetPaymentResponse(Payment payment) {
-        GetPaymentResponse response = new GetPaymentResponse();
-        response.setId(payment.getId());
-        response.setOrderId(payment.getOrderId());
-        response.setAmount(payment.getAmount());
-        response.setCurrency(payment.getCurrency());
-        response.setMethod(payment.getMethod());
-        response.setStatus(payment.getStatus());
-        response.setErrorCode(payment.getErrorCode());
-        response.setErrorDescription(payment.getErrorDescription());
-        response.setCreatedAt(payment.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-        response.setUpdatedAt(payment.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
-
-        if ("upi".equals(payment.getMethod())) {
-            response.setVpa(payment.getVpa());
-        } else if ("card".equals(payment.getMethod())) {
-            response.setCardNetwork(payment.getCardNetwork());
-            response.setCardLast4(payment.getCardLast4());
+    private void writeCsvRow(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
         }
-        return response;
+        writer.write('\n');
     }
 
     private void validateUpiPayment(CreatePaymentRequest request) {
         if (request.getVpa() == null || request.getVpa().trim().isEmpty()) {
-            throw new RuntimeException("VPA is required for UPI payments");
+            throw gatewayMetrics.validationFailure("payment", "vpa_missing", "VPA is required for UPI payments");
         }
 
         if (!validationService.validateVpa(request.getVpa())) {
-            throw new RuntimeException("Invalid VPA format");
+            throw gatewayMetrics.validationFailure("payment", "vpa_invalid", "Invalid VPA format");
         }
     }
 
-    private void validateCardPayment(CreatePaymentRequest request) {
+    private CardNumberParser.ParsedCard validateCardPayment(CreatePaymentRequest request) {
         if (request.getCard() == null) {
-            throw new RuntimeException("Card details are required for card payments");
+            throw gatewayMetrics.validationFailure("payment", "card_missing",
+                "Card details are required for card payments");
         }
 
         String number = request.getCard().getNumber();
@@ -268,37 +298,40 @@ public class PaymentService {
         String holderName = request.getCard().getHolderName();
 
         if (number == null || number.trim().isEmpty()) {
-            throw new RuntimeException("Card number is required");
+            throw gatewayMetrics.validationFailure("payment", "card_number_missing", "Card number is required");
         }
 
         if (expiryMonth == null || expiryMonth.trim().isEmpty()) {
-            throw new RuntimeException("Expiry month is required");
+            throw gatewayMetrics.validationFailure("payment", "expiry_month_missing", "Expiry month is required");
         }
 
         if (expiryYear == null || expiryYear.trim().isEmpty()) {
-            throw new RuntimeException("Expiry year is required");
+            throw gatewayMetrics.validationFailure("payment", "expiry_year_missing", "Expiry year is required");
         }
 
         if (cvv == null || cvv.trim().isEmpty()) {
-            throw new RuntimeException("CVV is required");
+            throw gatewayMetrics.validationFailure("payment", "cvv_missing", "CVV is required");
         }
 
         if (holderName == null || holderName.trim().isEmpty()) {
-            throw new RuntimeException("Card holder name is required");
+            throw gatewayMetrics.validationFailure("payment", "holder_name_missing", "Card holder name is required");
         }
 
-        if (!validationService.validateCardNumber(number)) {
-            throw new RuntimeException("Invalid card number");
+        // Parsed once; the result also carries the network and last four digits for the payment
+        CardNumberParser.ParsedCard card = validationService.parseCard(number);
+        if (!card.isValid()) {
+            throw gatewayMetrics.validationFailure("payment", "card_number_invalid", "Invalid card number");
         }
 
         if (!validationService.validateExpiryDate(expiryMonth, expiryYear)) {
-            throw new RuntimeException("Invalid expiry date");
+            throw gatewayMetrics.validationFailure("payment", "expiry_invalid", "Invalid expiry date");
         }
 
         // Basic CVV validation (3-4 digits)
-        if (!cvv.matches("\\d{3,4}")) {
-            throw new RuntimeException("Invalid CVV format");
+        if (!validationService.validateCvv(cvv)) {
+            throw gatewayMetrics.validationFailure("payment", "cvv_invalid", "Invalid CVV format");
         }
+        return card;
     }
 
     private String generateRandomString(int length) {
@@ -0,0 +1,214 @@
+package com.gateway.services;
+
+import com.gateway.repositories.MerchantRepository;
+import com.gateway.repositories.OrderRepository;
+import com.gateway.repositories.OrderRepository.PublicOrderView;
+import com.gateway.repositories.PaymentRepository;
+import com.gateway.repositories.PaymentRepository.PublicPaymentView;
+import com.gateway.utils.ApiTimestamps;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Read-through cache of the public order and payment views used by the checkout page, and of the
+// merchant existence check behind them. Views in a final state (paid orders, finished payments) are
+// kept for PUBLIC_VIEW_CACHE_TTL_SECONDS; views that can still change only for
+// PUBLIC_VIEW_CACHE_PENDING_TTL_MILLIS, which bounds how stale a change made by another instance can
+// be. Changes made on this instance invalidate the view right away.
+@Service
+public class PublicViewService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Value("${PUBLIC_VIEW_CACHE_TTL_SECONDS:60}")
+    private long ttlSeconds;
+
+    @Value("${PUBLIC_VIEW_CACHE_PENDING_TTL_MILLIS:1000}")
+    private long pendingTtlMillis;
+
+    @Value("${PUBLIC_VIEW_CACHE_MAX_SIZE:10000}")
+    private int maxSize;
+
+    private final ViewCache<String> orders = new ViewCache<>();
+
+    private final ViewCache<String> payments = new ViewCache<>();
+
+    private final Map<UUID, Long> knownMerchants = new ConcurrentHashMap<>();
+
+    // Empty when the order or its merchant does not exist; misses are not cached
+    public Optional<Map<String, Object>> getOrderView(String orderId) {
+        return Optional.ofNullable(orders.get(orderId, this::loadOrderView));
+    }
+
+    public Optional<Map<String, Object>> getPaymentView(String paymentId) {
+        return Optional.ofNullable(payments.get(paymentId, this::loadPaymentView));
+    }
+
+    public boolean merchantExists(UUID merchantId) {
+        long now = System.nanoTime();
+        Long expiresAt = knownMerchants.get(merchantId);
+        if (expiresAt != null && expiresAt - now > 0) {
+            return true;
+        }
+        if (!merchantRepository.existsById(merchantId)) {
+            knownMerchants.remove(merchantId);
+            return false;
+        }
+        if (knownMerchants.size() >= maxSize) {
+            knownMerchants.values().removeIf(expiry -> expiry - now < 0);
+        }
+        knownMerchants.put(merchantId, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        return true;
+    }
+
+    public void invalidateOrder(String orderId) {
+        orders.invalidate(orderId);
+    }
+
+    public void invalidatePayment(String paymentId) {
+        payments.invalidate(paymentId);
+    }
+
+    private CachedView loadOrderView(String orderId) {
+        Optional<PublicOrderView> orderOpt = readYourWritesGuard.read(orderId,
+            () -> orderRepository.findPublicViewById(orderId));
+        if (!orderOpt.isPresent() || !merchantExists(orderOpt.get().getMerchantId())) {
+            return null;
+        }
+
+        PublicOrderView order = orderOpt.get();
+        Map<String, Object> view = new HashMap<>();
+        view.put("id", order.getId());
+        view.put("amount", order.getAmount());
+        view.put("currency", order.getCurrency());
+        view.put("status", order.getStatus());
+        view.put("created_at", ApiTimestamps.format(order.getCreatedAt()));
+        return new CachedView(view, "paid".equals(order.getStatus()));
+    }
+
+    private CachedView loadPaymentView(String paymentId) {
+        Optional<PublicPaymentView> paymentOpt = readYourWritesGuard.read(paymentId,
+            () -> paymentRepository.findPublicViewById(paymentId));
+        if (!paymentOpt.isPresent() || !merchantExists(paymentOpt.get().getMerchantId())) {
+            return null;
+        }
+
+        PublicPaymentView payment = paymentOpt.get();
+        Map<String, Object> view = new HashMap<>();
+        view.put("id", payment.getId());
+        view.put("order_id", payment.getOrderId());
+        view.put("amount", payment.getAmount());
+        view.put("currency", payment.getCurrency());
+        view.put("method", payment.getMethod());
+        view.put("status", payment.getStatus());
+        view.put("error_code", payment.getErrorCode());
+        view.put("error_description", payment.getErrorDescription());
+        view.put("created_at", ApiTimestamps.format(payment.getCreatedAt()));
+        view.put("updated_at", ApiTimestamps.format(payment.getUpdatedAt()));
+        return new CachedView(view, "success".equals(payment.getStatus()) || "failed".equals(payment.getStatus()));
+    }
+
+    private static class CachedView {
+        private final Map<String, Object> view;
+        private final boolean isFinal;
+
+        private CachedView(Map<String, Object> view, boolean isFinal) {
+            this.view = Collections.unmodifiableMap(view);
+            this.isFinal = isFinal;
+        }
+    }
+
+    private class ViewCache<K> {
+        // Invalidation leaves a tombstone (view == null) rather than removing the entry, so a load
+        // that started before the invalidation can tell and does not store what it read
+        private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+        // Loads that started before this were possibly invalidated by a tombstone that eviction has
+        // since dropped, so they are not stored either
+        private volatile long staleBefore = System.nanoTime();
+
+        private Map<String, Object> get(K key, Function<K, CachedView> loader) {
+            long now = System.nanoTime();
+            Entry entry = entries.get(key);
+            if (entry != null && entry.view != null && entry.expiresAt - now > 0) {
+                return entry.view;
+            }
+
+            CachedView loaded = loader.apply(key);
+            if (loaded == null) {
+                return null;
+            }
+
+            long ttl = loaded.isFinal ? TimeUnit.SECONDS.toNanos(ttlSeconds) : TimeUnit.MILLISECONDS.toNanos(pendingTtlMillis);
+            Entry fresh = new Entry(loaded.view, now + ttl);
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            // Entries compare by identity: either call fails if the key was invalidated meanwhile
+            boolean stored = entry == null ? entries.putIfAbsent(key, fresh) == null : entries.replace(key, entry, fresh);
+            // Checked after storing: evict() moves staleBefore before it drops any tombstone
+            if (stored && now - staleBefore <= 0) {
+                entries.remove(key, fresh);
+            }
+            return loaded.view;
+        }
+
+        private void invalidate(K key) {
+            long now = System.nanoTime();
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(key, new Entry(null, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+
+        // Remove expired entries first, then views. Tombstones only go when the cache is full of them,
+        // and then every load already in flight is treated as invalidated.
+        private void evict(long now) {
+            entries.values().removeIf(entry -> entry.expiresAt - now < 0);
+            Iterator<Entry> views = entries.values().iterator();
+            while (entries.size() >= maxSize && views.hasNext()) {
+                if (views.next().view != null) {
+                    views.remove();
+                }
+            }
+            if (entries.size() >= maxSize) {
+                staleBefore = System.nanoTime();
+                Iterator<K> keys = entries.keySet().iterator();
+                while (entries.size() >= maxSize && keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Map<String, Object> view;
+        private final long expiresAt;
+
+        private Entry(Map<String, Object> view, long expiresAt) {
+            this.view = view;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.gateway.services;
+
+import com.gateway.config.ReplicaRouting;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Keeps reads of just-written orders and payments consistent when reads go to replicas. Ids written on
+// this instance are read from the primary for DB_REPLICA_READ_YOUR_WRITES_MILLIS, which should exceed
+// the lag a replica is allowed before it is taken out of use. A row missing on a replica is re-read
+// from the primary, which covers rows created moments ago on another instance. Changes another
+// instance made to an existing row are not covered and can be read up to DB_REPLICA_MAX_LAG_MILLIS
+// stale. Without replicas configured both are no-ops.
+//
+// The read passed in must start its own transaction (a repository call outside @Transactional), so
+// that a fallback read gets a new connection.
+@Service
+public class ReadYourWritesGuard {
+
+    @Value("${DB_REPLICA_URLS:}")
+    private String replicaUrls;
+
+    @Value("${DB_REPLICA_READ_YOUR_WRITES_MILLIS:10000}")
+    private long windowMillis;
+
+    @Value("${DB_REPLICA_READ_YOUR_WRITES_MAX_SIZE:100000}")
+    private int maxSize;
+
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    public void written(String id) {
+        if (replicaUrls.isBlank()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (recentWrites.size() >= maxSize) {
+            recentWrites.values().removeIf(expiresAt -> expiresAt - now < 0);
+        }
+        recentWrites.put(id, now + TimeUnit.MILLISECONDS.toNanos(windowMillis));
+    }
+
+    public <T> Optional<T> read(String id, Supplier<Optional<T>> query) {
+        if (replicaUrls.isBlank()) {
+            return query.get();
+        }
+        Long expiresAt = recentWrites.get(id);
+        if (expiresAt != null) {
+            if (expiresAt - System.nanoTime() > 0) {
+                return ReplicaRouting.onPrimary(query);
+            }
+            recentWrites.remove(id, expiresAt);
+        }
+        Optional<T> result = query.get();
+        return result.isPresent() ? result : ReplicaRouting.onPrimary(query);
+    }
+}
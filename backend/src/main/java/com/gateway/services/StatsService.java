@@ -0,0 +1,101 @@
+package com.gateway.services;
+
+import com.gateway.dto.StatsResponse;
+import com.gateway.repositories.PaymentStatsRepository;
+import com.gateway.repositories.PaymentStatsRepository.StatsRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Dashboard statistics built from the payment_totals and payment_stats rollups plus the payments still
+// in processing, which count towards the totals as they did before the rollups. The rows for a merchant,
+// covering the longest window a request can ask for, are cached briefly; creating or finalizing a
+// payment on this instance evicts that merchant's entry right away.
+@Service
+public class StatsService {
+
+    public static final int DEFAULT_DAYS = 30;
+    public static final int MAX_DAYS = 366;
+
+    @Autowired
+    private PaymentStatsRepository paymentStatsRepository;
+
+    @Value("${STATS_CACHE_TTL_SECONDS:10}")
+    private long ttlSeconds;
+
+    private final Map<UUID, CachedRows> cache = new ConcurrentHashMap<>();
+
+    public StatsResponse getStats(UUID merchantId, Integer days) {
+        int window = days != null ? days : DEFAULT_DAYS;
+        if (window < 1 || window > MAX_DAYS) {
+            throw new RuntimeException("days must be between 1 and " + MAX_DAYS);
+        }
+
+        List<StatsRow> rows = getRows(merchantId);
+        LocalDate firstDay = LocalDate.now().minusDays(window - 1L);
+
+        StatsResponse.Totals totals = new StatsResponse.Totals();
+        Map<String, StatsResponse.Totals> byMethod = new TreeMap<>();
+        Map<LocalDate, StatsResponse.DailyTotals> daily = new TreeMap<>();
+
+        for (StatsRow row : rows) {
+            // Finalized payments are in both the all-time and the daily rows; processing ones are in neither
+            if (!PaymentStatsRepository.DAILY.equals(row.getKind())) {
+                totals.add(row.getTotalCount(), row.getSuccessCount(), row.getFailedCount(), row.getSuccessAmount());
+                byMethod.computeIfAbsent(row.getMethod(), method -> new StatsResponse.Totals())
+                    .add(row.getTotalCount(), row.getSuccessCount(), row.getFailedCount(), row.getSuccessAmount());
+            }
+            if (!PaymentStatsRepository.TOTAL.equals(row.getKind()) && !row.getDay().isBefore(firstDay)) {
+                daily.computeIfAbsent(row.getDay(), day -> new StatsResponse.DailyTotals(day.toString()))
+                    .add(row.getTotalCount(), row.getSuccessCount(), row.getFailedCount(), row.getSuccessAmount());
+            }
+        }
+
+        StatsResponse response = new StatsResponse();
+        response.setTotalTransactions(totals.getTotalTransactions());
+        response.setSuccessfulTransactions(totals.getSuccessfulTransactions());
+        response.setFailedTransactions(totals.getFailedTransactions());
+        response.setTotalAmount(totals.getTotalAmount());
+        response.setSuccessRate(totals.getTotalTransactions() > 0
+            ? (int) Math.round(totals.getSuccessfulTransactions() * 100.0 / totals.getTotalTransactions())
+            : 0);
+        response.setByMethod(byMethod);
+        response.setDaily(new ArrayList<>(daily.values()));
+        return response;
+    }
+
+    public void invalidate(UUID merchantId) {
+        cache.remove(merchantId);
+    }
+
+    private List<StatsRow> getRows(UUID merchantId) {
+        long now = System.nanoTime();
+        CachedRows cached = cache.get(merchantId);
+        if (cached != null && cached.expiresAt - now > 0) {
+            return cached.rows;
+        }
+
+        List<StatsRow> rows = paymentStatsRepository.findByMerchantId(merchantId, LocalDate.now().minusDays(MAX_DAYS - 1L));
+        cache.put(merchantId, new CachedRows(rows, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return rows;
+    }
+
+    private static class CachedRows {
+        private final List<StatsRow> rows;
+        private final long expiresAt;
+
+        private CachedRows(List<StatsRow> rows, long expiresAt) {
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package com.gateway.services;
 
+import com.gateway.utils.BinTable;
+import com.gateway.utils.BinTableLoader;
+import com.gateway.utils.CardNumberParser;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
 @Service
 public class ValidationService {
 
+    private static final Logger log = LoggerFactory.getLogger(ValidationService.class);
+
     // VPA Validation
     private static final Pattern VPA_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+@[a-zA-Z0-9]+$");
 
@@ -16,79 +32,88 @@ public class ValidationService {
         return VPA_PATTERN.matcher(vpa).matches();
     }
 
-    // Luhn Algorithm for Card Validation
-    public boolean validateCardNumber(String cardNumber) {
-        if (cardNumber == null) {
-            return false;
-        }
+    // Card networks by BIN prefix. Replaced wholesale on reload, so readers never see a partial table.
+    private volatile BinTable binTable = BinTable.defaults();
 
-        // Remove spaces and dashes
-        String cleanedCardNumber = cardNumber.replaceAll("[\\s-]", "");
+    // Optional BIN range file (see BinTableLoader); the built-in network rules are used without one
+    @Value("${BIN_TABLE_PATH:}")
+    private String binTablePath;
 
-        // Check if it contains only digits and has proper length (13-19)
-        if (!cleanedCardNumber.matches("\\d{13,19}")) {
-            return false;
-        }
+    private FileTime binTableModified;
 
-        // Apply Luhn algorithm
-        int sum = 0;
-        boolean alternate = false;
+    // Not synchronized: a virtual thread blocked in file I/O inside a monitor would pin its carrier
+    private final ReentrantLock reloadLock = new ReentrantLock();
 
-        for (int i = cleanedCardNumber.length() - 1; i >= 0; i--) {
-            int n = Character.getNumericValue(cleanedCardNumber.charAt(i));
+    // A BIN file that is configured but unreadable fails startup rather than silently using the defaults
+    @PostConstruct
+    public void loadBinTable() {
+        if (binTablePath == null || binTablePath.isBlank()) {
+            return;
+        }
+        try {
+            reloadBinTable();
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Failed to load BIN table from " + binTablePath, e);
+        }
+    }
 
-            if (alternate) {
-                n *= 2;
-                if (n > 9) {
-                    n = (n % 10) + 1;
-                }
+    // Picks up a replaced BIN file without a restart; a bad file keeps the current table
+    @Scheduled(fixedDelayString = "${BIN_TABLE_RELOAD_INTERVAL:60000}")
+    public void reloadBinTableIfChanged() {
+        if (binTablePath == null || binTablePath.isBlank()) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(Path.of(binTablePath));
+            if (!modified.equals(binTableModified)) {
+                reloadBinTable();
             }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reload BIN table from {}", binTablePath, e);
+        }
+    }
 
-            sum += n;
-            alternate = !alternate;
+    private void reloadBinTable() throws IOException {
+        reloadLock.lock();
+        try {
+            Path path = Path.of(binTablePath);
+            FileTime modified = Files.getLastModifiedTime(path);
+            BinTable loaded = BinTableLoader.load(path);
+            binTable = loaded;
+            binTableModified = modified;
+            log.info("Loaded {} BIN ranges from {}", loaded.size(), path);
+        } finally {
+            reloadLock.unlock();
         }
+    }
+
+    // Separator stripping, length, Luhn and network lookup in one pass over the number
+    public CardNumberParser.ParsedCard parseCard(String cardNumber) {
+        return CardNumberParser.parse(cardNumber, binTable);
+    }
 
-        return (sum % 10 == 0);
+    // Luhn Algorithm for Card Validation
+    public boolean validateCardNumber(String cardNumber) {
+        return parseCard(cardNumber).isValid();
     }
 
     // Card Network Detection
     public String detectCardNetwork(String cardNumber) {
-        if (cardNumber == null) {
-            return "unknown";
-        }
-
-        // Remove spaces and dashes
-        String cleanedCardNumber = cardNumber.replaceAll("[\\s-]", "");
+        return CardNumberParser.detectNetwork(cardNumber, binTable);
+    }
 
-        if (cleanedCardNumber.startsWith("4")) {
-            return "visa";
-        } else if (cleanedCardNumber.startsWith("5") && 
-                   cleanedCardNumber.length() >= 2) {
-            String secondDigit = cleanedCardNumber.substring(1, 2);
-            if ("12345".contains(secondDigit)) {
-                return "mastercard";
-            }
-        } else if (cleanedCardNumber.startsWith("3") && 
-                   cleanedCardNumber.length() >= 2) {
-            String secondDigit = cleanedCardNumber.substring(1, 2);
-            if ("47".contains(secondDigit)) {
-                return "amex";
-            }
-        } else if (cleanedCardNumber.startsWith("6") && 
-                   cleanedCardNumber.length() >= 2) {
-            String secondDigit = cleanedCardNumber.substring(1, 2);
-            if ("05".contains(secondDigit)) {
-                return "rupay";
-            }
-        } else if (cleanedCardNumber.startsWith("8") && 
-                   cleanedCardNumber.length() >= 2) {
-            int secondDigit = Character.getNumericValue(cleanedCardNumber.charAt(1));
-            if (secondDigit >= 1 && secondDigit <= 9) {
-                return "rupay";
+    // CVV Validation (3-4 digits)
+    public boolean validateCvv(String cvv) {
+        if (cvv == null || cvv.length() < 3 || cvv.length() > 4) {
+            return false;
+        }
+        for (int i = 0; i < cvv.length(); i++) {
+            char c = cvv.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
             }
         }
-
-        return "unknown";
+        return true;
     }
 
     // Card Expiry Validation
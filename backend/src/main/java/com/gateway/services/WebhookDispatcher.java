@@ -0,0 +1,226 @@
+package com.gateway.services;
+
+import com.gateway.repositories.WebhookEventRepository;
+import com.gateway.repositories.WebhookEventRepository.Attempt;
+import com.gateway.repositories.WebhookEventRepository.ClaimedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Delivers the webhook outbox. A single thread claims due events, up to the number of free delivery
+// slots (WEBHOOK_MAX_IN_FLIGHT), hands them to WebhookSender and writes the outcomes back in batches
+// as they arrive. Failed deliveries are retried with exponential backoff; after WEBHOOK_MAX_ATTEMPTS
+// the event is marked dead and left for the merchant to retry through the API.
+//
+// Delivery is at least once: an outcome that is never written (crash, lost lease) leaves the event to
+// be claimed again, so receivers should de-duplicate on the X-Webhook-Id header.
+@Service
+public class WebhookDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    // Queued to interrupt the wait for outcomes when new events may be due
+    private static final Attempt WAKE_UP = new Attempt(null, null, null, null, null, null, null);
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WebhookSender webhookSender;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Value("${WEBHOOK_ENABLED:true}")
+    private boolean enabled;
+
+    @Value("${WEBHOOK_MAX_IN_FLIGHT:256}")
+    private int maxInFlight;
+
+    @Value("${WEBHOOK_BATCH_SIZE:200}")
+    private int batchSize;
+
+    @Value("${WEBHOOK_POLL_INTERVAL:1000}")
+    private long pollInterval;
+
+    @Value("${WEBHOOK_LEASE_SECONDS:60}")
+    private long leaseSeconds;
+
+    @Value("${WEBHOOK_MAX_ATTEMPTS:8}")
+    private int maxAttempts;
+
+    @Value("${WEBHOOK_RETRY_BASE_SECONDS:10}")
+    private long retryBaseSeconds;
+
+    @Value("${WEBHOOK_RETRY_MAX_SECONDS:3600}")
+    private long retryMaxSeconds;
+
+    private final String workerId = UUID.randomUUID().toString();
+
+    private final BlockingQueue<Attempt> outcomes = new LinkedBlockingQueue<>();
+
+    private Semaphore slots;
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    // System.nanoTime() of the next claim; moved forward when the last claim found nothing more
+    private volatile long nextClaimAt;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        slots = new Semaphore(maxInFlight);
+        running = true;
+        nextClaimAt = System.nanoTime();
+        dispatcher = Thread.ofPlatform().name("webhook-dispatcher").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (dispatcher == null) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        // Deliveries still in flight are sent again once their lease expires
+        List<Attempt> remaining = new ArrayList<>();
+        outcomes.drainTo(remaining);
+        record(remaining);
+    }
+
+    // Called when events have just been queued, so they go out without waiting for the next poll
+    public void wakeUp() {
+        if (dispatcher != null) {
+            nextClaimAt = System.nanoTime();
+            outcomes.offer(WAKE_UP);
+        }
+    }
+
+    private void run() {
+        List<Attempt> batch = new ArrayList<>();
+        while (running) {
+            try {
+                long now = System.nanoTime();
+                int free = slots.availablePermits();
+                if (free > 0 && now - nextClaimAt >= 0) {
+                    int limit = Math.min(free, batchSize);
+                    int claimed = dispatch(limit);
+                    // A full claim means more events are probably due; otherwise wait for the next poll
+                    nextClaimAt = claimed < limit ? now + TimeUnit.MILLISECONDS.toNanos(pollInterval) : now;
+                }
+
+                // Wait for outcomes until the next claim is due. With every slot busy there is nothing to
+                // claim until a delivery finishes, and that finishing queues an outcome.
+                long wait = slots.availablePermits() > 0
+                    ? Math.max(0, nextClaimAt - System.nanoTime())
+                    : TimeUnit.MILLISECONDS.toNanos(pollInterval);
+                Attempt first = outcomes.poll(wait, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    outcomes.drainTo(batch);
+                    record(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Shutting down; stop() records what is still queued
+                outcomes.addAll(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to dispatch webhook events", e);
+                nextClaimAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pollInterval);
+                batch.clear();
+            }
+        }
+    }
+
+    private int dispatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ClaimedEvent> claimed = webhookEventRepository.claimDue(
+            workerId, now, now.plusSeconds(leaseSeconds), limit);
+        for (ClaimedEvent event : claimed) {
+            deliver(event);
+        }
+        return claimed.size();
+    }
+
+    private void deliver(ClaimedEvent event) {
+        if (event.getWebhookUrl() == null || event.getWebhookUrl().isBlank()) {
+            outcomes.add(failed(event, null, "No webhook URL configured"));
+            return;
+        }
+        slots.acquireUninterruptibly();
+        long startedAt = System.nanoTime();
+        webhookSender.send(event.getWebhookUrl(), event.getApiSecret(), event.getId(), event.getEvent(),
+                event.getPayload())
+            .whenComplete((statusCode, error) -> {
+                try {
+                    gatewayMetrics.webhookDelivered(error == null && statusCode >= 200 && statusCode < 300,
+                        System.nanoTime() - startedAt);
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                        outcomes.add(failed(event, null, cause.getClass().getSimpleName() + ": " + cause.getMessage()));
+                    } else if (statusCode >= 200 && statusCode < 300) {
+                        LocalDateTime now = LocalDateTime.now();
+                        outcomes.add(new Attempt(event.getId(), workerId, "delivered", now, now, statusCode, null));
+                    } else {
+                        outcomes.add(failed(event, statusCode, "HTTP " + statusCode));
+                    }
+                } finally {
+                    slots.release();
+                }
+            });
+    }
+
+    // Schedules the next attempt with exponential backoff, or gives up once attempts are exhausted
+    private Attempt failed(ClaimedEvent event, Integer statusCode, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        if (event.getAttempts() >= maxAttempts) {
+            log.warn("Webhook event {} is dead after {} attempts: {}", event.getId(), event.getAttempts(), error);
+            return new Attempt(event.getId(), workerId, "dead", now, null, statusCode, error);
+        }
+        // Half fixed, half random, so events that failed together do not all come back at once
+        long delay = retryBaseSeconds << Math.min(event.getAttempts() - 1, 20);
+        delay = Math.min(delay, retryMaxSeconds) * 1000;
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        return new Attempt(event.getId(), workerId, "pending", now.plusNanos(delay * 1_000_000), null, statusCode, error);
+    }
+
+    private void record(List<Attempt> batch) {
+        batch.removeIf(attempt -> attempt == WAKE_UP);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            webhookEventRepository.recordAll(batch);
+        } catch (RuntimeException e) {
+            // The leases expire and the events are delivered again
+            log.error("Failed to record {} webhook delivery outcomes", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.gateway.services;
+
+import com.gateway.utils.WebhookSignature;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP side of webhook delivery. One shared client keeps connections to merchant endpoints alive
+// between deliveries; requests are sent asynchronously, so no thread waits on a slow endpoint, and the
+// client's callbacks run on a fixed pool of WEBHOOK_HTTP_THREADS.
+@Service
+public class WebhookSender {
+
+    public static final String ID_HEADER = "X-Webhook-Id";
+    public static final String EVENT_HEADER = "X-Webhook-Event";
+    public static final String TIMESTAMP_HEADER = "X-Webhook-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+
+    @Value("${WEBHOOK_HTTP_THREADS:4}")
+    private int httpThreads;
+
+    @Value("${WEBHOOK_CONNECT_TIMEOUT:5000}")
+    private long connectTimeout;
+
+    @Value("${WEBHOOK_TIMEOUT:10000}")
+    private long requestTimeout;
+
+    private ExecutorService executor;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(httpThreads,
+            Thread.ofPlatform().name("webhook-http-", 1).daemon(true).factory());
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeout))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Completes with the response status; fails on an invalid URL, connection error or timeout
+    public CompletableFuture<Integer> send(String url, String secret, String eventId, String event, String payload) {
+        HttpRequest request;
+        try {
+            long timestamp = System.currentTimeMillis() / 1000;
+            request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeout))
+                .header("Content-Type", "application/json")
+                .header(ID_HEADER, eventId)
+                .header(EVENT_HEADER, event)
+                .header(TIMESTAMP_HEADER, Long.toString(timestamp))
+                .header(SIGNATURE_HEADER, WebhookSignature.header(secret, timestamp, payload))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid webhook URL: " + url, e));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(HttpResponse::statusCode);
+    }
+}
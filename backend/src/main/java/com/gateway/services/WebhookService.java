@@ -0,0 +1,107 @@
+package com.gateway.services;
+
+import com.gateway.dto.WebhookEventResponse;
+import com.gateway.repositories.WebhookEventRepository;
+import com.gateway.repositories.WebhookEventRepository.WebhookEvent;
+import com.gateway.utils.ApiTimestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+// Merchant-facing view of the webhook outbox: recent events with their delivery state, and manual
+// redelivery of dead (or already delivered) events
+@Service
+public class WebhookService {
+
+    public static final String EVENT_NOT_FOUND_MESSAGE = "Webhook event not found";
+    public static final String EVENT_PENDING_MESSAGE = "Webhook event is already pending delivery";
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookService.class);
+
+    private static final Set<String> STATUSES = Set.of("pending", "delivered", "dead");
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WebhookDispatcher webhookDispatcher;
+
+    @Value("${WEBHOOK_RETENTION_DAYS:7}")
+    private long retentionDays;
+
+    public List<WebhookEventResponse> getEvents(UUID merchantId, String status, Integer limit) {
+        if (status != null && !STATUSES.contains(status)) {
+            throw new RuntimeException("status must be one of pending, delivered, dead");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new RuntimeException("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        List<WebhookEvent> events = webhookEventRepository.findByMerchant(
+            merchantId, status, limit != null ? limit : DEFAULT_LIMIT);
+        List<WebhookEventResponse> responses = new ArrayList<>(events.size());
+        for (WebhookEvent event : events) {
+            responses.add(toResponse(event));
+        }
+        return responses;
+    }
+
+    // Queues the event for immediate delivery with a fresh set of attempts
+    public WebhookEventResponse retryEvent(UUID merchantId, String eventId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!webhookEventRepository.retry(merchantId, eventId, now)) {
+            if (!webhookEventRepository.findById(merchantId, eventId).isPresent()) {
+                throw new RuntimeException(EVENT_NOT_FOUND_MESSAGE);
+            }
+            throw new RuntimeException(EVENT_PENDING_MESSAGE);
+        }
+        webhookDispatcher.wakeUp();
+
+        Optional<WebhookEvent> event = webhookEventRepository.findById(merchantId, eventId);
+        return toResponse(event.orElseThrow(() -> new RuntimeException(EVENT_NOT_FOUND_MESSAGE)));
+    }
+
+    // Delivered events are only kept for WEBHOOK_RETENTION_DAYS; dead ones stay until retried
+    @Scheduled(fixedDelayString = "${WEBHOOK_PURGE_INTERVAL:3600000}")
+    public void purgeDelivered() {
+        try {
+            int purged = webhookEventRepository.purgeDelivered(LocalDateTime.now().minusDays(retentionDays));
+            if (purged > 0) {
+                log.info("Purged {} delivered webhook events", purged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to purge delivered webhook events", e);
+        }
+    }
+
+    private WebhookEventResponse toResponse(WebhookEvent event) {
+        WebhookEventResponse response = new WebhookEventResponse();
+        response.setId(event.getId());
+        response.setPaymentId(event.getPaymentId());
+        response.setEvent(event.getEvent());
+        response.setStatus(event.getStatus());
+        response.setAttempts(event.getAttempts());
+        // Only meaningful while the event is waiting for another attempt
+        if ("pending".equals(event.getStatus())) {
+            response.setNextAttemptAt(ApiTimestamps.format(event.getNextAttemptAt()));
+        }
+        response.setLastResponseCode(event.getLastResponseCode());
+        response.setLastError(event.getLastError());
+        response.setCreatedAt(ApiTimestamps.format(event.getCreatedAt()));
+        response.setDeliveredAt(ApiTimestamps.format(event.getDeliveredAt()));
+        return response;
+    }
+}
@@ -0,0 +1,15 @@
+package com.gateway.utils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// The timestamp format of every API response. DateTimeFormatter is immutable and thread-safe, so one
+// instance is shared instead of parsing the pattern again for each field of each row.
+public class ApiTimestamps {
+
+    public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    public static String format(LocalDateTime timestamp) {
+        return timestamp != null ? FORMAT.format(timestamp) : null;
+    }
+}
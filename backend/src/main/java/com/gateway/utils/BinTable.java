@@ -0,0 +1,319 @@
+package com.gateway.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Card metadata by BIN/IIN prefix. Prefixes are normalized to PREFIX_DIGITS digits, so a range such as
+// 2221-2720 becomes [22210000, 27209999]; ranges are held as non-overlapping sorted primitive arrays
+// and looked up with a binary search. Distinct entries are stored once and referenced by a short
+// index, so a range costs 10 bytes. Immutable once built, so it can be swapped atomically.
+public class BinTable {
+
+    public static final int PREFIX_DIGITS = 8;
+
+    private static final BinTable DEFAULTS = defaultRanges().build();
+
+    private final int[] starts;
+    private final int[] ends;
+    private final short[] infoIds;
+    private final BinInfo[] infos;
+
+    private BinTable(int[] starts, int[] ends, short[] infoIds, BinInfo[] infos) {
+        this.starts = starts;
+        this.ends = ends;
+        this.infoIds = infoIds;
+        this.infos = infos;
+    }
+
+    // The built-in network rules, used when no BIN data is configured
+    public static BinTable defaults() {
+        return DEFAULTS;
+    }
+
+    // A builder holding the built-in network rules
+    public static Builder defaultRanges() {
+        return new Builder()
+            .add("4", "4", new BinInfo("visa"))
+            .add("51", "55", new BinInfo("mastercard"))
+            .add("2221", "2720", new BinInfo("mastercard"))
+            .add("34", "34", new BinInfo("amex"))
+            .add("37", "37", new BinInfo("amex"))
+            .add("60", "60", new BinInfo("rupay"))
+            .add("65", "65", new BinInfo("rupay"))
+            .add("81", "89", new BinInfo("rupay"))
+            .add("5085", "5089", new BinInfo("rupay"));
+    }
+
+    // Looks up the first PREFIX_DIGITS digits of a card number; returns null when no range matches
+    public BinInfo lookup(int prefix) {
+        int index = indexOf(prefix);
+        return index >= 0 ? infos[infoIds[index]] : null;
+    }
+
+    // Looks up a prefix of fewer than PREFIX_DIGITS digits; it only matches when a single range
+    // covers every number starting with it, so "6" is unknown while "4" is visa
+    public BinInfo lookup(int prefix, int digits) {
+        int low = prefix;
+        int high = prefix;
+        for (int i = digits; i < PREFIX_DIGITS; i++) {
+            low = low * 10;
+            high = high * 10 + 9;
+        }
+        int index = indexOf(low);
+        return index >= 0 && high <= ends[index] ? infos[infoIds[index]] : null;
+    }
+
+    private int indexOf(int prefix) {
+        int index = Arrays.binarySearch(starts, prefix);
+        if (index < 0) {
+            // Last range starting before the prefix
+            index = -index - 2;
+            if (index < 0 || prefix > ends[index]) {
+                return -1;
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    // Card type and country are null when the source does not know them
+    public static class BinInfo {
+        private final String network;
+        private final String cardType;
+        private final String country;
+
+        public BinInfo(String network) {
+            this(network, null, null);
+        }
+
+        public BinInfo(String network, String cardType, String country) {
+            this.network = network;
+            this.cardType = cardType;
+            this.country = country;
+        }
+
+        public String getNetwork() {
+            return network;
+        }
+
+        public String getCardType() {
+            return cardType;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BinInfo)) {
+                return false;
+            }
+            BinInfo other = (BinInfo) o;
+            return Objects.equals(network, other.network)
+                && Objects.equals(cardType, other.cardType)
+                && Objects.equals(country, other.country);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(network, cardType, country);
+        }
+    }
+
+    // Collects ranges in any order. Where ranges overlap the narrower one wins, so a broad network
+    // range can be refined by more specific entries regardless of the order they are added in.
+    public static class Builder {
+        private final List<int[]> ranges = new ArrayList<>();
+        private final List<BinInfo> infos = new ArrayList<>();
+        private final Map<BinInfo, Integer> infoIds = new HashMap<>();
+
+        // Both bounds are digit prefixes of up to PREFIX_DIGITS digits, e.g. ("51", "55")
+        public Builder add(String startPrefix, String endPrefix, BinInfo info) {
+            int start = normalize(startPrefix, '0');
+            int end = normalize(endPrefix, '9');
+            if (start > end) {
+                throw new IllegalArgumentException("BIN range " + startPrefix + "-" + endPrefix + " is empty");
+            }
+
+            ranges.add(new int[] {start, end, infoId(info)});
+            return this;
+        }
+
+        public BinTable build() {
+            return build(null);
+        }
+
+        // Ranges of fallback only answer for BINs that no added range covers. Unlike adding them, this
+        // keeps a sorted, disjoint file on the fast path even where it overlaps the fallback.
+        public BinTable build(BinTable fallback) {
+            BinTable table = buildAdded();
+            return fallback != null ? fillGaps(table, fallback) : table;
+        }
+
+        private BinTable buildAdded() {
+            BinInfo[] infoArray = infos.toArray(new BinInfo[0]);
+
+            // BIN files are usually sorted and disjoint already, which needs no painting
+            List<int[]> sorted = new ArrayList<>(ranges);
+            sorted.sort((a, b) -> Integer.compare(a[0], b[0]));
+            if (isDisjoint(sorted)) {
+                int size = sorted.size();
+                int[] starts = new int[size];
+                int[] ends = new int[size];
+                short[] ids = new short[size];
+                for (int i = 0; i < size; i++) {
+                    int[] range = sorted.get(i);
+                    starts[i] = range[0];
+                    ends[i] = range[1];
+                    ids[i] = (short) range[2];
+                }
+                return new BinTable(starts, ends, ids, infoArray);
+            }
+
+            // Paint the widest ranges first so narrower ones overwrite the part they cover
+            sorted.sort((a, b) -> Long.compare((long) b[1] - b[0], (long) a[1] - a[0]));
+
+            TreeMap<Integer, int[]> painted = new TreeMap<>();
+            for (int[] range : sorted) {
+                paint(painted, range[0], range[1], range[2]);
+            }
+
+            int size = painted.size();
+            int[] starts = new int[size];
+            int[] ends = new int[size];
+            short[] ids = new short[size];
+            int i = 0;
+            for (Map.Entry<Integer, int[]> entry : painted.entrySet()) {
+                starts[i] = entry.getKey();
+                ends[i] = entry.getValue()[0];
+                ids[i] = (short) entry.getValue()[1];
+                i++;
+            }
+            return new BinTable(starts, ends, ids, infoArray);
+        }
+
+        public int size() {
+            return ranges.size();
+        }
+
+        // Entries are shared between ranges so the table stores one small index per range
+        private int infoId(BinInfo info) {
+            Integer infoId = infoIds.get(info);
+            if (infoId == null) {
+                infoId = infos.size();
+                if (infoId > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Too many distinct BIN entries");
+                }
+                infos.add(info);
+                infoIds.put(info, infoId);
+            }
+            return infoId;
+        }
+
+        // One merge pass over both sorted tables: the parts of each fallback range that fall between
+        // the table's ranges are cut out and interleaved with them
+        private BinTable fillGaps(BinTable table, BinTable fallback) {
+            int[] fallbackIds = new int[fallback.infos.length];
+            for (int i = 0; i < fallbackIds.length; i++) {
+                fallbackIds[i] = infoId(fallback.infos[i]);
+            }
+
+            int count = table.starts.length;
+            // Each fallback range can be cut once per table range, plus its own last piece
+            int capacity = 2 * count + fallback.starts.length;
+            int[] starts = new int[capacity];
+            int[] ends = new int[capacity];
+            short[] ids = new short[capacity];
+            int size = 0;
+            int next = 0;
+
+            for (int f = 0; f < fallback.starts.length; f++) {
+                int current = fallback.starts[f];
+                int end = fallback.ends[f];
+                short id = (short) fallbackIds[fallback.infoIds[f]];
+                while (current <= end) {
+                    while (next < count && table.ends[next] < current) {
+                        starts[size] = table.starts[next];
+                        ends[size] = table.ends[next];
+                        ids[size++] = table.infoIds[next++];
+                    }
+                    if (next < count && table.starts[next] <= current) {
+                        current = table.ends[next] + 1;
+                        continue;
+                    }
+                    int gapEnd = next < count ? Math.min(end, table.starts[next] - 1) : end;
+                    starts[size] = current;
+                    ends[size] = gapEnd;
+                    ids[size++] = id;
+                    current = gapEnd + 1;
+                }
+            }
+            while (next < count) {
+                starts[size] = table.starts[next];
+                ends[size] = table.ends[next];
+                ids[size++] = table.infoIds[next++];
+            }
+
+            return new BinTable(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), Arrays.copyOf(ids, size),
+                infos.toArray(new BinInfo[0]));
+        }
+
+        private static boolean isDisjoint(List<int[]> sortedByStart) {
+            for (int i = 1; i < sortedByStart.size(); i++) {
+                if (sortedByStart.get(i)[0] <= sortedByStart.get(i - 1)[1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Replaces whatever currently covers [start, end]; painted maps start -> {end, infoId}
+        private static void paint(TreeMap<Integer, int[]> painted, int start, int end, int infoId) {
+            Map.Entry<Integer, int[]> before = painted.lowerEntry(start);
+            if (before != null && before.getValue()[0] >= start) {
+                int[] split = before.getValue();
+                if (split[0] > end) {
+                    painted.put(end + 1, new int[] {split[0], split[1]});
+                }
+                painted.put(before.getKey(), new int[] {start - 1, split[1]});
+            }
+
+            Iterator<Map.Entry<Integer, int[]>> covered = painted.subMap(start, true, end, true).entrySet().iterator();
+            while (covered.hasNext()) {
+                int[] range = covered.next().getValue();
+                covered.remove();
+                if (range[0] > end) {
+                    painted.put(end + 1, range);
+                    break;
+                }
+            }
+
+            painted.put(start, new int[] {end, infoId});
+        }
+
+        private static int normalize(String prefix, char padding) {
+            if (prefix == null || prefix.isEmpty() || prefix.length() > PREFIX_DIGITS) {
+                throw new IllegalArgumentException("BIN prefix must have 1 to " + PREFIX_DIGITS + " digits: " + prefix);
+            }
+            int value = 0;
+            for (int i = 0; i < PREFIX_DIGITS; i++) {
+                char c = i < prefix.length() ? prefix.charAt(i) : padding;
+                if (c < '0' || c > '9') {
+                    throw new IllegalArgumentException("BIN prefix must be numeric: " + prefix);
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.gateway.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads a BIN range file into a BinTable. One range per line:
+//
+//   start_prefix,end_prefix,network[,card_type[,country]]
+//
+// e.g. "22210000,27209999,mastercard,credit,US". Prefixes have 1 to 8 digits; blank lines and lines
+// starting with # are skipped. Network and card type are lower-cased, country is upper-cased. The
+// built-in network rules still answer for BINs the file leaves out, but never override its entries.
+public class BinTableLoader {
+
+    public static BinTable load(Path path) throws IOException {
+        BinTable.Builder builder = new BinTable.Builder();
+        // Repeated column values share one String
+        Map<String, String> values = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+
+                String[] columns = line.split(",", -1);
+                if (columns.length < 3 || columns.length > 5) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + ": expected 3 to 5 columns");
+                }
+                String network = column(columns, 2, values, false);
+                if (network == null) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + ": network is required");
+                }
+                BinTable.BinInfo info = new BinTable.BinInfo(
+                    network,
+                    column(columns, 3, values, false),
+                    column(columns, 4, values, true)
+                );
+
+                try {
+                    builder.add(columns[0].trim(), columns[1].trim(), info);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+
+        if (builder.size() == 0) {
+            throw new IllegalArgumentException(path + ": no BIN ranges");
+        }
+        return builder.build(BinTable.defaults());
+    }
+
+    private static String column(String[] columns, int index, Map<String, String> values, boolean upperCase) {
+        if (index >= columns.length) {
+            return null;
+        }
+        String value = columns[index].trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        value = upperCase ? value.toUpperCase(Locale.ROOT) : value.toLowerCase(Locale.ROOT);
+        return values.computeIfAbsent(value, v -> v);
+    }
+}
@@ -0,0 +1,150 @@
+package com.gateway.utils;
+
+// Single pass over a card number that skips whitespace and dash separators, checks the digit count
+// and Luhn checksum, and keeps the leading digits for the BIN lookup. Nothing is allocated while
+// scanning; a valid number produces one ParsedCard (plus a String if getLast4 is called) and every
+// invalid number shares INVALID.
+public class CardNumberParser {
+
+    public static final int MIN_DIGITS = 13;
+    public static final int MAX_DIGITS = 19;
+
+    public static final ParsedCard INVALID = new ParsedCard(false, 0, 0, null);
+
+    // Luhn contribution of a doubled digit
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+    public static ParsedCard parse(CharSequence number, BinTable binTable) {
+        if (number == null) {
+            return INVALID;
+        }
+
+        int digits = 0;
+        // Luhn sums for the two possible parities, since the digit count is only known at the end
+        int sumDoublingEven = 0;
+        int sumDoublingOdd = 0;
+        int prefix = 0;
+        // The last four digits one per nibble, so no division is needed while scanning
+        int lastDigits = 0;
+
+        for (int i = 0, length = number.length(); i < length; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_DIGITS) {
+                    return INVALID;
+                }
+                int digit = c - '0';
+                if ((digits & 1) == 0) {
+                    sumDoublingEven += DOUBLED[digit];
+                    sumDoublingOdd += digit;
+                } else {
+                    sumDoublingEven += digit;
+                    sumDoublingOdd += DOUBLED[digit];
+                }
+                if (digits < BinTable.PREFIX_DIGITS) {
+                    prefix = prefix * 10 + digit;
+                }
+                lastDigits = (lastDigits << 4) | digit;
+                digits++;
+            } else if (!isSeparator(c)) {
+                return INVALID;
+            }
+        }
+
+        if (digits < MIN_DIGITS) {
+            return INVALID;
+        }
+
+        // The rightmost digit is never doubled, so with an even count the doubled digits are those
+        // at even positions from the left
+        int sum = (digits & 1) == 0 ? sumDoublingEven : sumDoublingOdd;
+        if (sum % 10 != 0) {
+            return INVALID;
+        }
+
+        return new ParsedCard(true, digits, lastDigits & 0xFFFF, binTable.lookup(prefix));
+    }
+
+    // Network of the leading digits, without validating the rest of the number
+    public static String detectNetwork(CharSequence number, BinTable binTable) {
+        if (number == null) {
+            return ParsedCard.UNKNOWN_NETWORK;
+        }
+
+        int digits = 0;
+        int prefix = 0;
+        for (int i = 0, length = number.length(); i < length && digits < BinTable.PREFIX_DIGITS; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                prefix = prefix * 10 + (c - '0');
+                digits++;
+            } else if (!isSeparator(c)) {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return ParsedCard.UNKNOWN_NETWORK;
+        }
+
+        BinTable.BinInfo info = binTable.lookup(prefix, digits);
+        return info != null ? info.getNetwork() : ParsedCard.UNKNOWN_NETWORK;
+    }
+
+    // The characters the previous [\s-] pattern removed
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    public static class ParsedCard {
+        public static final String UNKNOWN_NETWORK = "unknown";
+
+        private final boolean valid;
+        private final int digits;
+        // Packed one digit per nibble
+        private final int last4;
+        private final BinTable.BinInfo binInfo;
+
+        private ParsedCard(boolean valid, int digits, int last4, BinTable.BinInfo binInfo) {
+            this.valid = valid;
+            this.digits = digits;
+            this.last4 = last4;
+            this.binInfo = binInfo;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public int getDigits() {
+            return digits;
+        }
+
+        public String getNetwork() {
+            return binInfo != null ? binInfo.getNetwork() : UNKNOWN_NETWORK;
+        }
+
+        // Formatted on demand so rejected numbers never allocate it
+        public String getLast4() {
+            if (!valid) {
+                return null;
+            }
+            char[] chars = new char[4];
+            for (int i = 3, value = last4; i >= 0; i--, value >>>= 4) {
+                chars[i] = (char) ('0' + (value & 0xF));
+            }
+            return new String(chars);
+        }
+
+        public String getCardType() {
+            return binInfo != null ? binInfo.getCardType() : null;
+        }
+
+        public String getCountry() {
+            return binInfo != null ? binInfo.getCountry() : null;
+        }
+
+        public BinTable.BinInfo getBinInfo() {
+            return binInfo;
+        }
+    }
+}
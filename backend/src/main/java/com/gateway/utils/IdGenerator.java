@@ -1,25 +1,161 @@
 package com.gateway.utils;
 
-import java.util.Random;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+// Order and payment ids: a prefix followed by 16 characters from CHARACTERS. The mode is chosen once at
+// startup (see IdGeneratorConfig):
+//
+//   random   - 16 random characters from ThreadLocalRandom (default)
+//   secure   - 16 random characters from SecureRandom, for deployments that need unpredictable ids
+//   sortable - time-ordered: 8 characters of millisecond timestamp, then node, stripe, sequence and
+//              random bits, so new rows land at the right edge of the primary key index
+//
+// Per-thread state lives in STRIPES slots picked by thread id rather than in ThreadLocals, which
+// would be rebuilt for every virtual thread; threads only contend when they share a slot.
 public class IdGenerator {
-    
+
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    private static final Random RANDOM = new Random();
-    
+    private static final int ID_LENGTH = 16;
+
+    // Digits then upper case: the subset whose order is the same under C and locale collations
+    private static final String SORTABLE_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int TIMESTAMP_LENGTH = 8;
+    // 2024-01-01T00:00:00Z; 36^8 milliseconds from here lasts until 2113
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int STRIPE_BITS = 6;
+    private static final int SEQUENCE_BITS = 16;
+    private static final int RANDOM_BITS = 15;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    public enum Mode { RANDOM, SECURE, SORTABLE }
+
+    private static volatile Mode mode = Mode.RANDOM;
+    private static volatile int nodeId = ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1);
+
+    // Per stripe: last timestamp << SEQUENCE_BITS | sequence. Stripes are spaced 8 longs apart so
+    // neighbouring slots do not share a cache line.
+    private static final int PADDING = 8;
+    private static final AtomicLongArray CLOCKS = new AtomicLongArray(STRIPES * PADDING);
+
+    // Created on first use, so only the secure mode pays for seeding them
+    private static class SecureRandoms {
+        static final SecureRandom[] STRIPED = new SecureRandom[STRIPES];
+
+        static {
+            for (int i = 0; i < STRIPES; i++) {
+                STRIPED[i] = new SecureRandom();
+            }
+        }
+    }
+
+    // A negative node id keeps the random one picked at class load
+    public static void configure(Mode idMode, int idNodeId) {
+        if (idNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ID node id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (idNodeId >= 0) {
+            nodeId = idNodeId;
+        }
+        mode = idMode;
+    }
+
+    public static Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown ID generator mode: " + value);
+        }
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static int getNodeId() {
+        return nodeId;
+    }
+
     public static String generateOrderId() {
-        return "order_" + generateRandomString(16);
+        return generate("order_");
     }
-    
+
     public static String generatePaymentId() {
-        return "pay_" + generateRandomString(16);
+        return generate("pay_");
+    }
+
+    private static String generate(String prefix) {
+        char[] id = new char[prefix.length() + ID_LENGTH];
+        prefix.getChars(0, prefix.length(), id, 0);
+        switch (mode) {
+            case SORTABLE -> fillSortable(id, prefix.length());
+            case SECURE -> fillRandom(id, prefix.length(), ID_LENGTH, SecureRandoms.STRIPED[stripe()]);
+            default -> fillRandom(id, prefix.length(), ID_LENGTH, null);
+        }
+        return new String(id);
+    }
+
+    private static int stripe() {
+        return (int) (Thread.currentThread().threadId() & (STRIPES - 1));
     }
-    
-    private static String generateRandomString(int length) {
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            result.append(CHARACTERS.charAt(RANDOM.nextInt(CHARACTERS.length())));
+
+    // Six random bits per character, skipping the two values past the alphabet to avoid bias
+    private static void fillRandom(char[] id, int offset, int length, SecureRandom secureRandom) {
+        int end = offset + length;
+        while (offset < end) {
+            long bits = secureRandom != null ? secureRandom.nextLong() : ThreadLocalRandom.current().nextLong();
+            for (int i = 0; i < 10 && offset < end; i++, bits >>>= 6) {
+                int index = (int) (bits & 63);
+                if (index < CHARACTERS.length()) {
+                    id[offset++] = CHARACTERS.charAt(index);
+                }
+            }
+        }
+    }
+
+    private static void fillSortable(char[] id, int offset) {
+        int stripe = stripe();
+        long millis = System.currentTimeMillis() - EPOCH_MILLIS;
+
+        // Never goes backwards within a stripe: a clock step back or an exhausted sequence borrows
+        // the next millisecond instead of waiting for it
+        int slot = stripe * PADDING;
+        long previous;
+        long next;
+        do {
+            previous = CLOCKS.get(slot);
+            long previousMillis = previous >>> SEQUENCE_BITS;
+            if (millis > previousMillis) {
+                next = millis << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (previousMillis + 1) << SEQUENCE_BITS;
+            }
+        } while (!CLOCKS.compareAndSet(slot, previous, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        for (int i = offset + TIMESTAMP_LENGTH - 1; i >= offset; i--) {
+            id[i] = SORTABLE_CHARACTERS.charAt((int) (timestamp % SORTABLE_CHARACTERS.length()));
+            timestamp /= SORTABLE_CHARACTERS.length();
+        }
+
+        // 47 bits fit in the remaining 8 characters (62^8 > 2^47). Node, stripe and sequence make the
+        // id unique; the random bits make neighbouring ids harder to guess.
+        long tail = (long) nodeId;
+        tail = (tail << STRIPE_BITS) | stripe;
+        tail = (tail << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+        tail = (tail << RANDOM_BITS) | ThreadLocalRandom.current().nextInt(1 << RANDOM_BITS);
+        for (int i = offset + ID_LENGTH - 1; i >= offset + TIMESTAMP_LENGTH; i--) {
+            id[i] = CHARACTERS.charAt((int) (tail % CHARACTERS.length()));
+            tail /= CHARACTERS.length();
         }
-        return result.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.gateway.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets, one per key, in a ConcurrentHashMap. A bucket holds up to `burst` tokens and earns
+// `ratePerSecond` of them per second. Rather than a token count and a refill time, each bucket is a
+// single AtomicLong: the nanoTime at which it will be full again (the generic cell rate algorithm).
+// Taking a token moves that time one token-interval later and is allowed while it stays within
+// `burst` intervals of now, so an acquire is one CAS, with no lock and no refill arithmetic.
+//
+// A bucket whose full-again time has passed is the same as no bucket, which is what sweep() removes.
+// Once maxKeys keys are tracked, new keys share one overflow bucket until the next sweep, so a flood
+// of distinct keys cannot grow the map without bound.
+public class RateLimiter<K> {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int burst;
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final int maxKeys;
+
+    private final Map<K, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow;
+
+    public RateLimiter(double ratePerSecond, int burst, int maxKeys) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.burst = burst;
+        this.intervalNanos = Math.max(1, Math.round(NANOS_PER_SECOND / ratePerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+        this.overflow = new AtomicLong(System.nanoTime());
+    }
+
+    public Decision tryAcquire(K key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxKeys ? buckets.computeIfAbsent(key, k -> new AtomicLong(now)) : overflow;
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > capacityNanos) {
+                // Denied: a token is earned once the bucket is within capacity again
+                return new Decision(false, burst, 0, ahead - capacityNanos, fullAt - now);
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return new Decision(true, burst, (int) ((capacityNanos - ahead) / intervalNanos), 0, ahead);
+            }
+        }
+    }
+
+    // Drops buckets that have refilled completely. A request racing the removal may take its token
+    // from the dropped bucket, which at worst grants that key one extra token.
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public static class Decision {
+        private final boolean allowed;
+        private final int limit;
+        private final int remaining;
+        private final long retryAfterNanos;
+        private final long resetNanos;
+
+        private Decision(boolean allowed, int limit, int remaining, long retryAfterNanos, long resetNanos) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.retryAfterNanos = retryAfterNanos;
+            this.resetNanos = resetNanos;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        // Bucket size, i.e. the most requests allowed at once
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        // Until the next token when denied, otherwise 0
+        public long getRetryAfterNanos() {
+            return retryAfterNanos;
+        }
+
+        // Until the bucket is full again
+        public long getResetNanos() {
+            return Math.max(0, resetNanos);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.gateway.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+// Signatures sent with webhook deliveries: hex HMAC-SHA256, keyed with the merchant's API secret, over
+// "<timestamp>.<body>". The timestamp (Unix seconds) is sent alongside so receivers can reject replays.
+public class WebhookSignature {
+
+    public static final String VERSION = "v1";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    public static String sign(String secret, long timestamp, String payload) {
+        try {
+            // Mac instances are not thread-safe and each merchant has its own key, so one per call
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            mac.update(Long.toString(timestamp).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '.');
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    // Header value: "v1=<hex>"
+    public static String header(String secret, long timestamp, String payload) {
+        return VERSION + "=" + sign(secret, timestamp, payload);
+    }
+}
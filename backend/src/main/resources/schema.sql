@@ -14,23 +14,30 @@ CREATE TABLE IF NOT EXISTS merchants (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Orders and payments are partitioned by month of created_at. Monthly partitions are created ahead of
+-- time, and old ones moved to the archive schema, by PartitionMaintenanceService, which also converts
+-- tables created before partitioning on first start. A partitioned table's primary key must include the
+-- partition key, so ids are unique per month here and unique overall by construction. A lookup by id
+-- alone therefore probes every live partition's primary key index (see README, Partitioning).
+
 -- Orders Table
 CREATE TABLE IF NOT EXISTS orders (
-    id VARCHAR(64) PRIMARY KEY,
+    id VARCHAR(64) NOT NULL,
     merchant_id UUID NOT NULL REFERENCES merchants(id),
     amount INTEGER NOT NULL,
     currency VARCHAR(3) DEFAULT 'INR',
     receipt VARCHAR(255),
     notes JSONB,
     status VARCHAR(20) DEFAULT 'created',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
 
--- Payments Table
+-- Payments Table. order_id cannot reference orders: the key of a partitioned table includes created_at
 CREATE TABLE IF NOT EXISTS payments (
-    id VARCHAR(64) PRIMARY KEY,
-    order_id VARCHAR(64) NOT NULL REFERENCES orders(id),
+    id VARCHAR(64) NOT NULL,
+    order_id VARCHAR(64) NOT NULL,
     merchant_id UUID NOT NULL REFERENCES merchants(id),
     amount INTEGER NOT NULL,
     currency VARCHAR(3) DEFAULT 'INR',
@@ -41,14 +48,150 @@ CREATE TABLE IF NOT EXISTS payments (
     card_last4 VARCHAR(4),
     error_code VARCHAR(50),
     error_description TEXT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    process_after TIMESTAMP,
+    lease_owner VARCHAR(64),
+    lease_expires_at TIMESTAMP,
+    attempts INTEGER DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Rows whose month has no partition yet land in a default partition rather than failing, so inserts
+-- never depend on PartitionMaintenanceService having run (the reactive API never runs it). When it
+-- creates a month it moves that month's rows out of here. Tables still to be converted get theirs
+-- on conversion. Quoted rather than dollar-quoted so the script splitter keeps the block together.
+DO '
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''orders'')) = ''p'' THEN
+        CREATE TABLE IF NOT EXISTS orders_default PARTITION OF orders DEFAULT;
+    END IF;
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''payments'')) = ''p'' THEN
+        CREATE TABLE IF NOT EXISTS payments_default PARTITION OF payments DEFAULT;
+    END IF;
+END';
+
+-- Dropped ahead of converting a payments table created before partitioning
+ALTER TABLE payments DROP CONSTRAINT IF EXISTS payments_order_id_fkey;
+
+-- Processing queue columns for databases created before they were added
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS process_after TIMESTAMP;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(64);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS attempts INTEGER DEFAULT 0;
+UPDATE payments SET process_after = created_at WHERE status = 'processing' AND process_after IS NULL;
+
+-- Archived months of orders and payments, searched by id when a lookup misses the live tables. Archived
+-- partitions are attached here as they are, so columns added to orders or payments must be added to
+-- these tables too
+CREATE SCHEMA IF NOT EXISTS archive;
+CREATE TABLE IF NOT EXISTS archive.orders (LIKE orders INCLUDING DEFAULTS, PRIMARY KEY (id, created_at))
+    PARTITION BY RANGE (created_at);
+CREATE TABLE IF NOT EXISTS archive.payments (LIKE payments INCLUDING DEFAULTS, PRIMARY KEY (id, created_at))
+    PARTITION BY RANGE (created_at);
+
+-- Orders move created -> attempted -> paid; settle orders whose payments predate the state machine
+UPDATE orders SET status = 'paid'
+WHERE status = 'created' AND id IN (SELECT order_id FROM payments WHERE status = 'success');
+
+-- Per-merchant payment rollups, maintained as payments are finalized
+CREATE TABLE IF NOT EXISTS payment_stats (
+    merchant_id UUID NOT NULL REFERENCES merchants(id),
+    day DATE NOT NULL,
+    method VARCHAR(20) NOT NULL,
+    total_count BIGINT NOT NULL DEFAULT 0,
+    success_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    success_amount BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (merchant_id, day, method)
+);
+
+-- Backfill rollups from existing payments the first time the table is created
+INSERT INTO payment_stats (merchant_id, day, method, total_count, success_count, failed_count, success_amount)
+SELECT merchant_id, CAST(created_at AS DATE), method, COUNT(*),
+       COUNT(*) FILTER (WHERE status = 'success'), COUNT(*) FILTER (WHERE status = 'failed'),
+       COALESCE(SUM(amount) FILTER (WHERE status = 'success'), 0)
+FROM payments
+WHERE status IN ('success', 'failed')
+  AND NOT EXISTS (SELECT 1 FROM payment_stats)
+GROUP BY merchant_id, CAST(created_at AS DATE), method
+ON CONFLICT DO NOTHING;
+
+-- Per-merchant, per-method totals since the first payment, maintained alongside payment_stats so the
+-- dashboard totals do not have to add up every day a merchant has been active
+CREATE TABLE IF NOT EXISTS payment_totals (
+    merchant_id UUID NOT NULL REFERENCES merchants(id),
+    method VARCHAR(20) NOT NULL,
+    total_count BIGINT NOT NULL DEFAULT 0,
+    success_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    success_amount BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (merchant_id, method)
+);
+
+-- Backfill totals from the daily rollup the first time the table is created
+INSERT INTO payment_totals (merchant_id, method, total_count, success_count, failed_count, success_amount)
+SELECT merchant_id, method, SUM(total_count), SUM(success_count), SUM(failed_count), SUM(success_amount)
+FROM payment_stats
+WHERE NOT EXISTS (SELECT 1 FROM payment_totals)
+GROUP BY merchant_id, method
+ON CONFLICT DO NOTHING;
+
+-- Stored responses for Idempotency-Key headers on POST /orders and POST /payments
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    merchant_id UUID NOT NULL REFERENCES merchants(id),
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INTEGER,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    lease_owner VARCHAR(64),
+    lease_expires_at TIMESTAMP,
+    PRIMARY KEY (merchant_id, idempotency_key)
+);
+
+-- Lease columns for databases created before they were added; the instance running the original request
+-- renews its lease until the response is stored
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(64);
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+
+-- Outbox of merchant webhook events. Rows are inserted by the statement that finalizes a payment and
+-- drained by the webhook dispatcher; status moves pending -> delivered, or pending -> dead once retries
+-- are exhausted
+CREATE TABLE IF NOT EXISTS webhook_events (
+    id VARCHAR(64) PRIMARY KEY,
+    merchant_id UUID NOT NULL REFERENCES merchants(id),
+    payment_id VARCHAR(64) NOT NULL,
+    event VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    lease_owner VARCHAR(64),
+    lease_expires_at TIMESTAMP,
+    last_response_code INTEGER,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL,
+    delivered_at TIMESTAMP
 );
 
 -- Required Indexes
 CREATE INDEX IF NOT EXISTS idx_orders_merchant_id ON orders(merchant_id);
 CREATE INDEX IF NOT EXISTS idx_payments_order_id ON payments(order_id);
 CREATE INDEX IF NOT EXISTS idx_payments_status ON payments(status);
+CREATE INDEX IF NOT EXISTS idx_payments_processing_queue ON payments(process_after) WHERE status = 'processing';
+CREATE INDEX IF NOT EXISTS idx_payments_merchant_processing ON payments(merchant_id) WHERE status = 'processing';
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+CREATE INDEX IF NOT EXISTS idx_webhook_events_due ON webhook_events(next_attempt_at) WHERE status = 'pending';
+CREATE INDEX IF NOT EXISTS idx_webhook_events_delivered ON webhook_events(delivered_at) WHERE status = 'delivered';
+CREATE INDEX IF NOT EXISTS idx_webhook_events_merchant_created ON webhook_events(merchant_id, created_at DESC, id DESC);
+
+-- Keyset pagination indexes for the merchant list endpoints, newest first on (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_orders_merchant_created ON orders(merchant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_merchant_status_created ON orders(merchant_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_payments_merchant_created ON payments(merchant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_payments_merchant_status_created ON payments(merchant_id, status, created_at DESC, id DESC);
 
 -- Insert test merchant if not exists
 INSERT INTO merchants (id, name, email, api_key, api_secret, created_at)
@@ -0,0 +1,135 @@
+package com.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.services.AuthenticationService;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RateLimitInterceptorTest {
+
+    private static final String PROXY = "172.28.0.11";
+
+    private static final int BURST = 2;
+
+    private final AuthenticationService authenticationService = mock(AuthenticationService.class);
+
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    private ApiKeyAuthenticationInterceptor authenticationInterceptor;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitInterceptor = new RateLimitInterceptor();
+        ReflectionTestUtils.setField(rateLimitInterceptor, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(rateLimitInterceptor, "enabled", true);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "merchantRate", 0.001);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "merchantBurst", BURST);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "publicRate", 0.001);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "publicBurst", BURST);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "clientRate", 0.001);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "clientBurst", BURST);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "maxKeys", 100);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "trustedProxyList", " 172.28.0.10, " + PROXY);
+        rateLimitInterceptor.init();
+
+        authenticationInterceptor = new ApiKeyAuthenticationInterceptor();
+        ReflectionTestUtils.setField(authenticationInterceptor, "authenticationService", authenticationService);
+        ReflectionTestUtils.setField(authenticationInterceptor, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void asyncDispatchesAreNotAuthenticatedOrCountedAgain() throws Exception {
+        for (int i = 0; i < 2 * BURST; i++) {
+            MockHttpServletRequest request = request("203.0.113.7", null);
+            request.setDispatcherType(DispatcherType.ASYNC);
+
+            assertThat(rateLimitInterceptor.beforeAuthentication().preHandle(request, new MockHttpServletResponse(), null))
+                .isTrue();
+            assertThat(authenticationInterceptor.preHandle(request, new MockHttpServletResponse(), null)).isTrue();
+            assertThat(rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), null)).isTrue();
+        }
+        verifyNoInteractions(authenticationService);
+
+        for (int i = 0; i < BURST; i++) {
+            assertThat(preHandlePublic(request("203.0.113.7", null)).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    @Test
+    void forwardedForIsIgnoredUnlessTheConnectionComesFromATrustedProxy() throws Exception {
+        // A client on the published port cannot pick a fresh address for each request
+        for (int i = 0; i < BURST; i++) {
+            assertThat(preHandlePublic(request("203.0.113.7", "198.51.100." + i)).getStatus())
+                .isEqualTo(HttpStatus.OK.value());
+        }
+        assertThat(preHandlePublic(request("203.0.113.7", "198.51.100.99")).getStatus())
+            .isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        // Through the proxy the client is the last address it appended; anything earlier came from the client
+        for (int i = 0; i < BURST; i++) {
+            assertThat(preHandlePublic(request(PROXY, "10.0.0." + i + ", 198.51.100.1")).getStatus())
+                .isEqualTo(HttpStatus.OK.value());
+        }
+        assertThat(preHandlePublic(request(PROXY, "198.51.100.1")).getStatus())
+            .isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(preHandlePublic(request(PROXY, "198.51.100.2")).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        // Chained trusted proxies are skipped too
+        assertThat(preHandlePublic(request(PROXY, "198.51.100.1, 172.28.0.10")).getStatus())
+            .isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void badCredentialsAreLimitedPerAddressBeforeAuthentication() throws Exception {
+        when(authenticationService.authenticate(any(), any()))
+            .thenThrow(new RuntimeException(AuthenticationService.INVALID_CREDENTIALS_MESSAGE));
+
+        for (int i = 0; i < BURST; i++) {
+            MockHttpServletRequest request = request("203.0.113.7", null);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertThat(rateLimitInterceptor.beforeAuthentication().preHandle(request, response, null)).isTrue();
+            assertThat(authenticationInterceptor.preHandle(request, response, null)).isFalse();
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(rateLimitInterceptor.beforeAuthentication().preHandle(request("203.0.113.7", null), response, null))
+            .isFalse();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader("Retry-After")).isNotNull();
+        assertThat(response.getContentAsString()).contains("TOO_MANY_REQUESTS_ERROR");
+        verify(authenticationService, times(BURST)).authenticate(any(), any());
+
+        // Other addresses are unaffected
+        assertThat(rateLimitInterceptor.beforeAuthentication()
+            .preHandle(request("203.0.113.8", null), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private MockHttpServletResponse preHandlePublic(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitInterceptor.preHandle(request, response, null);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders/order_1/public");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
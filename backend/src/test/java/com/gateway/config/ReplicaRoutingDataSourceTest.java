@@ -0,0 +1,227 @@
+package com.gateway.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Routing and health checks against stub data sources that answer the primary WAL position and replica
+// status queries with whatever each test sets
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MILLIS = 5000;
+
+    private final StubDatabase primary = new StubDatabase();
+
+    private final StubDatabase replica1 = new StubDatabase();
+
+    private final StubDatabase replica2 = new StubDatabase();
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // An hour between checks: the tests run them with check() instead. The check the constructor
+        // schedules right away fails on the primary, so it cannot race the tests' own checks.
+        primary.reachable = false;
+        dataSource = new ReplicaRoutingDataSource(primary.dataSource,
+            List.of(replica1.dataSource, replica2.dataSource), MAX_LAG_MILLIS, 3_600_000);
+        verify(primary.dataSource, timeout(5000)).getConnection();
+        primary.reachable = true;
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        dataSource.close();
+    }
+
+    @Test
+    void replicasAreUnusedUntilTheirFirstCheckPasses() throws SQLException {
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+
+        check();
+        assertThat(dataSource.getConnection()).isIn(replica1.connection, replica2.connection);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToHealthyReplicasRoundRobin() throws SQLException {
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+        assertThat(dataSource.getConnection()).isSameAs(replica2.connection);
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+
+        assertThat(ReplicaRouting.onPrimary(this::connection)).isSameAs(primary.connection);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+    }
+
+    @Test
+    void replicaIsUsedOnlyWhileCaughtUpOrWithinTheLagLimit() throws SQLException {
+        replica2.lagging = true;
+        replica1.caughtUp = false;
+        replica1.lagMillis = (double) MAX_LAG_MILLIS + 1;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+
+        replica1.lagMillis = (double) MAX_LAG_MILLIS;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+
+        // No transaction replayed yet, so the lag is unknown
+        replica1.lagMillis = null;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+
+        replica1.caughtUp = true;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+    }
+
+    @Test
+    void promotedOrUnreachableReplicaIsTakenOutOfUse() throws SQLException {
+        replica2.lagging = true;
+        replica1.inRecovery = false;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+
+        replica1.inRecovery = true;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+
+        replica1.reachable = false;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+
+        replica1.reachable = true;
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+    }
+
+    @Test
+    void refusedReplicaConnectionFallsBackToThePrimaryUntilTheNextCheck() throws SQLException {
+        replica2.lagging = true;
+        check();
+        replica1.reachable = false;
+
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+
+        // Taken out of use on the refusal, not retried before the next check passes
+        replica1.reachable = true;
+        assertThat(dataSource.getConnection()).isSameAs(primary.connection);
+        check();
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+    }
+
+    @Test
+    void verdictsAreKeptWhileThePrimaryPositionIsUnknown() throws SQLException {
+        replica2.lagging = true;
+        check();
+        primary.reachable = false;
+        replica1.inRecovery = false;
+        check();
+
+        assertThat(dataSource.getConnection()).isSameAs(replica1.connection);
+    }
+
+    @Test
+    void connectionsWithCredentialsAndPoolSettingsGoToThePrimary() throws SQLException {
+        check();
+        when(primary.dataSource.getConnection("migrations", "secret")).thenReturn(primary.connection);
+        assertThat(dataSource.getConnection("migrations", "secret")).isSameAs(primary.connection);
+
+        // A pool that refuses per-call credentials says so with a SQLException
+        when(primary.dataSource.getConnection("reports", "secret")).thenThrow(new SQLFeatureNotSupportedException());
+        assertThatThrownBy(() -> dataSource.getConnection("reports", "secret")).isInstanceOf(SQLException.class);
+
+        dataSource.setLoginTimeout(7);
+        verify(primary.dataSource).setLoginTimeout(7);
+        when(primary.dataSource.getLoginTimeout()).thenReturn(7);
+        assertThat(dataSource.getLoginTimeout()).isEqualTo(7);
+
+        PrintWriter writer = new PrintWriter(Writer.nullWriter());
+        dataSource.setLogWriter(writer);
+        verify(primary.dataSource).setLogWriter(writer);
+        when(primary.dataSource.getLogWriter()).thenReturn(writer);
+        assertThat(dataSource.getLogWriter()).isSameAs(writer);
+        assertThat(dataSource.getParentLogger()).isNotNull();
+    }
+
+    private void check() {
+        ReflectionTestUtils.invokeMethod(dataSource, "checkReplicas");
+    }
+
+    private Connection connection() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class StubDatabase {
+        private final HikariDataSource dataSource = mock(HikariDataSource.class);
+        private final Connection connection = mock(Connection.class);
+
+        private volatile boolean reachable = true;
+        private volatile boolean inRecovery = true;
+        private volatile boolean caughtUp = true;
+        private volatile Double lagMillis = 0.0;
+
+        // Too far behind, whatever the other fields say
+        private volatile boolean lagging;
+
+        private StubDatabase() {
+            try {
+                when(dataSource.getConnection()).thenAnswer(call -> {
+                    if (!reachable) {
+                        throw new SQLException("Connection refused");
+                    }
+                    return connection;
+                });
+
+                Statement statement = mock(Statement.class);
+                ResultSet primaryLsn = mock(ResultSet.class);
+                when(connection.createStatement()).thenReturn(statement);
+                when(statement.executeQuery(anyString())).thenReturn(primaryLsn);
+                when(primaryLsn.next()).thenReturn(true);
+                when(primaryLsn.getString(1)).thenReturn("0/3000060");
+
+                PreparedStatement status = mock(PreparedStatement.class);
+                ResultSet replicaStatus = mock(ResultSet.class);
+                when(connection.prepareStatement(anyString())).thenReturn(status);
+                when(status.executeQuery()).thenReturn(replicaStatus);
+                when(replicaStatus.next()).thenReturn(true);
+                when(replicaStatus.getBoolean("in_recovery")).thenAnswer(call -> inRecovery);
+                when(replicaStatus.getBoolean("caught_up")).thenAnswer(call -> !lagging && caughtUp);
+                when(replicaStatus.getDouble("lag_millis")).thenAnswer(call ->
+                    lagging ? MAX_LAG_MILLIS * 2.0 : lagMillis != null ? lagMillis : 0.0);
+                when(replicaStatus.wasNull()).thenAnswer(call -> !lagging && lagMillis == null);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
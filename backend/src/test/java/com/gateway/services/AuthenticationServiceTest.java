@@ -0,0 +1,99 @@
+package com.gateway.services;
+
+import com.gateway.models.Merchant;
+import com.gateway.repositories.MerchantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceTest {
+
+    private final MerchantRepository merchantRepository = mock(MerchantRepository.class);
+
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        authenticationService = new AuthenticationService();
+        ReflectionTestUtils.setField(authenticationService, "merchantRepository", merchantRepository);
+        ReflectionTestUtils.setField(authenticationService, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(authenticationService, "maxSize", 100);
+        ReflectionTestUtils.setField(authenticationService, "negativeTtlSeconds", 60L);
+        ReflectionTestUtils.setField(authenticationService, "negativeMaxSize", 2);
+    }
+
+    @Test
+    void cachesValidCredentials() {
+        Merchant merchant = merchant("key_a", "secret_a", true);
+        when(merchantRepository.findByApiKey("key_a")).thenReturn(Optional.of(merchant));
+
+        assertThat(authenticationService.authenticate("key_a", "secret_a")).isEqualTo(merchant.getId());
+        assertThat(authenticationService.authenticate("key_a", "secret_a")).isEqualTo(merchant.getId());
+        assertThatThrownBy(() -> authenticationService.authenticate("key_a", "wrong"))
+            .hasMessage(AuthenticationService.INVALID_CREDENTIALS_MESSAGE);
+
+        verify(merchantRepository, times(1)).findByApiKey("key_a");
+    }
+
+    @Test
+    void unknownKeyIsRejectedFromCacheUntilInvalidated() {
+        when(merchantRepository.findByApiKey("key_unknown")).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> authenticationService.authenticate("key_unknown", "secret"))
+                .hasMessage(AuthenticationService.INVALID_CREDENTIALS_MESSAGE);
+        }
+        verify(merchantRepository, times(1)).findByApiKey("key_unknown");
+
+        // A merchant created with that key is accepted straight away
+        Merchant merchant = merchant("key_unknown", "secret", true);
+        when(merchantRepository.findByApiKey("key_unknown")).thenReturn(Optional.of(merchant));
+        authenticationService.invalidate("key_unknown");
+        assertThat(authenticationService.authenticate("key_unknown", "secret")).isEqualTo(merchant.getId());
+    }
+
+    @Test
+    void inactiveMerchantIsRememberedAsUnknown() {
+        when(merchantRepository.findByApiKey("key_inactive"))
+            .thenReturn(Optional.of(merchant("key_inactive", "secret", false)));
+
+        assertThatThrownBy(() -> authenticationService.authenticate("key_inactive", "secret"));
+        assertThatThrownBy(() -> authenticationService.authenticate("key_inactive", "secret"));
+
+        verify(merchantRepository, times(1)).findByApiKey("key_inactive");
+    }
+
+    @Test
+    void unknownKeysBeyondTheLimitAreNotRemembered() {
+        when(merchantRepository.findByApiKey("key_1")).thenReturn(Optional.empty());
+        when(merchantRepository.findByApiKey("key_2")).thenReturn(Optional.empty());
+        when(merchantRepository.findByApiKey("key_3")).thenReturn(Optional.empty());
+
+        for (String key : new String[] {"key_1", "key_2", "key_3", "key_1", "key_2", "key_3"}) {
+            assertThatThrownBy(() -> authenticationService.authenticate(key, "secret"));
+        }
+
+        verify(merchantRepository, times(1)).findByApiKey("key_1");
+        verify(merchantRepository, times(1)).findByApiKey("key_2");
+        verify(merchantRepository, times(2)).findByApiKey("key_3");
+    }
+
+    private static Merchant merchant(String apiKey, String apiSecret, boolean active) {
+        Merchant merchant = new Merchant();
+        merchant.setId(UUID.randomUUID());
+        merchant.setApiKey(apiKey);
+        merchant.setApiSecret(apiSecret);
+        merchant.setIsActive(active);
+        return merchant;
+    }
+}
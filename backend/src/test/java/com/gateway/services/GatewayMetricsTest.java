@@ -0,0 +1,86 @@
+package com.gateway.services;
+
+import com.gateway.repositories.PaymentQueueRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GatewayMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final PaymentQueueRepository paymentQueueRepository = mock(PaymentQueueRepository.class);
+
+    private GatewayMetrics gatewayMetrics;
+
+    @BeforeEach
+    void setUp() {
+        gatewayMetrics = new GatewayMetrics();
+        ReflectionTestUtils.setField(gatewayMetrics, "registry", registry);
+        ReflectionTestUtils.setField(gatewayMetrics, "paymentQueueRepository", paymentQueueRepository);
+        gatewayMetrics.init();
+    }
+
+    @Test
+    void validationFailureIsCountedByEntityAndReason() {
+        RuntimeException e = gatewayMetrics.validationFailure("payment", "vpa_invalid", "Invalid VPA format");
+        gatewayMetrics.validationFailure("payment", "vpa_invalid", "Invalid VPA format");
+        gatewayMetrics.validationFailure("order", "amount_invalid", "amount must be at least 100");
+
+        assertThat(e).hasMessage("Invalid VPA format");
+        assertThat(registry.get("gateway.validation.failures").tags("entity", "payment", "reason", "vpa_invalid")
+            .counter().count()).isEqualTo(2);
+        assertThat(registry.get("gateway.validation.failures").tags("entity", "order", "reason", "amount_invalid")
+            .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void timersAreTaggedByOutcomeAndKnownMethodsOnly() {
+        gatewayMetrics.paymentCreated("upi", true, TimeUnit.MILLISECONDS.toNanos(5));
+        gatewayMetrics.paymentCreated("netbanking", false, TimeUnit.MILLISECONDS.toNanos(7));
+        gatewayMetrics.paymentFinalized("card", "success", Duration.ofSeconds(3));
+        gatewayMetrics.webhookDelivered(false, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThat(registry.get("gateway.payments.create").tags("method", "upi", "outcome", "success")
+            .timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+        assertThat(registry.get("gateway.payments.create").tags("method", "other", "outcome", "failure")
+            .timer().count()).isEqualTo(1);
+        assertThat(registry.find("gateway.payments.create").tag("method", "netbanking").timer()).isNull();
+        assertThat(registry.get("gateway.payments.finalized").tags("method", "card", "status", "success")
+            .timer().totalTime(TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(registry.get("gateway.webhooks.delivery").tag("outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchTimersRecordTheirSizes() {
+        gatewayMetrics.orderBatchCreated(true, 40, TimeUnit.MILLISECONDS.toNanos(12));
+        gatewayMetrics.completionsFlushed(true, 250, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertThat(registry.get("gateway.orders.batch").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("gateway.orders.batch.size").summary().totalAmount()).isEqualTo(40);
+        assertThat(registry.get("gateway.payments.completion.flush").tag("outcome", "success").timer().count())
+            .isEqualTo(1);
+        assertThat(registry.get("gateway.payments.completion.batch").summary().totalAmount()).isEqualTo(250);
+    }
+
+    @Test
+    void processingGaugeKeepsItsLastValueWhenTheCountFails() {
+        when(paymentQueueRepository.countProcessing()).thenReturn(42L)
+            .thenThrow(new RuntimeException("Connection refused"));
+
+        gatewayMetrics.refreshProcessingPayments();
+        assertThat(registry.get("gateway.payments.processing").gauge().value()).isEqualTo(42);
+
+        gatewayMetrics.refreshProcessingPayments();
+        assertThat(registry.get("gateway.payments.processing").gauge().value()).isEqualTo(42);
+    }
+}
@@ -0,0 +1,172 @@
+package com.gateway.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.controllers.DatabaseErrorHandler;
+import com.gateway.controllers.OrderController;
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.dto.CreateOrderResponse;
+import com.gateway.repositories.IdempotencyKeyRepository;
+import com.gateway.support.TestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Two service instances share one idempotency_keys table, as two API instances would
+class IdempotencyServiceTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final Map<String, Object> REQUEST = Map.of("amount", 50000);
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private IdempotencyKeyRepository repository;
+
+    private IdempotencyService first;
+
+    private IdempotencyService second;
+
+    @BeforeAll
+    static void createDatabase() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.create());
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE idempotency_keys");
+        repository = new IdempotencyKeyRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+        first = newService();
+        second = newService();
+    }
+
+    @Test
+    void longRunningRequestKeepsItsKeyWhileRenewingTheLease() {
+        AtomicInteger secondRuns = new AtomicInteger();
+
+        ResponseEntity<?> response = first.execute(MERCHANT_ID, "key-1", "order", REQUEST, () -> {
+            // The request has been running far longer than the lease and any client wait
+            jdbcTemplate.update("UPDATE idempotency_keys SET created_at = ?, lease_expires_at = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)),
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+            first.renewLeases();
+
+            ResponseEntity<?> duplicate = second.execute(MERCHANT_ID, "key-1", "order", REQUEST, () -> {
+                secondRuns.incrementAndGet();
+                return ResponseEntity.status(201).body(Map.of("id", "order_2"));
+            });
+            assertThat(duplicate.getStatusCode().value()).isEqualTo(409);
+            return ResponseEntity.status(201).body(Map.of("id", "order_1"));
+        });
+
+        assertThat(response.getStatusCode().value()).isEqualTo(201);
+        assertThat(secondRuns).hasValue(0);
+
+        ResponseEntity<?> replay = second.execute(MERCHANT_ID, "key-1", "order", REQUEST, () -> {
+            secondRuns.incrementAndGet();
+            return ResponseEntity.status(201).body(Map.of("id", "order_2"));
+        });
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat((String) replay.getBody()).contains("order_1");
+        assertThat(secondRuns).hasValue(0);
+    }
+
+    @Test
+    void keyIsTakenOverOnceTheLeaseExpires() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(repository.claim(MERCHANT_ID, "key-2", "hash", "stopped-instance", now.minusMinutes(1),
+            now.plusHours(1), now.minusSeconds(1), now.minusMinutes(2))).isTrue();
+
+        ResponseEntity<?> response = second.execute(MERCHANT_ID, "key-2", "order", REQUEST,
+            () -> ResponseEntity.status(201).body(Map.of("id", "order_3")));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(201);
+        // The stopped instance can no longer store a response over the new one
+        assertThat(repository.complete(MERCHANT_ID, "key-2", "stopped-instance", 500, "{}")).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT response_body FROM idempotency_keys WHERE idempotency_key = 'key-2'",
+            String.class)).contains("order_3");
+    }
+
+    @Test
+    void claimsWithoutALeaseFallBackToTheirAge() {
+        insertUnleasedClaim("key-3", LocalDateTime.now());
+        insertUnleasedClaim("key-4", LocalDateTime.now().minusMinutes(5));
+
+        ResponseEntity<?> recent = second.execute(MERCHANT_ID, "key-3", "order", REQUEST,
+            () -> ResponseEntity.status(201).body(Map.of("id", "order_4")));
+        ResponseEntity<?> abandoned = second.execute(MERCHANT_ID, "key-4", "order", REQUEST,
+            () -> ResponseEntity.status(201).body(Map.of("id", "order_5")));
+
+        assertThat(recent.getStatusCode().value()).isEqualTo(409);
+        assertThat(abandoned.getStatusCode().value()).isEqualTo(201);
+    }
+
+    @Test
+    void databaseFailureIsNotStoredAndTheRetryRunsAgain() {
+        OrderService orderService = mock(OrderService.class);
+        CreateOrderResponse created = new CreateOrderResponse();
+        created.setId("order_6");
+        when(orderService.createOrder(any(), any()))
+            .thenThrow(new CannotGetJdbcConnectionException("Connection is not available, request timed out"))
+            .thenReturn(created);
+        OrderController controller = new OrderController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+        ReflectionTestUtils.setField(controller, "idempotencyService", first);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setAmount(50000);
+
+        // Reaches DatabaseErrorHandler as a 503 instead of being stored as the controller's 400
+        assertThatThrownBy(() -> controller.createOrder(MERCHANT_ID, "key-5", request))
+            .isInstanceOf(DataAccessException.class);
+        assertThat(new DatabaseErrorHandler().handle(new CannotGetJdbcConnectionException("timeout"))
+            .getStatusCode().value()).isEqualTo(503);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class)).isZero();
+
+        ResponseEntity<?> retry = controller.createOrder(MERCHANT_ID, "key-5", request);
+        assertThat(retry.getStatusCode().value()).isEqualTo(201);
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull();
+        verify(orderService, times(2)).createOrder(any(), any());
+
+        // On another instance too
+        ResponseEntity<?> replay = second.execute(MERCHANT_ID, "key-5", "POST /api/v1/orders", request,
+            () -> ResponseEntity.status(500).build());
+        assertThat(replay.getStatusCode().value()).isEqualTo(201);
+        assertThat((String) replay.getBody()).contains("order_6");
+    }
+
+    private void insertUnleasedClaim(String key, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (merchant_id, idempotency_key, request_hash, created_at," +
+            " expires_at) VALUES (?, ?, 'hash', ?, ?)", MERCHANT_ID, key, Timestamp.valueOf(createdAt),
+            Timestamp.valueOf(createdAt.plusHours(24)));
+    }
+
+    private IdempotencyService newService() {
+        IdempotencyService service = new IdempotencyService();
+        ReflectionTestUtils.setField(service, "idempotencyKeyRepository", repository);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "maxSize", 100);
+        ReflectionTestUtils.setField(service, "waitSeconds", 30L);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 30L);
+        return service;
+    }
+}
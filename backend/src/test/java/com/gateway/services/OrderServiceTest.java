@@ -0,0 +1,155 @@
+package com.gateway.services;
+
+import com.gateway.dto.CreateOrderBatchRequest;
+import com.gateway.dto.CreateOrderBatchResponse;
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.support.StatementCounter;
+import com.gateway.support.TestDatabase;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class OrderServiceTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final StatementCounter counter = new StatementCounter();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @TestConfiguration
+    static class CountStatements {
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                        ? counter.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE orders");
+        counter.reset();
+    }
+
+    @Test
+    void invalidOrdersAreReportedPerItemWhileTheRestAreCreated() {
+        double missing = validationFailures("order_missing");
+        double invalidAmount = validationFailures("amount_invalid");
+        CreateOrderRequest withNotes = order(50000);
+        withNotes.setReceipt("receipt_1");
+        withNotes.setNotes(Map.of("customer", "A"));
+
+        CreateOrderBatchResponse response = orderService.createOrders(MERCHANT_ID,
+            batch(withNotes, null, order(50), order(100), order(null)));
+
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(3);
+        List<CreateOrderBatchResponse.Item> items = response.getItems();
+        assertThat(items).extracting(CreateOrderBatchResponse.Item::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(items.get(0).getOrder().getReceipt()).isEqualTo("receipt_1");
+        assertThat(items.get(0).getError()).isNull();
+        assertThat(items.get(1).getError().getDescription()).isEqualTo("order must not be null");
+        assertThat(items.get(2).getError().getCode()).isEqualTo("BAD_REQUEST_ERROR");
+        assertThat(items.get(2).getError().getDescription()).isEqualTo("amount must be at least 100");
+        assertThat(items.get(2).getOrder()).isNull();
+        assertThat(items.get(3).getOrder().getAmount()).isEqualTo(100);
+        assertThat(items.get(4).getError().getDescription()).isEqualTo("amount must be at least 100");
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders", String.class))
+            .containsExactlyInAnyOrder(items.get(0).getOrder().getId(), items.get(3).getOrder().getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT notes ->> 'customer' FROM orders WHERE id = ?", String.class,
+            items.get(0).getOrder().getId())).isEqualTo("A");
+
+        assertThat(validationFailures("order_missing") - missing).isEqualTo(1);
+        assertThat(validationFailures("amount_invalid") - invalidAmount).isEqualTo(2);
+    }
+
+    @Test
+    void batchSizeMustBeBetweenOneAndTheLimit() {
+        String message = "orders must contain between 1 and 1000 items";
+        double failures = validationFailures("batch_size_invalid");
+        assertThatThrownBy(() -> orderService.createOrders(MERCHANT_ID, null)).hasMessage(message);
+        assertThatThrownBy(() -> orderService.createOrders(MERCHANT_ID, batch())).hasMessage(message);
+        assertThatThrownBy(() -> orderService.createOrders(MERCHANT_ID, batch(orders(1001)))).hasMessage(message);
+        assertThat(counter.executions("insert into orders")).isZero();
+        assertThat(validationFailures("batch_size_invalid") - failures).isEqualTo(3);
+
+        CreateOrderBatchResponse response = orderService.createOrders(MERCHANT_ID, batch(orders(1000)));
+        assertThat(response.getCreated()).isEqualTo(1000);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class)).isEqualTo(1000);
+    }
+
+    @Test
+    void ordersAreInsertedInJdbcBatches() {
+        orderService.createOrders(MERCHANT_ID, batch(orders(120)));
+
+        // hibernate.jdbc.batch_size is 50, and nothing is selected before the inserts
+        assertThat(counter.executions("insert into orders")).isEqualTo(3);
+        assertThat(counter.batchSizes()).containsExactly(50, 50, 20);
+        assertThat(counter.executions("from orders")).isZero();
+    }
+
+    private double validationFailures(String reason) {
+        Counter failures = meterRegistry.find("gateway.validation.failures")
+            .tags("entity", "order", "reason", reason).counter();
+        return failures != null ? failures.count() : 0;
+    }
+
+    private static CreateOrderRequest order(Integer amount) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setAmount(amount);
+        return request;
+    }
+
+    private static CreateOrderRequest[] orders(int count) {
+        List<CreateOrderRequest> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(100 + i));
+        }
+        return orders.toArray(new CreateOrderRequest[0]);
+    }
+
+    private static CreateOrderBatchRequest batch(CreateOrderRequest... orders) {
+        CreateOrderBatchRequest request = new CreateOrderBatchRequest();
+        request.setOrders(Arrays.asList(orders));
+        return request;
+    }
+}
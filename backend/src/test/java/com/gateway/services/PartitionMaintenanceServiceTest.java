@@ -0,0 +1,298 @@
+package com.gateway.services;
+
+import com.gateway.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The startup work that partitions orders and payments, run against PostgreSQL: on a new database, and
+// as an upgrade of a populated database created with the original, unpartitioned schema
+// (schema-baseline.sql), the way schema.sql and then the service run when a new version first starts
+class PartitionMaintenanceServiceTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyy_MM");
+
+    private static final LocalDate THIS_MONTH = LocalDate.now().withDayOfMonth(1);
+
+    // Every column an order or payment had in the original schema, as text; created_at aside, the
+    // upgrade must not change any of them
+    private static final String ORDERS_SNAPSHOT_SQL =
+        "SELECT id || '|' || merchant_id || '|' || amount || '|' || currency || '|' || COALESCE(receipt, '') ||" +
+        "  '|' || COALESCE(CAST(notes AS TEXT), '') || '|' || status || '|' || updated_at FROM orders ORDER BY id";
+
+    private static final String PAYMENTS_SNAPSHOT_SQL =
+        "SELECT id || '|' || order_id || '|' || merchant_id || '|' || amount || '|' || currency || '|' || method ||" +
+        "  '|' || status || '|' || COALESCE(vpa, '') || '|' || COALESCE(card_network, '') || '|' ||" +
+        "  COALESCE(card_last4, '') || '|' || COALESCE(error_code, '') || '|' || created_at FROM payments ORDER BY id";
+
+    @Test
+    void newDatabaseGetsMonthlyAndDefaultPartitions() {
+        DataSource dataSource = TestDatabase.createEmpty();
+        TestDatabase.applySchema(dataSource);
+        TestDatabase.preparePartitions(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        for (String table : new String[] {"orders", "payments"}) {
+            assertThat(isPartitioned(jdbcTemplate, table)).isTrue();
+            assertThat(primaryKey(jdbcTemplate, table)).containsExactly("id", "created_at");
+            assertThat(partitions(jdbcTemplate, table)).containsExactlyInAnyOrderElementsOf(
+                expectedPartitions(table, THIS_MONTH, 3));
+        }
+
+        insertOrder(jdbcTemplate, "order_now", LocalDateTime.now());
+        insertOrder(jdbcTemplate, "order_later", THIS_MONTH.plusYears(2).atStartOfDay());
+        assertThat(partitionOf(jdbcTemplate, "orders", "order_now")).isEqualTo("orders" + THIS_MONTH.format(SUFFIX));
+        assertThat(partitionOf(jdbcTemplate, "orders", "order_later")).isEqualTo("orders_default");
+
+        // Every later start runs both again
+        TestDatabase.applySchema(dataSource);
+        TestDatabase.preparePartitions(dataSource);
+        assertThat(partitions(jdbcTemplate, "orders")).containsExactlyInAnyOrderElementsOf(
+            expectedPartitions("orders", THIS_MONTH, 3));
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM orders")).isEqualTo(2);
+    }
+
+    @Test
+    void rowsInTheDefaultPartitionMoveToTheirMonthWhenItIsCreated() {
+        DataSource dataSource = TestDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // Inserted while nothing maintained the partitions, e.g. by the reactive API alone
+        LocalDate month = THIS_MONTH.plusMonths(5);
+        insertOrder(jdbcTemplate, "order_1", month.atStartOfDay());
+        insertOrder(jdbcTemplate, "order_2", month.plusMonths(1).atStartOfDay().minusSeconds(1));
+        insertOrder(jdbcTemplate, "order_3", month.plusMonths(1).atStartOfDay());
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM orders_default")).isEqualTo(3);
+
+        PartitionMaintenanceService service = service(dataSource, 5);
+        service.start();
+        service.stop();
+
+        assertThat(partitionOf(jdbcTemplate, "orders", "order_1")).isEqualTo("orders" + month.format(SUFFIX));
+        assertThat(partitionOf(jdbcTemplate, "orders", "order_2")).isEqualTo("orders" + month.format(SUFFIX));
+        assertThat(partitionOf(jdbcTemplate, "orders", "order_3")).isEqualTo("orders_default");
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM orders")).isEqualTo(3);
+    }
+
+    @Test
+    void populatedOriginalSchemaIsConvertedWithoutLosingRows() {
+        DataSource dataSource = TestDatabase.createEmpty();
+        new ResourceDatabasePopulator(new ClassPathResource("schema-baseline.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<LocalDateTime> createdAt = List.of(now.minusMonths(14), now.minusMonths(2), now.minusDays(1), now);
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime at = createdAt.get(i % createdAt.size());
+            jdbcTemplate.update("INSERT INTO orders (id, merchant_id, amount, receipt, notes, status, created_at," +
+                " updated_at) VALUES (?, ?, ?, ?, CAST(? AS JSONB), ?, ?, ?)", "order_" + i, MERCHANT_ID, 100 + i,
+                "receipt_" + i, "{\"n\": " + i + "}", i % 2 == 0 ? "created" : "paid", Timestamp.valueOf(at),
+                Timestamp.valueOf(at));
+            jdbcTemplate.update("INSERT INTO payments (id, order_id, merchant_id, amount, method, status, vpa," +
+                " created_at, updated_at) VALUES (?, ?, ?, ?, 'upi', ?, 'user@upi', ?, ?)", "pay_" + i,
+                "order_" + i, MERCHANT_ID, 100 + i, paymentStatus(i), Timestamp.valueOf(at),
+                Timestamp.valueOf(at));
+        }
+        // The original schema let created_at be null
+        jdbcTemplate.update("INSERT INTO orders (id, merchant_id, amount, created_at, updated_at) " +
+            "VALUES ('order_undated', ?, 100, NULL, ?)", MERCHANT_ID, Timestamp.valueOf(now.minusMonths(3)));
+
+        List<String> orders = jdbcTemplate.queryForList(ORDERS_SNAPSHOT_SQL, String.class);
+        List<String> payments = jdbcTemplate.queryForList(PAYMENTS_SNAPSHOT_SQL, String.class);
+
+        TestDatabase.applySchema(dataSource);
+        TestDatabase.preparePartitions(dataSource);
+
+        assertThat(jdbcTemplate.queryForList(ORDERS_SNAPSHOT_SQL, String.class)).isEqualTo(orders);
+        assertThat(jdbcTemplate.queryForList(PAYMENTS_SNAPSHOT_SQL, String.class)).isEqualTo(payments);
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM orders WHERE id = 'order_undated'",
+            Timestamp.class)).isEqualTo(Timestamp.valueOf(now.minusMonths(3)));
+        // schema.sql queued the payments left in processing
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM payments WHERE status = 'processing' AND " +
+            "process_after = created_at")).isEqualTo(100);
+
+        LocalDate upperBound = THIS_MONTH.plusMonths(1);
+        for (String table : new String[] {"orders", "payments"}) {
+            assertThat(isPartitioned(jdbcTemplate, table)).isTrue();
+            assertThat(primaryKey(jdbcTemplate, table)).containsExactly("id", "created_at");
+            List<String> expected = expectedPartitions(table, upperBound, 2);
+            expected.add(table + "_legacy");
+            assertThat(partitions(jdbcTemplate, table)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(jdbcTemplate.queryForObject("SELECT pg_get_expr(relpartbound, oid) FROM pg_class " +
+                "WHERE oid = to_regclass(?)", String.class, table + "_legacy"))
+                .isEqualTo("FOR VALUES FROM (MINVALUE) TO ('" + upperBound + " 00:00:00')");
+            // Every index of the old table was adopted by an index of the new parent, none rebuilt twice
+            assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM pg_index i WHERE i.indrelid = to_regclass(?) " +
+                "AND NOT EXISTS (SELECT 1 FROM pg_inherits h WHERE h.inhrelid = i.indexrelid)", table + "_legacy"))
+                .isZero();
+        }
+        assertThat(indexes(jdbcTemplate, "orders_legacy")).contains("idx_orders_merchant_id_legacy");
+        assertThat(indexes(jdbcTemplate, "payments_legacy"))
+            .contains("idx_payments_order_id_legacy", "idx_payments_status_legacy");
+
+        // payments.order_id can no longer reference orders; merchant references survive
+        assertThat(jdbcTemplate.queryForList("SELECT pg_get_constraintdef(oid) FROM pg_constraint " +
+            "WHERE conrelid = to_regclass('payments') AND contype = 'f'", String.class))
+            .containsExactly("FOREIGN KEY (merchant_id) REFERENCES merchants(id)");
+
+        // Old rows are found by id across the partitions, new ones go to their month
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM orders WHERE id = 'order_0'")).isEqualTo(1);
+        insertOrder(jdbcTemplate, "order_next_month", upperBound.atStartOfDay().plusDays(3));
+        assertThat(partitionOf(jdbcTemplate, "orders", "order_next_month"))
+            .isEqualTo("orders" + upperBound.format(SUFFIX));
+
+        // The next start finds everything converted already
+        TestDatabase.applySchema(dataSource);
+        TestDatabase.preparePartitions(dataSource);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM orders")).isEqualTo(402);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM payments")).isEqualTo(400);
+    }
+
+    @Test
+    void oldMonthsAreArchivedAndCompactedWhileTheArchiveStaysReadable() {
+        DataSource dataSource = TestDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalDate month = THIS_MONTH.minusMonths(14);
+        String partition = createPartition(jdbcTemplate, month);
+        for (int i = 0; i < 2000; i++) {
+            insertOrder(jdbcTemplate, "order_old_" + i, month.atStartOfDay().plusMinutes(i));
+        }
+        // Every row updated twice, leaving two dead versions of each
+        Timestamp live = Timestamp.valueOf(THIS_MONTH.atStartOfDay());
+        jdbcTemplate.update("UPDATE orders SET status = 'paid' WHERE created_at < ?", live);
+        jdbcTemplate.update("UPDATE orders SET status = 'created' WHERE created_at < ?", live);
+        long sizeBefore = relationSize(jdbcTemplate, partition);
+
+        maintain(service(dataSource, 3));
+
+        String archived = "archive." + partition;
+        assertThat(partitions(jdbcTemplate, "archive.orders")).containsExactly(archived);
+        assertThat(partitions(jdbcTemplate, "orders")).doesNotContain(partition);
+        assertThat(indexes(jdbcTemplate, archived)).containsExactly(archived + "_pkey");
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?)", String.class, archived + "_compact")).isNull();
+        assertThat(jdbcTemplate.queryForList("SELECT unnest(reloptions) FROM pg_class WHERE oid = to_regclass(?)",
+            String.class, archived)).contains("fillfactor=100");
+        assertThat(relationSize(jdbcTemplate, archived)).isLessThan(sizeBefore / 2);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM archive.orders WHERE status = 'created'")).isEqualTo(2000);
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM archive.orders WHERE id = 'order_old_7' AND " +
+            "merchant_id = ?", MERCHANT_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void monthStaysArchivedUncompactedWhenTheSwapTimesOut() throws SQLException {
+        DataSource dataSource = TestDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String partition = createPartition(jdbcTemplate, THIS_MONTH.minusMonths(14));
+        insertOrder(jdbcTemplate, "order_old", THIS_MONTH.minusMonths(14).atStartOfDay());
+
+        PartitionMaintenanceService service = service(dataSource, 3);
+        ReflectionTestUtils.setField(service, "lockTimeout", 200L);
+        // A long-running read of the archive, which the swap must not wait for
+        try (Connection reader = dataSource.getConnection(); Statement statement = reader.createStatement()) {
+            reader.setAutoCommit(false);
+            statement.execute("SELECT COUNT(*) FROM archive.orders");
+            maintain(service);
+            reader.rollback();
+        }
+
+        String archived = "archive." + partition;
+        assertThat(partitions(jdbcTemplate, "archive.orders")).containsExactly(archived);
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?)", String.class, archived + "_compact")).isNull();
+        assertThat(count(jdbcTemplate, "SELECT COUNT(*) FROM archive.orders WHERE id = 'order_old'")).isEqualTo(1);
+    }
+
+    private static String createPartition(JdbcTemplate jdbcTemplate, LocalDate month) {
+        String partition = "orders" + month.format(SUFFIX);
+        jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF orders FOR VALUES FROM ('" + month +
+            "') TO ('" + month.plusMonths(1) + "')");
+        return partition;
+    }
+
+    private static void maintain(PartitionMaintenanceService service) {
+        ReflectionTestUtils.invokeMethod(service, "maintain");
+    }
+
+    private static long relationSize(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT pg_relation_size(to_regclass(?))", Long.class, table);
+    }
+
+    // Paid orders have a successful payment, so schema.sql's settling of old orders changes none of them
+    private static String paymentStatus(int i) {
+        return i % 2 == 1 ? "success" : i % 4 == 0 ? "processing" : "failed";
+    }
+
+    private static PartitionMaintenanceService service(DataSource dataSource, int premakeMonths) {
+        PartitionMaintenanceService service = new PartitionMaintenanceService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(service, "interval", 3_600_000L);
+        ReflectionTestUtils.setField(service, "premakeMonths", premakeMonths);
+        ReflectionTestUtils.setField(service, "retentionMonths", 12);
+        ReflectionTestUtils.setField(service, "lockTimeout", 2000L);
+        return service;
+    }
+
+    // The default partition plus one per month from the given one, premakeMonths past the current month
+    private static List<String> expectedPartitions(String table, LocalDate from, int count) {
+        List<String> partitions = new ArrayList<>();
+        partitions.add(table + "_default");
+        for (int i = 0; i <= count; i++) {
+            partitions.add(table + from.plusMonths(i).format(SUFFIX));
+        }
+        return partitions;
+    }
+
+    private static void insertOrder(JdbcTemplate jdbcTemplate, String id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO orders (id, merchant_id, amount, status, created_at, updated_at) " +
+            "VALUES (?, ?, 100, 'created', ?, ?)", id, MERCHANT_ID, Timestamp.valueOf(createdAt),
+            Timestamp.valueOf(createdAt));
+    }
+
+    private static boolean isPartitioned(JdbcTemplate jdbcTemplate, String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?)", Boolean.class, table));
+    }
+
+    private static List<String> primaryKey(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList("SELECT a.attname FROM pg_constraint c " +
+            "CROSS JOIN LATERAL unnest(c.conkey) WITH ORDINALITY AS k(attnum, position) " +
+            "JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = k.attnum " +
+            "WHERE c.conrelid = to_regclass(?) AND c.contype = 'p' ORDER BY k.position", String.class, table);
+    }
+
+    private static List<String> partitions(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList("SELECT CAST(inhrelid AS regclass) FROM pg_inherits " +
+            "WHERE inhparent = to_regclass(?)", String.class, table);
+    }
+
+    private static List<String> indexes(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList("SELECT CAST(indexrelid AS regclass) FROM pg_index " +
+            "WHERE indrelid = to_regclass(?)", String.class, table);
+    }
+
+    private static String partitionOf(JdbcTemplate jdbcTemplate, String table, String id) {
+        return jdbcTemplate.queryForObject("SELECT CAST(tableoid AS regclass) FROM " + table + " WHERE id = ?",
+            String.class, id);
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
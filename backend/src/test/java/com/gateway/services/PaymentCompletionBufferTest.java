@@ -0,0 +1,202 @@
+package com.gateway.services;
+
+import com.gateway.repositories.PaymentQueueRepository;
+import com.gateway.repositories.PaymentQueueRepository.ClaimedPayment;
+import com.gateway.repositories.PaymentQueueRepository.Completion;
+import com.gateway.support.StatementCounter;
+import com.gateway.support.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// The completion statement settles orders, rollups and the webhook outbox, so the batch and its fallback
+// run against PostgreSQL with the real schema
+class PaymentCompletionBufferTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final String WORKER = "worker";
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private static final StatementCounter counter = new StatementCounter();
+
+    private static JdbcTemplate countedJdbcTemplate;
+
+    private final GatewayMetrics gatewayMetrics = mock(GatewayMetrics.class);
+
+    private PaymentCompletionBuffer buffer;
+
+    @BeforeAll
+    static void createDatabase() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.create());
+        countedJdbcTemplate = new JdbcTemplate(counter.wrap(jdbcTemplate.getDataSource()));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE payments, orders, payment_stats, payment_totals, webhook_events");
+        jdbcTemplate.update("UPDATE merchants SET webhook_url = 'http://localhost:9/webhook' WHERE id = ?", MERCHANT_ID);
+
+        PaymentQueueRepository repository = new PaymentQueueRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", countedJdbcTemplate);
+
+        buffer = new PaymentCompletionBuffer();
+        ReflectionTestUtils.setField(buffer, "paymentQueueRepository", repository);
+        ReflectionTestUtils.setField(buffer, "gatewayMetrics", gatewayMetrics);
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 100);
+        // Long enough that every completion submitted below lands in one batch
+        ReflectionTestUtils.setField(buffer, "flushInterval", 500L);
+        buffer.start();
+        counter.reset();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.stop();
+        jdbcTemplate.update("UPDATE merchants SET webhook_url = NULL WHERE id = ?", MERCHANT_ID);
+    }
+
+    @Test
+    void completionsAreWrittenInOneBatch() throws Exception {
+        List<ClaimedPayment> claimed = insertAndClaim(50);
+        counter.reset();
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (ClaimedPayment payment : claimed) {
+            results.add(buffer.complete(completion(payment, WORKER, "success", null)));
+        }
+
+        for (CompletableFuture<Boolean> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        // 50 payments, 50 orders, the rollups and 50 webhook events in one executeBatch
+        assertThat(counter.executions()).isEqualTo(1);
+        assertThat(counter.batchSizes()).containsExactly(50);
+        assertThat(count("SELECT COUNT(*) FROM payments WHERE status = 'success' AND lease_owner IS NULL")).isEqualTo(50);
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE status = 'paid'")).isEqualTo(50);
+        assertThat(count("SELECT COUNT(*) FROM webhook_events WHERE event = 'payment.success'")).isEqualTo(50);
+        assertThat(count("SELECT total_count FROM payment_totals WHERE method = 'upi'")).isEqualTo(50);
+        verify(gatewayMetrics).completionsFlushed(eq(true), eq(50), anyLong());
+    }
+
+    @Test
+    void completionWhoseLeaseWasLostIsReportedWithoutFailingTheBatch() throws Exception {
+        List<ClaimedPayment> claimed = insertAndClaim(3);
+        // Another worker took the second payment over after this one's lease expired
+        jdbcTemplate.update("UPDATE payments SET lease_owner = 'other' WHERE id = ?", claimed.get(1).getId());
+        counter.reset();
+
+        CompletableFuture<Boolean> first = buffer.complete(completion(claimed.get(0), WORKER, "success", null));
+        CompletableFuture<Boolean> lost = buffer.complete(completion(claimed.get(1), WORKER, "success", null));
+        CompletableFuture<Boolean> third = buffer.complete(completion(claimed.get(2), WORKER, "failed", "PAYMENT_FAILED"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(lost.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(third.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(counter.batchSizes()).containsExactly(3);
+
+        Map<String, String> statuses = statuses();
+        assertThat(statuses).containsEntry(claimed.get(1).getId(), "processing");
+        assertThat(statuses).containsEntry(claimed.get(2).getId(), "failed");
+        // Nothing of the lost completion reached the order, the rollups or the outbox
+        assertThat(orderStatus(claimed.get(1))).isEqualTo("attempted");
+        assertThat(orderStatus(claimed.get(2))).isEqualTo("created");
+        assertThat(count("SELECT total_count FROM payment_totals WHERE method = 'upi'")).isEqualTo(2);
+        assertThat(count("SELECT COUNT(*) FROM webhook_events WHERE payment_id = '" + claimed.get(1).getId() + "'"))
+            .isZero();
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRowSoOnlyTheBadRowFails() throws Exception {
+        List<ClaimedPayment> claimed = insertAndClaim(4);
+        counter.reset();
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            // error_code is VARCHAR(50), so this row fails inside the batch and rolls back the others
+            String errorCode = i == 2 ? "E".repeat(51) : "PAYMENT_FAILED";
+            results.add(buffer.complete(completion(claimed.get(i), WORKER, "failed", errorCode)));
+        }
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> results.get(2).get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(results.get(3).get(5, TimeUnit.SECONDS)).isTrue();
+
+        // The failed batch of 4, then one batch per row
+        assertThat(counter.batchSizes()).containsExactly(4, 1, 1, 1, 1);
+        verify(gatewayMetrics).completionsFlushed(eq(false), eq(4), anyLong());
+        verify(gatewayMetrics, times(3)).completionsFlushed(eq(true), eq(1), anyLong());
+        verify(gatewayMetrics).completionsFlushed(eq(false), eq(1), anyLong());
+
+        Map<String, String> statuses = statuses();
+        assertThat(statuses).containsEntry(claimed.get(2).getId(), "processing");
+        assertThat(statuses.values().stream().filter("failed"::equals)).hasSize(3);
+        // The bad row keeps its lease, so the sweep retries it once the lease expires
+        assertThat(jdbcTemplate.queryForObject("SELECT lease_owner FROM payments WHERE id = ?", String.class,
+            claimed.get(2).getId())).isEqualTo(WORKER);
+        assertThat(count("SELECT failed_count FROM payment_totals WHERE method = 'upi'")).isEqualTo(3);
+    }
+
+    private List<ClaimedPayment> insertAndClaim(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            String orderId = "order_" + i;
+            jdbcTemplate.update("INSERT INTO orders (id, merchant_id, amount, status, created_at, updated_at)" +
+                " VALUES (?, ?, 1000, 'attempted', ?, ?)", orderId, MERCHANT_ID, Timestamp.valueOf(now),
+                Timestamp.valueOf(now));
+            jdbcTemplate.update("INSERT INTO payments (id, order_id, merchant_id, amount, method, status, process_after," +
+                " created_at) VALUES (?, ?, ?, 1000, 'upi', 'processing', ?, ?)", "pay_" + i, orderId, MERCHANT_ID,
+                Timestamp.valueOf(now.minusSeconds(1)), Timestamp.valueOf(now));
+        }
+        PaymentQueueRepository repository = new PaymentQueueRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+        List<ClaimedPayment> claimed = new ArrayList<>(repository.claimDue(WORKER, now, now.plusSeconds(30), count));
+        claimed.sort((a, b) -> Integer.compare(Integer.parseInt(a.getId().substring(4)),
+            Integer.parseInt(b.getId().substring(4))));
+        assertThat(claimed).hasSize(count);
+        return claimed;
+    }
+
+    private static Completion completion(ClaimedPayment payment, String owner, String status, String errorCode) {
+        return new Completion(payment.getId(), payment.getCreatedAt(), owner, status, errorCode,
+            errorCode != null ? "Payment processing failed" : null, LocalDateTime.now());
+    }
+
+    private Map<String, String> statuses() {
+        return jdbcTemplate.queryForList("SELECT id, status FROM payments").stream()
+            .collect(Collectors.toMap(row -> (String) row.get("id"), row -> (String) row.get("status")));
+    }
+
+    private String orderStatus(ClaimedPayment payment) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, payment.getOrderId());
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
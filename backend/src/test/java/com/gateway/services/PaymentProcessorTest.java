@@ -0,0 +1,83 @@
+package com.gateway.services;
+
+import com.gateway.repositories.PaymentQueueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentProcessorTest {
+
+    private final PaymentQueueRepository paymentQueueRepository = mock(PaymentQueueRepository.class);
+
+    private PaymentProcessor paymentProcessor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        paymentProcessor.stop();
+    }
+
+    @Test
+    void virtualThreadsFinalizePaymentsWhileTimersStayOnPlatformThreads() throws Exception {
+        CompletableFuture<Thread> sweptOn = new CompletableFuture<>();
+        CompletableFuture<Thread> claimedOn = new CompletableFuture<>();
+        when(paymentQueueRepository.claimDue(anyString(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            sweptOn.complete(Thread.currentThread());
+            return List.of();
+        });
+        when(paymentQueueRepository.claim(eq("pay_1"), anyString(), any(), any())).thenAnswer(invocation -> {
+            claimedOn.complete(Thread.currentThread());
+            return List.of();
+        });
+
+        paymentProcessor = newProcessor(true);
+        paymentProcessor.reserveSlot();
+        paymentProcessor.submit("pay_1", LocalDateTime.now());
+
+        assertThat(sweptOn.get(5, TimeUnit.SECONDS).isVirtual()).isFalse();
+        assertThat(claimedOn.get(5, TimeUnit.SECONDS).isVirtual()).isTrue();
+        assertThat(claimedOn.get().getName()).startsWith("payment-worker-");
+    }
+
+    @Test
+    void platformWorkersRunTheWakeUpThemselves() throws Exception {
+        CompletableFuture<Thread> claimedOn = new CompletableFuture<>();
+        when(paymentQueueRepository.claim(eq("pay_2"), anyString(), any(), any())).thenAnswer(invocation -> {
+            claimedOn.complete(Thread.currentThread());
+            return List.of();
+        });
+
+        paymentProcessor = newProcessor(false);
+        paymentProcessor.reserveSlot();
+        paymentProcessor.submit("pay_2", LocalDateTime.now());
+
+        assertThat(claimedOn.get(5, TimeUnit.SECONDS).isVirtual()).isFalse();
+        assertThat(claimedOn.get().getName()).startsWith("payment-worker-");
+    }
+
+    private PaymentProcessor newProcessor(boolean virtualThreads) {
+        PaymentProcessor processor = new PaymentProcessor();
+        ReflectionTestUtils.setField(processor, "paymentQueueRepository", paymentQueueRepository);
+        ReflectionTestUtils.setField(processor, "gatewayMetrics", mock(GatewayMetrics.class));
+        ReflectionTestUtils.setField(processor, "workerThreads", 2);
+        ReflectionTestUtils.setField(processor, "queueCapacity", 10);
+        ReflectionTestUtils.setField(processor, "pollInterval", 60_000L);
+        ReflectionTestUtils.setField(processor, "batchSize", 10);
+        ReflectionTestUtils.setField(processor, "leaseSeconds", 30L);
+        ReflectionTestUtils.setField(processor, "virtualThreads", virtualThreads);
+        processor.start();
+        return processor;
+    }
+}
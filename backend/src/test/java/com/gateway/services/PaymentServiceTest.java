@@ -0,0 +1,102 @@
+package com.gateway.services;
+
+import com.gateway.dto.CreateOrderRequest;
+import com.gateway.dto.CreatePaymentRequest;
+import com.gateway.dto.CreatePaymentResponse;
+import com.gateway.models.Payment;
+import com.gateway.repositories.OrderRepository;
+import com.gateway.repositories.PaymentRepository;
+import com.gateway.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class PaymentServiceTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @SpyBean
+    private PaymentRepository paymentRepository;
+
+    @SpyBean
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void failedPaymentInsertLeavesTheOrderPayable() {
+        String orderId = createOrder();
+        // The database goes away after the order moved to attempted, so nothing can be written back
+        doThrow(new RuntimeException("connection lost")).when(paymentRepository).save(any(Payment.class));
+        doThrow(new RuntimeException("connection lost")).when(orderRepository)
+            .transitionStatus(anyString(), eq("attempted"), eq("created"), any());
+        try {
+            assertThatThrownBy(() -> paymentService.createPayment(MERCHANT_ID, upiPayment(orderId)))
+                .hasMessage("connection lost");
+        } finally {
+            reset(paymentRepository, orderRepository);
+        }
+
+        // The order's move to attempted was rolled back with the insert
+        assertThat(orderStatus(orderId)).isEqualTo("created");
+        CreatePaymentResponse retried = paymentService.createPayment(MERCHANT_ID, upiPayment(orderId));
+        assertThat(retried.getStatus()).isEqualTo("processing");
+        assertThat(orderStatus(orderId)).isEqualTo("attempted");
+    }
+
+    @Test
+    void secondPaymentForAnOrderIsRejectedWhileTheFirstIsInFlight() {
+        String orderId = createOrder();
+        paymentService.createPayment(MERCHANT_ID, upiPayment(orderId));
+
+        assertThatThrownBy(() -> paymentService.createPayment(MERCHANT_ID, upiPayment(orderId)))
+            .hasMessage(PaymentService.PAYMENT_IN_PROGRESS_MESSAGE);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE order_id = ?", Integer.class,
+            orderId)).isEqualTo(1);
+    }
+
+    private String createOrder() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setAmount(50000);
+        return orderService.createOrder(MERCHANT_ID, request).getId();
+    }
+
+    private String orderStatus(String orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+    }
+
+    private static CreatePaymentRequest upiPayment(String orderId) {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setOrderId(orderId);
+        request.setMethod("upi");
+        request.setVpa("user@paytm");
+        return request;
+    }
+}
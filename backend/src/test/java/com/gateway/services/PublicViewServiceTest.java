@@ -0,0 +1,109 @@
+package com.gateway.services;
+
+import com.gateway.repositories.MerchantRepository;
+import com.gateway.repositories.OrderRepository;
+import com.gateway.repositories.OrderRepository.PublicOrderView;
+import com.gateway.repositories.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublicViewServiceTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final int MAX_SIZE = 3;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+
+    private PublicViewService publicViewService;
+
+    @BeforeEach
+    void setUp() {
+        MerchantRepository merchantRepository = mock(MerchantRepository.class);
+        when(merchantRepository.existsById(any())).thenReturn(true);
+        when(orderRepository.findPublicViewById(anyString())).thenAnswer(call -> Optional.of(order(call.getArgument(0), "paid")));
+
+        ReadYourWritesGuard readYourWritesGuard = new ReadYourWritesGuard();
+        ReflectionTestUtils.setField(readYourWritesGuard, "replicaUrls", "");
+
+        publicViewService = new PublicViewService();
+        ReflectionTestUtils.setField(publicViewService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(publicViewService, "paymentRepository", mock(PaymentRepository.class));
+        ReflectionTestUtils.setField(publicViewService, "merchantRepository", merchantRepository);
+        ReflectionTestUtils.setField(publicViewService, "readYourWritesGuard", readYourWritesGuard);
+        ReflectionTestUtils.setField(publicViewService, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(publicViewService, "pendingTtlMillis", 1000L);
+        ReflectionTestUtils.setField(publicViewService, "maxSize", MAX_SIZE);
+    }
+
+    @Test
+    void tombstonesStayWithinTheSizeLimit() {
+        for (int i = 0; i < 100; i++) {
+            publicViewService.invalidateOrder("order_" + i);
+            assertThat(orderEntries()).hasSizeLessThanOrEqualTo(MAX_SIZE);
+        }
+    }
+
+    @Test
+    void viewsAreEvictedBeforeTombstones() {
+        publicViewService.invalidateOrder("order_a");
+        publicViewService.getOrderView("order_b");
+        publicViewService.getOrderView("order_c");
+        publicViewService.getOrderView("order_d");
+        publicViewService.invalidateOrder("order_e");
+
+        assertThat(orderEntries()).containsKeys("order_a", "order_e");
+        assertThat(orderEntries()).hasSizeLessThanOrEqualTo(MAX_SIZE);
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotStoredWhenItsTombstoneWasEvicted() {
+        // While the first read is loading, the order is paid and enough other orders change on this
+        // instance that the order's tombstone is evicted before the load stores its result
+        doAnswer(call -> {
+                publicViewService.invalidateOrder("order_x");
+                for (int i = 0; i < 10 * MAX_SIZE; i++) {
+                    publicViewService.invalidateOrder("order_" + i);
+                }
+                return Optional.of(order("order_x", "created"));
+            })
+            .doAnswer(call -> Optional.of(order("order_x", "paid")))
+            .when(orderRepository).findPublicViewById("order_x");
+
+        assertThat(publicViewService.getOrderView("order_x").get()).containsEntry("status", "created");
+        assertThat(publicViewService.getOrderView("order_x").get()).containsEntry("status", "paid");
+        verify(orderRepository, times(2)).findPublicViewById("order_x");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> orderEntries() {
+        Object orders = ReflectionTestUtils.getField(publicViewService, "orders");
+        return (Map<String, ?>) ReflectionTestUtils.getField(orders, "entries");
+    }
+
+    private static PublicOrderView order(String id, String status) {
+        PublicOrderView order = mock(PublicOrderView.class);
+        when(order.getId()).thenReturn(id);
+        when(order.getMerchantId()).thenReturn(MERCHANT_ID);
+        when(order.getAmount()).thenReturn(50000);
+        when(order.getCurrency()).thenReturn("INR");
+        when(order.getStatus()).thenReturn(status);
+        when(order.getCreatedAt()).thenReturn(LocalDateTime.now());
+        return order;
+    }
+}
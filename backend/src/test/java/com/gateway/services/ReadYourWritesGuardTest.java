@@ -0,0 +1,77 @@
+package com.gateway.services;
+
+import com.gateway.config.ReplicaRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesGuardTest {
+
+    private ReadYourWritesGuard guard;
+
+    // Where each query ran: "primary" inside ReplicaRouting.onPrimary, "replica" otherwise
+    private final List<String> reads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        guard = new ReadYourWritesGuard();
+        ReflectionTestUtils.setField(guard, "replicaUrls", "jdbc:postgresql://replica:5432/payment_gateway");
+        ReflectionTestUtils.setField(guard, "windowMillis", 10_000L);
+        ReflectionTestUtils.setField(guard, "maxSize", 100);
+    }
+
+    @Test
+    void idsWrittenOnThisInstanceAreReadFromThePrimary() {
+        guard.written("order_1");
+
+        assertThat(guard.read("order_1", () -> query(Optional.of("row")))).contains("row");
+        assertThat(reads).containsExactly("primary");
+    }
+
+    @Test
+    void rowFoundOnAReplicaIsNotReadAgain() {
+        assertThat(guard.read("order_1", () -> query(Optional.of("row")))).contains("row");
+        assertThat(reads).containsExactly("replica");
+    }
+
+    @Test
+    void rowMissingOnAReplicaIsReadAgainFromThePrimary() {
+        assertThat(guard.read("order_1", () -> query(reads.isEmpty() ? Optional.empty() : Optional.of("row"))))
+            .contains("row");
+        assertThat(reads).containsExactly("replica", "primary");
+
+        reads.clear();
+        assertThat(guard.read("order_2", () -> query(Optional.empty()))).isEmpty();
+        assertThat(reads).containsExactly("replica", "primary");
+    }
+
+    @Test
+    void writesAreForgottenOnceTheWindowHasPassed() {
+        ReflectionTestUtils.setField(guard, "windowMillis", 0L);
+        guard.written("order_1");
+
+        assertThat(guard.read("order_1", () -> query(Optional.of("row")))).contains("row");
+        assertThat(reads).containsExactly("replica");
+    }
+
+    @Test
+    void withoutReplicasEveryReadRunsOnce() {
+        ReflectionTestUtils.setField(guard, "replicaUrls", "");
+        guard.written("order_1");
+
+        assertThat(guard.read("order_1", () -> query(Optional.of("row")))).contains("row");
+        assertThat(guard.read("order_2", () -> query(Optional.empty()))).isEmpty();
+        assertThat(reads).containsExactly("replica", "replica");
+    }
+
+    private Optional<String> query(Optional<String> result) {
+        reads.add(ReplicaRouting.isPrimaryRequired() ? "primary" : "replica");
+        return result;
+    }
+}
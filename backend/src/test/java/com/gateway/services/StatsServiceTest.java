@@ -0,0 +1,137 @@
+package com.gateway.services;
+
+import com.gateway.dto.StatsResponse;
+import com.gateway.repositories.PaymentQueueRepository;
+import com.gateway.repositories.PaymentQueueRepository.ClaimedPayment;
+import com.gateway.repositories.PaymentQueueRepository.Completion;
+import com.gateway.repositories.PaymentStatsRepository;
+import com.gateway.support.TestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The rollups are maintained by PaymentQueueRepository's completion statement, so this runs against
+// PostgreSQL with the real schema
+class StatsServiceTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private PaymentQueueRepository paymentQueueRepository;
+
+    private StatsService statsService;
+
+    @BeforeAll
+    static void createDatabase() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.create());
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE payments, payment_stats, payment_totals, webhook_events");
+
+        paymentQueueRepository = new PaymentQueueRepository();
+        ReflectionTestUtils.setField(paymentQueueRepository, "jdbcTemplate", jdbcTemplate);
+
+        PaymentStatsRepository paymentStatsRepository = new PaymentStatsRepository();
+        ReflectionTestUtils.setField(paymentStatsRepository, "jdbcTemplate", jdbcTemplate);
+
+        statsService = new StatsService();
+        ReflectionTestUtils.setField(statsService, "paymentStatsRepository", paymentStatsRepository);
+        ReflectionTestUtils.setField(statsService, "ttlSeconds", 0L);
+    }
+
+    @Test
+    void countsFinalizedAndProcessingPayments() {
+        insertPayment("pay_1", "upi", 1000);
+        insertPayment("pay_2", "card", 2000);
+        insertPayment("pay_3", "upi", 3000);
+        complete(Map.of("pay_1", "success", "pay_2", "failed"));
+
+        StatsResponse stats = statsService.getStats(MERCHANT_ID, 7);
+
+        assertThat(stats.getTotalTransactions()).isEqualTo(3);
+        assertThat(stats.getSuccessfulTransactions()).isEqualTo(1);
+        assertThat(stats.getFailedTransactions()).isEqualTo(1);
+        assertThat(stats.getTotalAmount()).isEqualTo(1000);
+        assertThat(stats.getSuccessRate()).isEqualTo(33);
+        assertThat(stats.getByMethod().get("upi").getTotalTransactions()).isEqualTo(2);
+        assertThat(stats.getByMethod().get("upi").getSuccessfulTransactions()).isEqualTo(1);
+        assertThat(stats.getByMethod().get("card").getFailedTransactions()).isEqualTo(1);
+        assertThat(stats.getDaily()).hasSize(1);
+        assertThat(stats.getDaily().get(0).getDate()).isEqualTo(LocalDate.now().toString());
+        assertThat(stats.getDaily().get(0).getTotalTransactions()).isEqualTo(3);
+
+        Map<String, Object> upiTotals = jdbcTemplate.queryForMap(
+            "SELECT total_count, success_count, success_amount FROM payment_totals WHERE merchant_id = ? AND method = 'upi'",
+            MERCHANT_ID);
+        assertThat(upiTotals).containsEntry("total_count", 1L).containsEntry("success_count", 1L)
+            .containsEntry("success_amount", 1000L);
+    }
+
+    @Test
+    void totalsDoNotReadDaysOutsideTheLongestWindow() {
+        // Only payment_totals is read for the totals; a daily row this old is never fetched
+        jdbcTemplate.update("INSERT INTO payment_stats (merchant_id, day, method, total_count, success_count," +
+            " failed_count, success_amount) VALUES (?, ?, 'upi', 50, 50, 0, 500000)",
+            MERCHANT_ID, LocalDate.now().minusDays(StatsService.MAX_DAYS + 30L));
+        jdbcTemplate.update("INSERT INTO payment_totals (merchant_id, method, total_count, success_count," +
+            " failed_count, success_amount) VALUES (?, 'upi', 60, 55, 5, 550000)", MERCHANT_ID);
+
+        StatsResponse stats = statsService.getStats(MERCHANT_ID, StatsService.MAX_DAYS);
+
+        assertThat(stats.getTotalTransactions()).isEqualTo(60);
+        assertThat(stats.getSuccessfulTransactions()).isEqualTo(55);
+        assertThat(stats.getTotalAmount()).isEqualTo(550000);
+        assertThat(stats.getDaily()).isEmpty();
+    }
+
+    @Test
+    void totalsAreBackfilledFromTheDailyRollup() {
+        jdbcTemplate.update("INSERT INTO payment_stats (merchant_id, day, method, total_count, success_count," +
+            " failed_count, success_amount) VALUES (?, ?, 'card', 4, 3, 1, 30000), (?, ?, 'card', 2, 2, 0, 20000)",
+            MERCHANT_ID, LocalDate.now().minusDays(1000), MERCHANT_ID, LocalDate.now());
+
+        // schema.sql runs on every start; an empty payment_totals is filled from payment_stats
+        TestDatabase.applySchema(jdbcTemplate.getDataSource());
+
+        Map<String, Object> cardTotals = jdbcTemplate.queryForMap(
+            "SELECT total_count, success_count, failed_count, success_amount FROM payment_totals" +
+            " WHERE merchant_id = ? AND method = 'card'", MERCHANT_ID);
+        assertThat(cardTotals).containsEntry("total_count", 6L).containsEntry("success_count", 5L)
+            .containsEntry("failed_count", 1L).containsEntry("success_amount", 50000L);
+    }
+
+    private void insertPayment(String id, String method, int amount) {
+        jdbcTemplate.update("INSERT INTO payments (id, order_id, merchant_id, amount, method, status, process_after," +
+            " created_at) VALUES (?, ?, ?, ?, ?, 'processing', ?, ?)",
+            id, "order_" + id, MERCHANT_ID, amount, method, Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)),
+            Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void complete(Map<String, String> statuses) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, ClaimedPayment> claimed = paymentQueueRepository.claimDue("worker", now, now.plusSeconds(30), 10)
+            .stream().collect(Collectors.toMap(ClaimedPayment::getId, Function.identity()));
+
+        List<Completion> completions = new ArrayList<>();
+        statuses.forEach((id, status) -> completions.add(new Completion(id, claimed.get(id).getCreatedAt(), "worker",
+            status, "failed".equals(status) ? "PAYMENT_FAILED" : null, null, now)));
+        assertThat(paymentQueueRepository.completeAll(completions)).containsOnly(true);
+    }
+}
@@ -0,0 +1,251 @@
+package com.gateway.services;
+
+import com.gateway.repositories.WebhookEventRepository;
+import com.gateway.support.TestDatabase;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+// Delivers through the real WebhookSender to a stub HTTP server and records outcomes in PostgreSQL
+class WebhookDispatcherTest {
+
+    private static final UUID MERCHANT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final String SECRET = "secret_test_xyz789";
+
+    private static final long RETRY_BASE_SECONDS = 10;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private final List<Delivery> deliveries = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger responseStatus = new AtomicInteger(200);
+
+    private HttpServer server;
+
+    private WebhookSender webhookSender;
+
+    private WebhookDispatcher dispatcher;
+
+    @BeforeAll
+    static void createDatabase() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.create());
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate.execute("TRUNCATE webhook_events");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/webhook", exchange -> {
+            deliveries.add(new Delivery(exchange.getRequestHeaders().getFirst(WebhookSender.ID_HEADER),
+                exchange.getRequestHeaders().getFirst(WebhookSender.EVENT_HEADER),
+                exchange.getRequestHeaders().getFirst(WebhookSender.TIMESTAMP_HEADER),
+                exchange.getRequestHeaders().getFirst(WebhookSender.SIGNATURE_HEADER),
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            exchange.sendResponseHeaders(responseStatus.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        setWebhookUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/webhook");
+
+        webhookSender = new WebhookSender();
+        ReflectionTestUtils.setField(webhookSender, "httpThreads", 2);
+        ReflectionTestUtils.setField(webhookSender, "connectTimeout", 1000L);
+        ReflectionTestUtils.setField(webhookSender, "requestTimeout", 2000L);
+        webhookSender.start();
+
+        WebhookEventRepository repository = new WebhookEventRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+
+        dispatcher = new WebhookDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "webhookEventRepository", repository);
+        ReflectionTestUtils.setField(dispatcher, "webhookSender", webhookSender);
+        ReflectionTestUtils.setField(dispatcher, "gatewayMetrics", mock(GatewayMetrics.class));
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 16);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 16);
+        ReflectionTestUtils.setField(dispatcher, "pollInterval", 50L);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 60L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(dispatcher, "retryBaseSeconds", RETRY_BASE_SECONDS);
+        ReflectionTestUtils.setField(dispatcher, "retryMaxSeconds", 3600L);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+        webhookSender.stop();
+        server.stop(0);
+        setWebhookUrl(null);
+    }
+
+    @Test
+    void deliveryIsSignedOverTimestampAndBodyAndMarkedDeliveredOn2xx() throws Exception {
+        String payload = "{\"event\":\"payment.success\",\"payload\":{\"payment\":{\"id\":\"pay_1\",\"amount\":50000}}}";
+        responseStatus.set(204);
+        insertEvent("evt_1", payload);
+
+        Map<String, Object> event = await("evt_1", row -> "delivered".equals(row.get("status")));
+
+        assertThat(event.get("attempts")).isEqualTo(1);
+        assertThat(event.get("last_response_code")).isEqualTo(204);
+        assertThat(event.get("delivered_at")).isNotNull();
+        assertThat(event.get("lease_owner")).isNull();
+
+        assertThat(deliveries).hasSize(1);
+        Delivery delivery = deliveries.get(0);
+        assertThat(delivery.id).isEqualTo("evt_1");
+        assertThat(delivery.event).isEqualTo("payment.success");
+        assertThat(delivery.body).isEqualTo(payload);
+        long timestamp = Long.parseLong(delivery.timestamp);
+        assertThat(timestamp).isCloseTo(System.currentTimeMillis() / 1000, within(60L));
+        assertThat(delivery.signature).isEqualTo("v1=" + hmacSha256(SECRET, delivery.timestamp + "." + payload));
+    }
+
+    @Test
+    void non2xxResponsesAreRetriedWithBackoffUntilTheEventIsDead() throws Exception {
+        responseStatus.set(503);
+        LocalDateTime before = LocalDateTime.now();
+        insertEvent("evt_1", "{}");
+
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            int expected = attempt;
+            Map<String, Object> event = await("evt_1",
+                row -> (int) row.get("attempts") == expected && row.get("lease_owner") == null);
+
+            assertThat(event.get("status")).isEqualTo("pending");
+            assertThat(event.get("last_response_code")).isEqualTo(503);
+            assertThat(event.get("last_error")).isEqualTo("HTTP 503");
+            assertBackoff(event, attempt, before);
+            before = LocalDateTime.now();
+            makeDue("evt_1");
+        }
+
+        Map<String, Object> event = await("evt_1", row -> "dead".equals(row.get("status")));
+        assertThat(event.get("attempts")).isEqualTo(MAX_ATTEMPTS);
+        assertThat(event.get("delivered_at")).isNull();
+        assertThat(deliveries).hasSize(MAX_ATTEMPTS);
+
+        // Dead events are not claimed again
+        makeDue("evt_1");
+        Thread.sleep(300);
+        assertThat(deliveries).hasSize(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void connectionErrorsAreRetriedWithBackoff() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        setWebhookUrl("http://127.0.0.1:" + closedPort + "/webhook");
+        LocalDateTime before = LocalDateTime.now();
+        insertEvent("evt_1", "{}");
+
+        Map<String, Object> event = await("evt_1",
+            row -> (int) row.get("attempts") == 1 && row.get("lease_owner") == null);
+
+        assertThat(event.get("status")).isEqualTo("pending");
+        assertThat(event.get("last_response_code")).isNull();
+        assertThat((String) event.get("last_error")).startsWith("ConnectException");
+        assertBackoff(event, 1, before);
+
+        // The retry reads the merchant's current URL
+        setWebhookUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/webhook");
+        makeDue("evt_1");
+        event = await("evt_1", row -> "delivered".equals(row.get("status")));
+        assertThat(event.get("attempts")).isEqualTo(2);
+        assertThat(deliveries).hasSize(1);
+    }
+
+    // After attempt n the next one is due in half to all of RETRY_BASE_SECONDS * 2^(n-1)
+    private static void assertBackoff(Map<String, Object> event, int attempt, LocalDateTime before) {
+        long delay = RETRY_BASE_SECONDS << (attempt - 1);
+        LocalDateTime nextAttemptAt = ((Timestamp) event.get("next_attempt_at")).toLocalDateTime();
+        assertThat(nextAttemptAt).isAfterOrEqualTo(before.plusSeconds(delay / 2));
+        assertThat(nextAttemptAt).isBeforeOrEqualTo(LocalDateTime.now().plusSeconds(delay));
+    }
+
+    private void insertEvent(String id, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO webhook_events (id, merchant_id, payment_id, event, payload, next_attempt_at," +
+            " created_at) VALUES (?, ?, 'pay_1', 'payment.success', ?, ?, ?)", id, MERCHANT_ID, payload,
+            Timestamp.valueOf(now), Timestamp.valueOf(now));
+        dispatcher.wakeUp();
+    }
+
+    private void makeDue(String id) {
+        jdbcTemplate.update("UPDATE webhook_events SET next_attempt_at = ? WHERE id = ?",
+            Timestamp.valueOf(LocalDateTime.now()), id);
+        dispatcher.wakeUp();
+    }
+
+    private static void setWebhookUrl(String url) {
+        jdbcTemplate.update("UPDATE merchants SET webhook_url = ? WHERE id = ?", url, MERCHANT_ID);
+    }
+
+    private static Map<String, Object> await(String id, Predicate<Map<String, Object>> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        Map<String, Object> row;
+        do {
+            row = jdbcTemplate.queryForMap("SELECT * FROM webhook_events WHERE id = ?", id);
+            if (condition.test(row)) {
+                return row;
+            }
+            Thread.sleep(20);
+        } while (System.nanoTime() - deadline < 0);
+        throw new AssertionError("Webhook event never reached the expected state: " + row);
+    }
+
+    private static String hmacSha256(String secret, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class Delivery {
+        private final String id;
+        private final String event;
+        private final String timestamp;
+        private final String signature;
+        private final String body;
+
+        private Delivery(String id, String event, String timestamp, String signature, String body) {
+            this.id = id;
+            this.event = event;
+            this.timestamp = timestamp;
+            this.signature = signature;
+            this.body = body;
+        }
+    }
+}
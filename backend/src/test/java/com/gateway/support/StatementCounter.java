@@ -0,0 +1,106 @@
+package com.gateway.support;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Counts the round trips a DataSource's statements make: every execute* call and every executeBatch
+// call is one, however many rows a batch carries. Prepared statements record their SQL as well.
+public final class StatementCounter {
+
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrap(connection) : result;
+        });
+    }
+
+    // Executions whose SQL contains the given fragment; a batch counts once
+    public int executions(String sqlFragment) {
+        synchronized (executed) {
+            return (int) executed.stream().filter(sql -> sql.contains(sqlFragment)).count();
+        }
+    }
+
+    public int executions() {
+        return executed.size();
+    }
+
+    // Rows carried by each executeBatch call, in order
+    public List<Integer> batchSizes() {
+        synchronized (batchSizes) {
+            return new ArrayList<>(batchSizes);
+        }
+    }
+
+    public void reset() {
+        executed.clear();
+        batchSizes.clear();
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof PreparedStatement statement && args != null && args[0] instanceof String sql) {
+                return wrap(PreparedStatement.class, statement, sql);
+            }
+            if (result instanceof Statement statement && !(result instanceof PreparedStatement)) {
+                return wrap(Statement.class, statement, null);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T wrap(Class<T> type, T statement, String preparedSql) {
+        int[] pending = new int[1];
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("addBatch")) {
+                pending[0]++;
+            } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                executed.add(preparedSql != null ? preparedSql : "batch");
+                batchSizes.add(pending[0]);
+                pending[0] = 0;
+            } else if (name.startsWith("execute")) {
+                executed.add(preparedSql != null ? preparedSql : String.valueOf(args[0]));
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return invoke(target, method, args);
+            }
+            return handler.handle(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[] {type},
+            invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
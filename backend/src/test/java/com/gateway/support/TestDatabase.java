@@ -0,0 +1,90 @@
+package com.gateway.support;
+
+import com.gateway.services.PartitionMaintenanceService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One embedded PostgreSQL server per test JVM, the same major version as docker-compose uses. Each
+// test class asks for a database of its own, so tests never see each other's rows.
+public final class TestDatabase {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static EmbeddedPostgres server;
+
+    private TestDatabase() {
+    }
+
+    public static DataSource createEmpty() {
+        String name = "test_" + DATABASES.incrementAndGet();
+        new JdbcTemplate(server().getPostgresDatabase()).execute("CREATE DATABASE " + name);
+        return server().getDatabase("postgres", name);
+    }
+
+    // schema.sql applied the way spring.sql.init applies it, plus the monthly partitions the
+    // application creates at startup
+    public static DataSource create() {
+        DataSource dataSource = createEmpty();
+        applySchema(dataSource);
+        preparePartitions(dataSource);
+        return dataSource;
+    }
+
+    // Points a Spring Boot test context at a new empty database; the application applies schema.sql and
+    // creates its partitions on startup as it does in production
+    public static void register(DynamicPropertyRegistry registry) {
+        String url = jdbcUrl(createEmpty());
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    public static String jdbcUrl(DataSource dataSource) {
+        String database = new JdbcTemplate(dataSource).queryForObject("SELECT current_database()", String.class);
+        return server().getJdbcUrl("postgres", database);
+    }
+
+    public static void applySchema(DataSource dataSource) {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    // Runs PartitionMaintenanceService's startup work: converts unpartitioned tables and creates
+    // the partitions for the coming months
+    public static void preparePartitions(DataSource dataSource) {
+        PartitionMaintenanceService service = new PartitionMaintenanceService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(service, "interval", 3_600_000L);
+        ReflectionTestUtils.setField(service, "premakeMonths", 3);
+        ReflectionTestUtils.setField(service, "retentionMonths", 12);
+        ReflectionTestUtils.setField(service, "lockTimeout", 2000L);
+        service.start();
+        service.stop();
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (server == null) {
+            try {
+                server = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start embedded PostgreSQL", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException ignored) {
+                    // The process is exiting anyway
+                }
+            }));
+        }
+        return server;
+    }
+}
@@ -0,0 +1,83 @@
+package com.gateway.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinTableLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fileEntriesWinAndBuiltInRulesFillTheGaps() throws IOException {
+        BinTable table = load(
+            "# network overrides",
+            "41111111,41111199,visa,debit,in",
+            "50000000,50849999,maestro,debit,GB",
+            "",
+            "60832600,60832699,rupay,debit,IN");
+
+        assertThat(table.lookup(41111150).getCardType()).isEqualTo("debit");
+        assertThat(table.lookup(41111150).getCountry()).isEqualTo("IN");
+        // The rest of the 4 range still comes from the built-in rules
+        assertThat(table.lookup(41111200).getNetwork()).isEqualTo("visa");
+        assertThat(table.lookup(41111200).getCardType()).isNull();
+        assertThat(table.lookup(40000000).getNetwork()).isEqualTo("visa");
+        assertThat(table.lookup(49999999).getNetwork()).isEqualTo("visa");
+        assertThat(table.lookup(50849999).getNetwork()).isEqualTo("maestro");
+        assertThat(table.lookup(50850000).getNetwork()).isEqualTo("rupay");
+        assertThat(table.lookup(60832650).getCountry()).isEqualTo("IN");
+        assertThat(table.lookup(60000000).getCardType()).isNull();
+        assertThat(table.lookup(90000000)).isNull();
+    }
+
+    @Test
+    void fileEntriesOverrideWiderBuiltInRules() throws IOException {
+        // Covers the whole built-in amex range and more, so nothing of the built-in entry is left
+        BinTable table = load("33000000,38999999,amex,credit,US");
+
+        assertThat(table.lookup(34000000).getCardType()).isEqualTo("credit");
+        assertThat(table.lookup(37999999).getCardType()).isEqualTo("credit");
+        assertThat(table.lookup(35000000).getNetwork()).isEqualTo("amex");
+    }
+
+    @Test
+    void disjointFileIsNotSplitByTheBuiltInRules() throws IOException {
+        BinTable table = load("40000000,44999999,visa,credit", "45000000,49999999,visa,debit");
+
+        // Two file ranges plus the built-in ranges outside 4, none of them cut
+        assertThat(table.size()).isEqualTo(2 + BinTable.defaults().size() - 1);
+        assertThat(table.lookup(44999999).getCardType()).isEqualTo("credit");
+        assertThat(table.lookup(45000000).getCardType()).isEqualTo("debit");
+    }
+
+    @Test
+    void narrowerFileEntryWinsWhereTheFileOverlapsItself() throws IOException {
+        BinTable table = load("52000000,52999999,mastercard,credit", "52100000,52100099,mastercard,prepaid");
+
+        assertThat(table.lookup(52100050).getCardType()).isEqualTo("prepaid");
+        assertThat(table.lookup(52100100).getCardType()).isEqualTo("credit");
+        assertThat(table.lookup(51000000).getCardType()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedFiles() throws IOException {
+        assertThatThrownBy(() -> load("# nothing here")).hasMessageContaining("no BIN ranges");
+        assertThatThrownBy(() -> load("4111,4111")).hasMessageContaining(":1: expected 3 to 5 columns");
+        assertThatThrownBy(() -> load("4111,4111,visa", "4x,41,visa")).hasMessageContaining(":2: BIN prefix must be numeric");
+        assertThatThrownBy(() -> load("42,41,visa")).hasMessageContaining("is empty");
+        assertThatThrownBy(() -> load("41,42, ")).hasMessageContaining("network is required");
+    }
+
+    private BinTable load(String... lines) throws IOException {
+        Path file = Files.write(directory.resolve("bins.csv"), String.join("\n", lines).getBytes());
+        return BinTableLoader.load(file);
+    }
+}
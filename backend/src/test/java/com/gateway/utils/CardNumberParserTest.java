@@ -0,0 +1,202 @@
+package com.gateway.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardNumberParserTest {
+
+    // The network rules the regex validator had, before BIN files and the 2-series and 5085-5089 ranges
+    private static final BinTable REGEX_RULES = new BinTable.Builder()
+        .add("4", "4", new BinTable.BinInfo("visa"))
+        .add("51", "55", new BinTable.BinInfo("mastercard"))
+        .add("34", "34", new BinTable.BinInfo("amex"))
+        .add("37", "37", new BinTable.BinInfo("amex"))
+        .add("60", "60", new BinTable.BinInfo("rupay"))
+        .add("65", "65", new BinTable.BinInfo("rupay"))
+        .add("81", "89", new BinTable.BinInfo("rupay"))
+        .build();
+
+    // Digits dominate so that a useful share of inputs has a valid length and checksum
+    private static final String ALPHABET = "01234567890123456789012345678901234567890123456789 -\t\n\r\f\u000Bax.+";
+
+    @Test
+    void matchesTheRegexValidatorOnRandomInput() {
+        Random random = new Random(20261017L);
+        int valid = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            String number = randomNumber(random);
+            CardNumberParser.ParsedCard parsed = CardNumberParser.parse(number, REGEX_RULES);
+
+            assertThat(parsed.isValid()).as(number).isEqualTo(regexValidateCardNumber(number));
+            assertThat(CardNumberParser.detectNetwork(number, REGEX_RULES)).as(number)
+                .isEqualTo(regexDetectCardNetwork(number));
+            if (parsed.isValid()) {
+                valid++;
+                String digits = number.replaceAll("[\\s-]", "");
+                assertThat(parsed.getNetwork()).as(number).isEqualTo(regexDetectCardNetwork(number));
+                assertThat(parsed.getLast4()).as(number).isEqualTo(digits.substring(digits.length() - 4));
+                assertThat(parsed.getDigits()).as(number).isEqualTo(digits.length());
+            }
+        }
+        // Guards against a generator that only ever produces rejected numbers
+        assertThat(valid).isGreaterThan(10_000);
+    }
+
+    @Test
+    void luhnParityDependsOnTheDigitCount() {
+        for (int length = CardNumberParser.MIN_DIGITS; length <= CardNumberParser.MAX_DIGITS; length++) {
+            String body = "4" + "1234567890123456789".substring(0, length - 2);
+            String number = body + checkDigit(body);
+
+            assertThat(CardNumberParser.parse(number, BinTable.defaults()).isValid()).as(number).isTrue();
+            int wrong = (number.charAt(length - 1) - '0' + 1) % 10;
+            assertThat(CardNumberParser.parse(body + wrong, BinTable.defaults()).isValid()).as(body + wrong).isFalse();
+        }
+    }
+
+    @Test
+    void rejectsNumbersOutsideTheDigitCountLimits() {
+        String twelve = "41111111111" + checkDigit("41111111111");
+        String twenty = "4111111111111111111" + checkDigit("4111111111111111111");
+
+        assertThat(CardNumberParser.parse(twelve, BinTable.defaults()).isValid()).isFalse();
+        assertThat(CardNumberParser.parse(twenty, BinTable.defaults()).isValid()).isFalse();
+        assertThat(CardNumberParser.parse("", BinTable.defaults()).isValid()).isFalse();
+        assertThat(CardNumberParser.parse(null, BinTable.defaults()).isValid()).isFalse();
+    }
+
+    @Test
+    void skipsWhitespaceAndDashesOnly() {
+        for (String number : new String[] {"4111 1111 1111 1111", "4111-1111-1111-1111", " 4111\t1111\n1111\r1111 ",
+                "4111\f1111\u000B1111--1111"}) {
+            CardNumberParser.ParsedCard parsed = CardNumberParser.parse(number, BinTable.defaults());
+            assertThat(parsed.isValid()).as(number).isTrue();
+            assertThat(parsed.getLast4()).isEqualTo("1111");
+            assertThat(parsed.getDigits()).isEqualTo(16);
+        }
+        // Dots, underscores, no-break spaces and non-ASCII digits are neither separators nor digits
+        for (String number : new String[] {"4111.1111.1111.1111", "4111_1111_1111_1111",
+                "4111\u00A01111\u00A01111\u00A01111", "4111 1111 1111 111\u0661"}) {
+            assertThat(CardNumberParser.parse(number, BinTable.defaults()).isValid()).as(number).isFalse();
+        }
+    }
+
+    @Test
+    void detectsEveryNetworkByPrefix() {
+        assertNetwork("visa", "4");
+        for (String prefix : new String[] {"51", "52", "53", "54", "55", "2221", "2500", "2720"}) {
+            assertNetwork("mastercard", prefix);
+        }
+        assertNetwork("amex", "34");
+        assertNetwork("amex", "37");
+        for (String prefix : new String[] {"60", "65", "81", "85", "89", "5085", "5089"}) {
+            assertNetwork("rupay", prefix);
+        }
+        for (String prefix : new String[] {"50", "56", "2220", "2721", "30", "35", "61", "64", "80", "9", "1"}) {
+            assertNetwork(CardNumberParser.ParsedCard.UNKNOWN_NETWORK, prefix);
+        }
+    }
+
+    @Test
+    void shortPrefixesOnlyMatchWhenTheWholeRangeAgrees() {
+        assertThat(CardNumberParser.detectNetwork("4", BinTable.defaults())).isEqualTo("visa");
+        assertThat(CardNumberParser.detectNetwork("5", BinTable.defaults())).isEqualTo("unknown");
+        assertThat(CardNumberParser.detectNetwork("8", BinTable.defaults())).isEqualTo("unknown");
+        assertThat(CardNumberParser.detectNetwork("8 1", BinTable.defaults())).isEqualTo("rupay");
+        assertThat(CardNumberParser.detectNetwork("", BinTable.defaults())).isEqualTo("unknown");
+    }
+
+    // A valid 16-digit number starting with prefix, checked through both the parser and detectNetwork
+    private static void assertNetwork(String network, String prefix) {
+        String body = (prefix + "000000000000000").substring(0, 15);
+        String number = body + checkDigit(body);
+        CardNumberParser.ParsedCard parsed = CardNumberParser.parse(number, BinTable.defaults());
+
+        assertThat(parsed.isValid()).as(number).isTrue();
+        assertThat(parsed.getNetwork()).as(number).isEqualTo(network);
+        assertThat(CardNumberParser.detectNetwork(number, BinTable.defaults())).as(number).isEqualTo(network);
+    }
+
+    private static String randomNumber(Random random) {
+        int length = random.nextInt(26);
+        StringBuilder number = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            number.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return number.toString();
+    }
+
+    private static int checkDigit(String body) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = body.length() - 1; i >= 0; i--) {
+            int digit = body.charAt(i) - '0';
+            if (doubled) {
+                digit = digit * 2 > 9 ? digit * 2 - 9 : digit * 2;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    // ValidationService.validateCardNumber as it was before CardNumberParser
+    private static boolean regexValidateCardNumber(String cardNumber) {
+        if (cardNumber == null) {
+            return false;
+        }
+        String cleanedCardNumber = cardNumber.replaceAll("[\\s-]", "");
+        if (!cleanedCardNumber.matches("\\d{13,19}")) {
+            return false;
+        }
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cleanedCardNumber.length() - 1; i >= 0; i--) {
+            int n = Character.getNumericValue(cleanedCardNumber.charAt(i));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) {
+                    n = (n % 10) + 1;
+                }
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return (sum % 10 == 0);
+    }
+
+    // ValidationService.detectCardNetwork as it was before CardNumberParser
+    private static String regexDetectCardNetwork(String cardNumber) {
+        if (cardNumber == null) {
+            return "unknown";
+        }
+        String cleanedCardNumber = cardNumber.replaceAll("[\\s-]", "");
+        if (cleanedCardNumber.startsWith("4")) {
+            return "visa";
+        } else if (cleanedCardNumber.startsWith("5") && cleanedCardNumber.length() >= 2) {
+            String secondDigit = cleanedCardNumber.substring(1, 2);
+            if ("12345".contains(secondDigit)) {
+                return "mastercard";
+            }
+        } else if (cleanedCardNumber.startsWith("3") && cleanedCardNumber.length() >= 2) {
+            String secondDigit = cleanedCardNumber.substring(1, 2);
+            if ("47".contains(secondDigit)) {
+                return "amex";
+            }
+        } else if (cleanedCardNumber.startsWith("6") && cleanedCardNumber.length() >= 2) {
+            String secondDigit = cleanedCardNumber.substring(1, 2);
+            if ("05".contains(secondDigit)) {
+                return "rupay";
+            }
+        } else if (cleanedCardNumber.startsWith("8") && cleanedCardNumber.length() >= 2) {
+            int secondDigit = Character.getNumericValue(cleanedCardNumber.charAt(1));
+            if (secondDigit >= 1 && secondDigit <= 9) {
+                return "rupay";
+            }
+        }
+        return "unknown";
+    }
+}
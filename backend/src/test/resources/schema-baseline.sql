@@ -0,0 +1,64 @@
+-- Create UUID extension if not exists
+CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+
+-- Merchants Table
+CREATE TABLE IF NOT EXISTS merchants (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) UNIQUE NOT NULL,
+    api_key VARCHAR(64) UNIQUE NOT NULL,
+    api_secret VARCHAR(64) NOT NULL,
+    webhook_url TEXT,
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Orders Table
+CREATE TABLE IF NOT EXISTS orders (
+    id VARCHAR(64) PRIMARY KEY,
+    merchant_id UUID NOT NULL REFERENCES merchants(id),
+    amount INTEGER NOT NULL,
+    currency VARCHAR(3) DEFAULT 'INR',
+    receipt VARCHAR(255),
+    notes JSONB,
+    status VARCHAR(20) DEFAULT 'created',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Payments Table
+CREATE TABLE IF NOT EXISTS payments (
+    id VARCHAR(64) PRIMARY KEY,
+    order_id VARCHAR(64) NOT NULL REFERENCES orders(id),
+    merchant_id UUID NOT NULL REFERENCES merchants(id),
+    amount INTEGER NOT NULL,
+    currency VARCHAR(3) DEFAULT 'INR',
+    method VARCHAR(20) NOT NULL,
+    status VARCHAR(20) DEFAULT 'processing',
+    vpa VARCHAR(255),
+    card_network VARCHAR(20),
+    card_last4 VARCHAR(4),
+    error_code VARCHAR(50),
+    error_description TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Required Indexes
+CREATE INDEX IF NOT EXISTS idx_orders_merchant_id ON orders(merchant_id);
+CREATE INDEX IF NOT EXISTS idx_payments_order_id ON payments(order_id);
+CREATE INDEX IF NOT EXISTS idx_payments_status ON payments(status);
+
+-- Insert test merchant if not exists
+INSERT INTO merchants (id, name, email, api_key, api_secret, created_at)
+SELECT 
+    '550e8400-e29b-41d4-a716-446655440000',
+    'Test Merchant',
+    'test@example.com',
+    'key_test_abc123',
+    'secret_test_xyz789',
+    CURRENT_TIMESTAMP
+WHERE NOT EXISTS (
+    SELECT 1 FROM merchants WHERE email = 'test@example.com'
+);
\ No newline at end of file
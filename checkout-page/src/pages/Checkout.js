@@ -25,7 +25,19 @@ function Checkout() {
     }
   }, [orderId]);
   
-  // Polling function to check payment status
+  const handlePaymentStatus = (data) => {
+    if (data.status === 'success') {
+      setPaymentStatus('success');
+      return true;
+    } else if (data.status === 'failed') {
+      setPaymentStatus('error');
+      setError(data.error_description || 'Payment failed');
+      return true;
+    }
+    return false;
+  };
+
+  // Polling function to check payment status, used where the event stream is unavailable
   const pollPaymentStatus = async (paymentId) => {
     const poll = async () => {
       try {
@@ -34,12 +46,7 @@ function Checkout() {
         const data = await response.json();
         
         if (response.ok) {
-          if (data.status === 'success') {
-            setPaymentStatus('success');
-          } else if (data.status === 'failed') {
-            setPaymentStatus('error');
-            setError(data.error_description || 'Payment failed');
-          } else {
+          if (!handlePaymentStatus(data)) {
             // Continue polling if status is still processing
             setTimeout(poll, 2000); // Poll every 2 seconds
           }
@@ -56,6 +63,28 @@ function Checkout() {
     poll();
   };
 
+  // Wait for the final status on a Server-Sent Events stream; the browser reconnects on its own if
+  // the stream drops while the payment is processing
+  const watchPaymentStatus = (paymentId) => {
+    if (typeof EventSource === 'undefined') {
+      pollPaymentStatus(paymentId);
+      return;
+    }
+
+    const source = new EventSource(`/api/v1/payments/${paymentId}/events`);
+    source.addEventListener('status', (event) => {
+      if (handlePaymentStatus(JSON.parse(event.data))) {
+        source.close();
+      }
+    });
+    source.onerror = () => {
+      // A closed stream (e.g. a 404) is not retried by the browser; fall back to polling
+      if (source.readyState === EventSource.CLOSED) {
+        pollPaymentStatus(paymentId);
+      }
+    };
+  };
+
   const fetchOrderDetails = async () => {
     try {
       // Call the public API to get order details
@@ -110,8 +139,8 @@ function Checkout() {
       
       if (response.ok) {
         setPaymentId(data.id);
-        // Start polling for payment status
-        pollPaymentStatus(data.id);
+        // Wait for the payment status
+        watchPaymentStatus(data.id);
       } else {
         setPaymentStatus('error');
         setError(data.error?.description || 'Payment failed');
@@ -159,8 +188,8 @@ function Checkout() {
       
       if (response.ok) {
         setPaymentId(data.id);
-        // Start polling for payment status
-        pollPaymentStatus(data.id);
+        // Wait for the payment status
+        watchPaymentStatus(data.id);
       } else {
         setPaymentStatus('error');
         setError(data.error?.description || 'Payment failed');
@@ -0,0 +1,16 @@
+#!/bin/sh
+# Clones the primary on first start and then runs as a hot standby that streams from it.
+set -e
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+  until pg_isready -h "$PRIMARY_HOST" -p 5432; do
+    sleep 1
+  done
+  rm -rf "$PGDATA"/*
+  # -R writes standby.signal and primary_conninfo, so the copy starts as a streaming replica
+  PGPASSWORD="$REPLICATION_PASSWORD" pg_basebackup -h "$PRIMARY_HOST" -p 5432 -U "$REPLICATION_USER" \
+    -D "$PGDATA" -X stream -R
+  chmod 0700 "$PGDATA"
+fi
+
+exec postgres
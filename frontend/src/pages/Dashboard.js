@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import OrderCreator from '../components/OrderCreator';
-import { fetchOrders, fetchPayments } from '../utils/api';
+import { fetchStats } from '../utils/api';
 
 function Dashboard() {
   const [apiCredentials, setApiCredentials] = useState({
@@ -20,47 +20,21 @@ function Dashboard() {
 
   // Fetch stats from API
   useEffect(() => {
-    const fetchStats = async () => {
+    const loadStats = async () => {
       try {
         setLoading(true);
         
-        // Get orders to calculate stats
-        const ordersResult = await fetchOrders(apiCredentials);
+        // Totals are aggregated on the server, so the dashboard no longer downloads every payment
+        const statsResult = await fetchStats(apiCredentials);
         
-        if (ordersResult.success) {
-          const orders = ordersResult.data;
-          
-          // Calculate stats from fetched orders
-          const totalTransactions = orders.length;
-          const totalAmount = orders.reduce((sum, order) => sum + order.amount, 0);
-          
-          // For success rate, we'd need to fetch payments as well
-          const paymentsResult = await fetchPayments(apiCredentials);
-          
-          if (paymentsResult.success) {
-            const payments = paymentsResult.data;
-            const successfulPayments = payments.filter(p => p.status === 'success').length;
-            const successRate = payments.length > 0 ? Math.round((successfulPayments / payments.length) * 100) : 0;
-            
-            // Calculate total amount from successful payments only (as per requirements)
-            const totalAmountFromPayments = payments
-              .filter(p => p.status === 'success')
-              .reduce((sum, payment) => sum + (payment.amount || 0), 0);
-            
-            setStats({
-              totalTransactions: payments.length, // Total transactions should be from payments, not orders
-              totalAmount: totalAmountFromPayments,
-              successRate: successRate
-            });
-          } else {
-            setStats({
-              totalTransactions: totalTransactions,
-              totalAmount: totalAmount,
-              successRate: 0
-            });
-          }
+        if (statsResult.success) {
+          setStats({
+            totalTransactions: statsResult.data.total_transactions,
+            totalAmount: statsResult.data.total_amount, // Successful payments only (as per requirements)
+            successRate: statsResult.data.success_rate
+          });
         } else {
-          setError(ordersResult.data.error?.description || 'Failed to fetch stats');
+          setError(statsResult.data.error?.description || 'Failed to fetch stats');
         }
       } catch (err) {
         setError(err.message);
@@ -69,7 +43,7 @@ function Dashboard() {
       }
     };
     
-    fetchStats();
+    loadStats();
   }, [apiCredentials]);
 
   if (loading) {
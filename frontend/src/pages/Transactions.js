@@ -4,6 +4,8 @@ import { fetchPayments } from '../utils/api';
 function Transactions() {
   const [transactions, setTransactions] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
   const [error, setError] = useState(null);
   
   // API credentials from localStorage
@@ -12,28 +14,34 @@ function Transactions() {
     apiSecret: localStorage.getItem('apiSecret') || 'secret_test_xyz789'
   };
 
-  // Fetch transactions from API
+  // Fetches one page of transactions, newest first; a cursor continues after the previous page
+  const fetchTransactions = async (cursor = null) => {
+    const result = await fetchPayments(apiCredentials, cursor);
+
+    if (!result.success) {
+      throw new Error(result.data.error?.description || 'Failed to fetch transactions');
+    }
+
+    // Transform data to match our table format
+    const transformedTransactions = result.data.map(payment => ({
+      id: payment.id,
+      orderId: payment.order_id,
+      amount: payment.amount,
+      method: payment.method,
+      status: payment.status,
+      createdAt: payment.created_at || payment.createdAt
+    }));
+
+    setTransactions(previous => cursor ? [...previous, ...transformedTransactions] : transformedTransactions);
+    setNextCursor(result.nextCursor);
+  };
+
+  // Fetch the first page from API
   useEffect(() => {
-    const fetchTransactions = async () => {
+    const fetchFirstPage = async () => {
       try {
         setLoading(true);
-        const result = await fetchPayments(apiCredentials);
-        
-        if (result.success) {
-          // Transform data to match our table format
-          const transformedTransactions = result.data.map(payment => ({
-            id: payment.id,
-            orderId: payment.order_id,
-            amount: payment.amount,
-            method: payment.method,
-            status: payment.status,
-            createdAt: payment.created_at || payment.createdAt
-          }));
-          
-          setTransactions(transformedTransactions);
-        } else {
-          setError(result.data.error?.description || 'Failed to fetch transactions');
-        }
+        await fetchTransactions();
       } catch (err) {
         setError(err.message);
       } finally {
@@ -41,9 +49,21 @@ function Transactions() {
       }
     };
     
-    fetchTransactions();
+    fetchFirstPage();
   }, []);
 
+  const handleLoadMore = async () => {
+    try {
+      setLoadingMore(true);
+      setError(null);
+      await fetchTransactions(nextCursor);
+    } catch (err) {
+      setError(err.message);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   if (loading) {
     return (
       <div style={{
@@ -164,7 +184,7 @@ function Transactions() {
             <span style={{
               color: '#6c757d',
               fontSize: '0.9rem'
-            }}>{transactions.length} records</span>
+            }}>{transactions.length} records{nextCursor ? ' loaded' : ''}</span>
           </div>
           
           <div style={{ overflowX: 'auto' }}>
@@ -281,6 +301,30 @@ function Transactions() {
               </tbody>
             </table>
           </div>
+
+          {nextCursor && (
+            <div style={{
+              textAlign: 'center',
+              marginTop: '20px'
+            }}>
+              <button
+                data-test-id="load-more-button"
+                onClick={handleLoadMore}
+                disabled={loadingMore}
+                style={{
+                  padding: '10px 20px',
+                  backgroundColor: loadingMore ? '#6c757d' : '#007bff',
+                  color: 'white',
+                  border: 'none',
+                  borderRadius: '4px',
+                  cursor: loadingMore ? 'not-allowed' : 'pointer',
+                  fontSize: '0.9rem'
+                }}
+              >
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       </div>
     </div>
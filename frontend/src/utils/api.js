@@ -35,7 +35,8 @@ export const makeAuthenticatedRequest = async (url, method = 'GET', data = null,
       throw new Error(errorMessage);
     }
 
-    return { success: true, data: responseData };
+    // List endpoints return one page at a time; the cursor for the next page comes in a header
+    return { success: true, data: responseData, nextCursor: response.headers.get('X-Next-Cursor') };
   } catch (error) {
     if (error.name === 'TypeError' && error.message.includes('fetch')) {
       throw new Error('Network error: Unable to connect to the server. Please check your connection.');
@@ -48,8 +49,13 @@ export const fetchOrders = async (credentials = null) => {
   return makeAuthenticatedRequest('/api/v1/orders', 'GET', null, credentials);
 };
 
-export const fetchPayments = async (credentials = null) => {
-  return makeAuthenticatedRequest('/api/v1/payments', 'GET', null, credentials);
+export const fetchPayments = async (credentials = null, cursor = null) => {
+  const url = cursor ? `/api/v1/payments?cursor=${encodeURIComponent(cursor)}` : '/api/v1/payments';
+  return makeAuthenticatedRequest(url, 'GET', null, credentials);
+};
+
+export const fetchStats = async (credentials = null) => {
+  return makeAuthenticatedRequest('/api/v1/stats', 'GET', null, credentials);
 };
 
 export const createOrder = async (orderData, credentials = null) => {